@@ -0,0 +1,143 @@
+package dev.cadebe.spring6restmvc.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.val;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Compares a JMH json result with a baseline recorded on the same machine and exits non zero on a regression beyond
+// the threshold and beyond the error of both scores.
+// Usage: BenchmarkComparison <baseline.json> <result.json> [thresholdPercent]
+// A missing or empty baseline fails the comparison when -Djmh.baseline.required=true is set.
+public class BenchmarkComparison {
+
+    static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    static final String BASELINE_REQUIRED = "jmh.baseline.required";
+
+    // The error is the half width of JMH's 99.9% confidence interval, zero when too few iterations ran to tell
+    record Score(double value, double error, String unit, boolean higherIsBetter) {
+    }
+
+    record Regression(String key, Score baseline, Score current, double changePercent) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <result.json> [thresholdPercent]");
+            System.exit(2);
+        }
+
+        val threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        val objectMapper = new ObjectMapper();
+        val baselineFile = new File(args[0]);
+        val baseline = baselineFile.isFile() ? scores(objectMapper.readTree(baselineFile)) : Map.<String, Score>of();
+        val current = scores(objectMapper.readTree(new File(args[1])));
+
+        // Without a baseline every run would pass, so that is a failure unless a first baseline is being recorded
+        if (baseline.isEmpty()) {
+            val message = "NO BENCHMARK BASELINE: " + args[0] + " is missing or empty, nothing was compared. "
+                    + "Copy " + args[1] + " from a run on the reference machine over it.";
+
+            if (Boolean.parseBoolean(System.getProperty(BASELINE_REQUIRED, "false"))) {
+                System.err.println(message);
+                System.exit(1);
+            }
+
+            System.err.println("WARNING " + message);
+            return;
+        }
+
+        val regressions = compare(baseline, current, threshold);
+
+        current.keySet().stream()
+                .filter(key -> !baseline.containsKey(key))
+                .forEach(key -> System.out.println("New benchmark without baseline: " + key));
+
+        if (!regressions.isEmpty()) {
+            System.err.printf("%d benchmark(s) regressed by more than %.1f%% and their score error:%n",
+                    regressions.size(), threshold);
+            regressions.forEach(regression -> System.err.printf(
+                    "  %s: %.3f +/- %.3f -> %.3f +/- %.3f %s (%+.1f%%)%n", regression.key(),
+                    regression.baseline().value(), regression.baseline().error(), regression.current().value(),
+                    regression.current().error(), regression.current().unit(), regression.changePercent()));
+            System.exit(1);
+        }
+
+        System.out.printf("%d benchmark score(s) within %.1f%% or the score error of the baseline%n", current.size(),
+                threshold);
+    }
+
+    static List<Regression> compare(Map<String, Score> baseline, Map<String, Score> current, double threshold) {
+        val regressions = new ArrayList<Regression>();
+
+        baseline.forEach((key, before) -> {
+            val after = current.get(key);
+
+            if (after == null || before.value() == 0) {
+                return;
+            }
+
+            val changePercent = (after.value() - before.value()) / before.value() * 100;
+            val worsePercent = before.higherIsBetter() ? -changePercent : changePercent;
+
+            // Only when the confidence intervals don't overlap either, a change inside them is noise of this machine
+            val gap = before.higherIsBetter()
+                    ? (before.value() - before.error()) - (after.value() + after.error())
+                    : (after.value() - after.error()) - (before.value() + before.error());
+
+            if (worsePercent > threshold && gap > 0) {
+                regressions.add(new Regression(key, before, after, changePercent));
+            }
+        });
+
+        return regressions;
+    }
+
+    static Map<String, Score> scores(JsonNode results) {
+        val scores = new LinkedHashMap<String, Score>();
+
+        for (val result : results) {
+            val mode = result.path("mode").asText();
+            val key = result.path("benchmark").asText() + params(result.path("params")) + " [" + mode + "]";
+            val primary = result.path("primaryMetric");
+
+            // Throughput is ops per time unit, every other mode reports time per op
+            scores.put(key, score(primary, "thrpt".equals(mode)));
+
+            result.path("secondaryMetrics").fields().forEachRemaining(metric -> {
+                if (metric.getKey().endsWith(ALLOCATION_METRIC)) {
+                    scores.put(key + " " + ALLOCATION_METRIC, score(metric.getValue(), false));
+                }
+            });
+        }
+
+        return scores;
+    }
+
+    private static Score score(JsonNode metric, boolean higherIsBetter) {
+        // JMH writes "NaN" for the error of a single iteration
+        val error = metric.path("scoreError").asDouble();
+
+        return new Score(metric.path("score").asDouble(), Double.isNaN(error) ? 0 : error,
+                metric.path("scoreUnit").asText(), higherIsBetter);
+    }
+
+    private static String params(JsonNode params) {
+        if (params.isMissingNode() || params.isEmpty()) {
+            return "";
+        }
+
+        val sorted = new TreeMap<String, String>();
+        params.fields().forEachRemaining(param -> sorted.put(param.getKey(), param.getValue().asText()));
+
+        return sorted.toString();
+    }
+}
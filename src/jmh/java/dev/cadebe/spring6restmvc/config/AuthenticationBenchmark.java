@@ -0,0 +1,57 @@
+package dev.cadebe.spring6restmvc.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Per request cost of each way to authenticate: bcrypt on every request, the verified credential cache and a signed
+// access token
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+    PasswordEncoder bcrypt = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+
+    PasswordEncoder cached = new CachingPasswordEncoder(bcrypt, new CredentialCacheProperties(), new SimpleMeterRegistry());
+
+    AccessTokenService accessTokenService = new AccessTokenService(new AccessTokenProperties(), new ObjectMapper());
+
+    String encodedPassword;
+
+    String token;
+
+    @Setup
+    public void setUp() {
+        encodedPassword = bcrypt.encode("user");
+        cached.matches("user", encodedPassword);
+        token = accessTokenService.issue(UsernamePasswordAuthenticationToken.authenticated("user", null,
+                AuthorityUtils.createAuthorityList("ROLE_USER"))).accessToken();
+    }
+
+    @Benchmark
+    public boolean bcryptPerRequest() {
+        return bcrypt.matches("user", encodedPassword);
+    }
+
+    @Benchmark
+    public boolean verifiedCredentialCache() {
+        return cached.matches("user", encodedPassword);
+    }
+
+    @Benchmark
+    public Optional<Authentication> accessToken() {
+        return accessTokenService.verify(token);
+    }
+}
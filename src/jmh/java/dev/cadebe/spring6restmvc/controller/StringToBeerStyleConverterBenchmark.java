@@ -0,0 +1,25 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StringToBeerStyleConverterBenchmark {
+
+    StringToBeerStyleConverter converter = new StringToBeerStyleConverter();
+
+    @Param({"IPA", "pale_ale", "Porter"})
+    String source;
+
+    @Benchmark
+    public BeerStyle convert() {
+        return converter.convert(source);
+    }
+}
@@ -0,0 +1,125 @@
+package dev.cadebe.spring6restmvc.data;
+
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Random varchar(36) keys against time ordered binary(16) keys on a table with a secondary index on a key column. Runs
+// on in-memory H2 unless -p url= points at a MySQL schema, which also prints the InnoDB data and index size per iteration
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UuidKeyBenchmark {
+
+    static final int ROWS = 20_000;
+
+    @Param({"varchar(36)", "binary(16)"})
+    String keyType;
+
+    @Param({"jdbc:h2:mem:"})
+    String url;
+
+    Connection connection;
+    PreparedStatement insert;
+    PreparedStatement lookup;
+    List<Object> ids;
+    int inserted;
+    int iteration;
+
+    boolean isMySql() {
+        return url.startsWith("jdbc:mysql:");
+    }
+
+    // A fresh table per iteration, so that it only grows by what one iteration inserts
+    @Setup(Level.Iteration)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(isMySql() ? url
+                : url + "uuid-" + keyType.replaceAll("\\W", "") + "-" + iteration++);
+        ids = new ArrayList<>(ROWS);
+        inserted = 0;
+
+        try (val statement = connection.createStatement()) {
+            statement.execute("drop table if exists uuid_key");
+            statement.execute("create table uuid_key (id " + keyType + " primary key, parent_id " + keyType
+                    + ", name varchar(50))" + (isMySql() ? " engine = InnoDB" : ""));
+            statement.execute("create index uuid_key_parent_idx on uuid_key (parent_id)");
+        }
+
+        insert = connection.prepareStatement("insert into uuid_key values (?, ?, ?)");
+        lookup = connection.prepareStatement("select name from uuid_key where id = ?");
+
+        for (int i = 0; i < ROWS; i++) {
+            insert();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws SQLException {
+        if (isMySql()) {
+            printTableSize();
+        }
+
+        connection.close();
+    }
+
+    // information_schema caches table statistics for a day by default, so they are refreshed before reading them
+    void printTableSize() throws SQLException {
+        try (val statement = connection.createStatement()) {
+            statement.execute("set session information_schema_stats_expiry = 0");
+            statement.execute("analyze table uuid_key");
+
+            try (val resultSet = statement.executeQuery("select table_rows, data_length, index_length "
+                    + "from information_schema.tables where table_schema = database() and table_name = 'uuid_key'")) {
+                resultSet.next();
+                System.out.printf("%n%s: %d rows, data_length %d bytes, index_length %d bytes%n", keyType,
+                        resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3));
+            }
+        }
+    }
+
+    Object nextKey() {
+        if (keyType.startsWith("binary")) {
+            val uuid = TimeOrderedUuidGenerator.next();
+
+            return ByteBuffer.allocate(16)
+                    .putLong(uuid.getMostSignificantBits())
+                    .putLong(uuid.getLeastSignificantBits())
+                    .array();
+        }
+
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public int insert() throws SQLException {
+        val id = nextKey();
+        insert.setObject(1, id);
+        insert.setObject(2, ids.isEmpty() ? null : ids.get(inserted / 2));
+        insert.setString(3, "Beer " + inserted++);
+        ids.add(id);
+
+        return insert.executeUpdate();
+    }
+
+    @Benchmark
+    public boolean lookup() throws SQLException {
+        lookup.setObject(1, ids.get(ThreadLocalRandom.current().nextInt(ROWS)));
+
+        try (val resultSet = lookup.executeQuery()) {
+            return resultSet.next();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package dev.cadebe.spring6restmvc.mappers;
+
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.data.CustomerEntity;
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.model.CustomerDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    BeerMapper beerMapper = new BeerMapperImpl();
+
+    CustomerMapper customerMapper = new CustomerMapperImpl();
+
+    BeerEntity beerEntity;
+
+    BeerDto beerDto;
+
+    CustomerEntity customerEntity;
+
+    CustomerDto customerDto;
+
+    @Setup
+    public void setUp() {
+        beerEntity = BeerEntity.builder()
+                .id(UUID.randomUUID())
+                .version(3)
+                .beerName("Galaxy Cat")
+                .beerStyle(BeerStyle.PALE_ALE)
+                .upc("12356")
+                .price(new BigDecimal("12.99"))
+                .quantityOnHand(122)
+                .createdDate(LocalDateTime.now())
+                .updatedDate(LocalDateTime.now())
+                .build();
+        beerDto = beerMapper.toModel(beerEntity);
+
+        customerEntity = CustomerEntity.builder()
+                .id(UUID.randomUUID())
+                .version(1)
+                .name("Customer 1")
+                .email("123@abc.com")
+                .createdDate(LocalDateTime.now())
+                .updatedDate(LocalDateTime.now())
+                .build();
+        customerDto = customerMapper.toModel(customerEntity);
+    }
+
+    @Benchmark
+    public BeerDto beerToModel() {
+        return beerMapper.toModel(beerEntity);
+    }
+
+    @Benchmark
+    public BeerEntity beerToEntity() {
+        return beerMapper.toEntity(beerDto);
+    }
+
+    @Benchmark
+    public BeerDto beerCopy() {
+        return beerMapper.copy(beerDto);
+    }
+
+    @Benchmark
+    public CustomerDto customerToModel() {
+        return customerMapper.toModel(customerEntity);
+    }
+
+    @Benchmark
+    public CustomerEntity customerToEntity() {
+        return customerMapper.toEntity(customerDto);
+    }
+}
@@ -0,0 +1,41 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.model.BeerCsv;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerCsvServiceBenchmark {
+
+    BeerCsvService beerCsvService = new BeerCsvServiceImpl();
+
+    // Read once, so that the benchmark measures parsing and binding rather than class path IO
+    String csv;
+
+    @Setup
+    public void setUp() throws IOException {
+        csv = new ClassPathResource("csvdata/beers.csv").getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<BeerCsv> convertCsv() {
+        return beerCsvService.convertCsv(new StringReader(csv));
+    }
+
+    @Benchmark
+    public void iterateCsv(Blackhole blackhole) {
+        beerCsvService.iterateCsv(new StringReader(csv), blackhole::consume).forEachRemaining(blackhole::consume);
+    }
+}
@@ -0,0 +1,33 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
+import dev.cadebe.spring6restmvc.mappers.BeerMapperImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerServiceJpaBenchmark {
+
+    // Only the request building is measured, so no repository or index is needed
+    BeerServiceJpa beerService = new BeerServiceJpa(new BeerServiceProperties(), null, new BeerMapperImpl(), null, null,
+            null, new SimpleMeterRegistry());
+
+    @Param({"1", "40"})
+    int pageNumber;
+
+    @Param({"25", "5000"})
+    int pageSize;
+
+    @Benchmark
+    public PageRequest buildPageRequest() {
+        return beerService.buildPageRequest(pageNumber, pageSize);
+    }
+}
@@ -0,0 +1,56 @@
+package db.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+@Slf4j
+public class V6_1__BackfillBinaryIds extends BaseJavaMigration {
+
+    static final int BATCH_SIZE = 1000;
+
+    // Rows written before V6 added its triggers, a shadow column still null marks a row not copied yet
+    static final Map<String, String> BACKFILLS = Map.of(
+            "beer", "set id_bin = uuid_to_bin(id) where id_bin is null",
+            "customer", "set id_bin = uuid_to_bin(id) where id_bin is null",
+            "category", "set id_bin = uuid_to_bin(id) where id_bin is null",
+            "beer_order", "set id_bin = uuid_to_bin(id), customer_id_bin = uuid_to_bin(customer_id), "
+                    + "beer_order_shipment_id_bin = uuid_to_bin(beer_order_shipment_id) where id_bin is null",
+            "beer_order_line", "set id_bin = uuid_to_bin(id), beer_id_bin = uuid_to_bin(beer_id), "
+                    + "beer_order_id_bin = uuid_to_bin(beer_order_id) where id_bin is null",
+            "beer_order_shipment", "set id_bin = uuid_to_bin(id), beer_order_id_bin = uuid_to_bin(beer_order_id) "
+                    + "where id_bin is null",
+            "beer_category", "set beer_id_bin = uuid_to_bin(beer_id), category_id_bin = uuid_to_bin(category_id) "
+                    + "where beer_id_bin is null");
+
+    // Each batch commits on its own so row locks are held for one batch only while the previous release keeps writing
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        val connection = context.getConnection();
+        connection.setAutoCommit(true);
+
+        for (val backfill : BACKFILLS.entrySet()) {
+            try (val statement = connection.createStatement()) {
+                val sql = "update " + backfill.getKey() + " " + backfill.getValue() + " limit " + BATCH_SIZE;
+                long rows = 0;
+                int updated;
+
+                do {
+                    updated = statement.executeUpdate(sql);
+                    rows += updated;
+                } while (updated > 0);
+
+                log.info("Backfilled binary ids of {} {} rows", rows, backfill.getKey());
+            }
+        }
+    }
+}
@@ -1,44 +1,80 @@
 package dev.cadebe.spring6restmvc.bootstrap;
 
+import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
 import dev.cadebe.spring6restmvc.data.BeerEntity;
 import dev.cadebe.spring6restmvc.data.CustomerEntity;
-import dev.cadebe.spring6restmvc.model.BeerCsv;
-import dev.cadebe.spring6restmvc.model.BeerStyle;
 import dev.cadebe.spring6restmvc.repositories.BeerRepository;
 import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
-import dev.cadebe.spring6restmvc.services.BeerCsvService;
+import dev.cadebe.spring6restmvc.services.BeerCsvImportService;
+import dev.cadebe.spring6restmvc.services.BeerNameIndex;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import lombok.val;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static dev.cadebe.spring6restmvc.model.BeerStyle.*;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class BootstrapData implements CommandLineRunner {
 
     private final BeerRepository beerRepository;
-    private final BeerCsvService beerCsvService;
+    private final BeerCsvImportService beerCsvImportService;
     private final CustomerRepository customerRepository;
+    private final BeerServiceProperties beerServiceProperties;
+    private final BeerNameIndex beerNameIndex;
+
+    // Completes with the seeding time once all data has been loaded, see BootstrapHealthIndicator
+    @Getter
+    private final CompletableFuture<Duration> seeded = new CompletableFuture<>();
 
-    @Transactional
     @Override
     public void run(String... args) {
-        loadBeerData();
-        loadCsvData();
-        loadCustomerData();
+        if (beerServiceProperties.getBootstrap().isAsync()) {
+            CompletableFuture.runAsync(this::seed, new SimpleAsyncTaskExecutor("bootstrap-"));
+        } else {
+            seed();
+        }
+    }
+
+    private void seed() {
+        val startTime = System.nanoTime();
+        try {
+            val beerCount = loadBeerData(beerRepository.count());
+            loadCsvData(beerCount);
+            loadCustomerData();
+
+            // The index is built when the application is ready, which may have been before seeding finished. The
+            // hand made beers are saved without change events, so rebuild it before reporting the data as loaded.
+            if (beerServiceProperties.getBootstrap().isAsync()) {
+                beerNameIndex.rebuild();
+            }
+        } catch (RuntimeException e) {
+            log.error("Bootstrap data could not be loaded", e);
+            seeded.completeExceptionally(e);
+            throw e;
+        }
+
+        val elapsed = Duration.ofNanos(System.nanoTime() - startTime);
+        log.info("Bootstrap data loaded in {} ms", elapsed.toMillis());
+        seeded.complete(elapsed);
     }
 
-    private void loadBeerData() {
-        if (beerRepository.count() == 0) {
+    private long loadBeerData(long beerCount) {
+        if (beerCount == 0) {
             val beer1 = BeerEntity.builder()
                     .beerName("Galaxy Cat")
                     .beerStyle(PALE_ALE)
@@ -64,52 +100,21 @@ public class BootstrapData implements CommandLineRunner {
                     .build();
 
             beerRepository.saveAll(List.of(beer1, beer2, beer3));
+            return 3;
         }
+        return beerCount;
     }
 
-    private void loadCsvData() {
-        if (beerRepository.count() < 10) {
-            try {
-                val classPathResource = new ClassPathResource("csvdata/beers.csv");
-                val inputStream = classPathResource.getInputStream();
-
-                var beerCsvList = beerCsvService.convertCsv(new InputStreamReader(inputStream));
-
-                val beers = beerCsvList.stream()
-                        .map(beerCsv -> BeerEntity.builder()
-                                .beerName(StringUtils.abbreviate(beerCsv.getBeer(), 50))
-                                .beerStyle(getBeerStyle(beerCsv))
-                                .upc(beerCsv.getRow())
-                                .price(BigDecimal.TEN)
-                                .quantityOnHand(beerCsv.getCountX())
-                                .build())
-                        .toList();
-
-                beerRepository.saveAll(beers);
-
-            } catch (Exception e) {
+    private void loadCsvData(long beerCount) {
+        if (beerCount < 10) {
+            try (val reader = new InputStreamReader(new ClassPathResource("csvdata/beers.csv").getInputStream(), StandardCharsets.UTF_8)) {
+                beerCsvImportService.importCsv(reader);
+            } catch (IOException e) {
                 throw new IllegalArgumentException("Csv file could not be found", e);
             }
         }
     }
 
-    private static BeerStyle getBeerStyle(BeerCsv beerCsv) {
-        return switch (beerCsv.getStyle()) {
-            case "American IPA", "American Double / Imperial IPA", "Belgian IPA" -> IPA;
-            case "Oatmeal Stout", "American Stout", "Milk / Sweet Stout", "Schwarzbier" -> STOUT;
-            case "American Porter", "Baltic Porter" -> PORTER;
-            case "Saison / Farmhouse Ale" -> SAISON;
-            case "Cider" -> CIDER;
-            case "Fruit / Vegetable Beer", "Berliner Weissbier", "Altbier", "Winter Warmer", "Hefeweizen", "Rauchbier" ->
-                    WHEAT;
-            case "German Pilsener", "Czech Pilsener" -> PILSNER;
-            case "American Pale Lager", "Vienna Lager", "Euro Pale Lager", "Munich Helles Lager", "Dortmunder / Export Lager", "American Adjunct Lager" ->
-                    LAGER;
-            case "Extra Special / Strong Bitter (ESB)" -> BITTER;
-            default -> ALE;
-        };
-    }
-
     private void loadCustomerData() {
         if (customerRepository.count() == 0) {
             val customer1 = CustomerEntity.builder()
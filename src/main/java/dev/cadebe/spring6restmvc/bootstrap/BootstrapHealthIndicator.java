@@ -0,0 +1,32 @@
+package dev.cadebe.spring6restmvc.bootstrap;
+
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class BootstrapHealthIndicator implements HealthIndicator {
+
+    public static final Status WARMING = new Status("WARMING", "Bootstrap data is still being loaded");
+
+    private final BootstrapData bootstrapData;
+
+    @Override
+    public Health health() {
+        val seeded = bootstrapData.getSeeded();
+
+        if (!seeded.isDone()) {
+            return Health.status(WARMING).build();
+        }
+        if (seeded.isCompletedExceptionally()) {
+            return Health.down(seeded.exceptionNow()).build();
+        }
+        return Health.up()
+                .withDetail("seedTimeMs", seeded.resultNow().toMillis())
+                .build();
+    }
+}
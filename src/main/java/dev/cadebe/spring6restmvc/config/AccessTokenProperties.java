@@ -0,0 +1,25 @@
+package dev.cadebe.spring6restmvc.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "security.access-token")
+@Getter
+@Setter
+public class AccessTokenProperties {
+
+    private Duration timeToLive = Duration.ofMinutes(15);
+
+    // Key id used to sign new tokens, defaults to the last configured key
+    private String signingKeyId;
+
+    // Base64 encoded HMAC secrets by key id. Every key verifies, so a key is rotated by adding its successor, signing
+    // with it and removing the old key once the last token it signed has expired. Without keys a random key is
+    // generated on startup, which only suits a single instance.
+    private Map<String, String> keys = new LinkedHashMap<>();
+}
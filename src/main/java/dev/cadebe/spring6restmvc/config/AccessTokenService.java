@@ -0,0 +1,162 @@
+package dev.cadebe.spring6restmvc.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.cadebe.spring6restmvc.model.AccessToken;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Issues and verifies short-lived tokens of the form keyId.claims.signature, where claims is base64url JSON and the
+// signature an HMAC-SHA256 over keyId.claims. Verification needs neither a user lookup nor password hashing.
+@Slf4j
+@Component
+public class AccessTokenService {
+
+    static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    static final String TOKEN_TYPE = "Bearer";
+
+    static final int MINIMUM_KEY_BYTES = 32;
+
+    record Claims(String sub, List<String> roles, long exp) {
+    }
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final Duration timeToLive;
+    private final Map<String, SecretKey> keys;
+    private final String signingKeyId;
+
+    @Autowired
+    public AccessTokenService(AccessTokenProperties properties, ObjectMapper objectMapper) {
+        this(properties, objectMapper, Clock.systemUTC());
+    }
+
+    AccessTokenService(AccessTokenProperties properties, ObjectMapper objectMapper, Clock clock) {
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.timeToLive = properties.getTimeToLive();
+        this.keys = new LinkedHashMap<>();
+
+        properties.getKeys().forEach((keyId, secret) -> {
+            if (keyId.contains(".")) {
+                throw new IllegalArgumentException("Access token key id must not contain '.': " + keyId);
+            }
+
+            val bytes = Base64.getDecoder().decode(secret);
+            if (bytes.length < MINIMUM_KEY_BYTES) {
+                throw new IllegalArgumentException("Access token key " + keyId + " must be at least "
+                        + MINIMUM_KEY_BYTES + " bytes");
+            }
+
+            keys.put(keyId, new SecretKeySpec(bytes, HMAC_ALGORITHM));
+        });
+
+        if (keys.isEmpty()) {
+            log.info("No access token keys configured, tokens are signed with a random key and only valid on this instance");
+            keys.put("generated", generateKey());
+        }
+
+        signingKeyId = properties.getSigningKeyId() != null ? properties.getSigningKeyId() : keys.keySet().stream()
+                .reduce((first, second) -> second)
+                .orElseThrow();
+
+        if (!keys.containsKey(signingKeyId)) {
+            throw new IllegalArgumentException("Access token signing key " + signingKeyId + " is not configured");
+        }
+    }
+
+    public AccessToken issue(Authentication authentication) {
+        val roles = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        val expiresAt = clock.instant().plus(timeToLive);
+
+        try {
+            val claims = ENCODER.encodeToString(objectMapper.writeValueAsBytes(
+                    new Claims(authentication.getName(), roles, expiresAt.getEpochSecond())));
+            val signed = signingKeyId + "." + claims;
+
+            return new AccessToken(signed + "." + ENCODER.encodeToString(sign(keys.get(signingKeyId), signed)),
+                    TOKEN_TYPE, timeToLive.toSeconds());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write access token claims", e);
+        }
+    }
+
+    public Optional<Authentication> verify(String token) {
+        val keyEnd = token.indexOf('.');
+        val claimsEnd = token.lastIndexOf('.');
+
+        if (keyEnd <= 0 || claimsEnd <= keyEnd) {
+            return Optional.empty();
+        }
+
+        val key = keys.get(token.substring(0, keyEnd));
+        if (key == null) {
+            return Optional.empty();
+        }
+
+        try {
+            val signed = token.substring(0, claimsEnd);
+            val signature = DECODER.decode(token.substring(claimsEnd + 1));
+
+            if (!MessageDigest.isEqual(sign(key, signed), signature)) {
+                return Optional.empty();
+            }
+
+            val claims = objectMapper.readValue(DECODER.decode(token.substring(keyEnd + 1, claimsEnd)), Claims.class);
+            if (clock.instant().getEpochSecond() >= claims.exp()) {
+                return Optional.empty();
+            }
+
+            return Optional.of(UsernamePasswordAuthenticationToken.authenticated(claims.sub(), null,
+                    claims.roles().stream().map(SimpleGrantedAuthority::new).toList()));
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] sign(SecretKey key, String signed) {
+        try {
+            val mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+
+            return mac.doFinal(signed.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC is not available", e);
+        }
+    }
+
+    private static SecretKey generateKey() {
+        try {
+            return KeyGenerator.getInstance(HMAC_ALGORITHM).generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC key generation is not available", e);
+        }
+    }
+}
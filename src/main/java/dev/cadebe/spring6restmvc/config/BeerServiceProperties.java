@@ -4,6 +4,8 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "beer.service")
 @Getter
 @Setter
@@ -12,4 +14,70 @@ public class BeerServiceProperties {
     private int defaultPageSize = 25;
 
     private int pageLimit = 1000;
+
+    private Cache cache = new Cache();
+
+    private Bulk bulk = new Bulk();
+
+    private CsvImport csvImport = new CsvImport();
+
+    private Bootstrap bootstrap = new Bootstrap();
+
+    private Changes changes = new Changes();
+
+    private NameIndex nameIndex = new NameIndex();
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        private long maximumSize = 1000;
+
+        private Duration timeToLive = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Bulk {
+
+        private int chunkSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class CsvImport {
+
+        private int chunkSize = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Bootstrap {
+
+        private boolean async = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Changes {
+
+        // Changes a subscriber may fall behind by before it is told to resync
+        private int subscriberBufferSize = 256;
+
+        // Recent changes kept for subscribers that reconnect with a Last-Event-ID
+        private int replaySize = 1000;
+
+        private int dispatchQueueSize = 10_000;
+
+        // Clients reconnect with their Last-Event-ID after the stream times out
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+
+    @Getter
+    @Setter
+    public static class NameIndex {
+
+        // How long a search may serve the last known entry of a beer changed without being read back
+        private Duration refreshInterval = Duration.ofSeconds(1);
+    }
 }
@@ -0,0 +1,167 @@
+package dev.cadebe.spring6restmvc.config;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+// Runs a callback once, just before the wrapped response can commit: before a write that fills its buffer or reaches
+// its content length, and before a flush, close, error or redirect. Characters from the writer count as three bytes,
+// the most a single char takes in UTF-8, so the callback runs early rather than late.
+class BeforeCommitResponseWrapper extends HttpServletResponseWrapper {
+
+    private final Runnable beforeCommit;
+    private boolean called;
+    private long written;
+    private long contentLength = -1;
+
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    BeforeCommitResponseWrapper(HttpServletResponse response, Runnable beforeCommit) {
+        super(response);
+        this.beforeCommit = beforeCommit;
+    }
+
+    void beforeCommit() {
+        if (!called) {
+            called = true;
+            beforeCommit.run();
+        }
+    }
+
+    private void beforeWriting(long bytes) {
+        written += bytes;
+
+        if (written >= getBufferSize() || (contentLength >= 0 && written >= contentLength)) {
+            beforeCommit();
+        }
+    }
+
+    @Override
+    public void setContentLength(int length) {
+        setContentLengthLong(length);
+    }
+
+    @Override
+    public void setContentLengthLong(long length) {
+        contentLength = length;
+        super.setContentLengthLong(length);
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        beforeCommit();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int status) throws IOException {
+        beforeCommit();
+        super.sendError(status);
+    }
+
+    @Override
+    public void sendError(int status, String message) throws IOException {
+        beforeCommit();
+        super.sendError(status, message);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        beforeCommit();
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new BeforeCommitOutputStream(super.getOutputStream());
+        }
+
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new BeforeCommitWriter(super.getWriter()));
+        }
+
+        return writer;
+    }
+
+    private class BeforeCommitOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        BeforeCommitOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            beforeWriting(1);
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            beforeWriting(length);
+            delegate.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            beforeCommit();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            beforeCommit();
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+
+    private class BeforeCommitWriter extends Writer {
+
+        private final PrintWriter delegate;
+
+        BeforeCommitWriter(PrintWriter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            beforeWriting(3L * length);
+            delegate.write(chars, offset, length);
+        }
+
+        @Override
+        public void flush() {
+            beforeCommit();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() {
+            beforeCommit();
+            delegate.close();
+        }
+    }
+}
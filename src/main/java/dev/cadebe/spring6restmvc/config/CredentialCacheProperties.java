@@ -0,0 +1,20 @@
+package dev.cadebe.spring6restmvc.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "security.credential-cache")
+@Getter
+@Setter
+public class CredentialCacheProperties {
+
+    private boolean enabled = true;
+
+    private long maximumSize = 10_000;
+
+    // Bounds how long a password keeps working on a node that missed a change, so keep it short
+    private Duration timeToLive = Duration.ofMinutes(5);
+}
@@ -0,0 +1,21 @@
+package dev.cadebe.spring6restmvc.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "database.admission")
+@Getter
+@Setter
+public class DatabaseAdmissionProperties {
+
+    private boolean enabled = true;
+
+    // Must stay below the connection pool size. Admitted work beyond the pool queues on it with Hikari's connection
+    // timeout instead of being shed, and the connections left over are the ones background work can always get.
+    private int maxConcurrent = 8;
+
+    private Duration timeout = Duration.ofSeconds(2);
+}
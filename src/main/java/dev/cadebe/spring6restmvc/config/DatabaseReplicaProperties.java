@@ -0,0 +1,25 @@
+package dev.cadebe.spring6restmvc.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "database.replica")
+@Getter
+@Setter
+public class DatabaseReplicaProperties {
+
+    // Query run against the replica that returns its lag in seconds; without one the replica is assumed to be current
+    private String lagQuery;
+
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+    private Duration defaultMaxLag = Duration.ofSeconds(1);
+
+    // Keyed by request mapping pattern, e.g. "[/api/v1/beers/{beerId}]": 0s to always read that endpoint from the primary
+    private Map<String, Duration> maxLag = new HashMap<>();
+}
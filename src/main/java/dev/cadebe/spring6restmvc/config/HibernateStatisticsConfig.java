@@ -0,0 +1,78 @@
+package dev.cadebe.spring6restmvc.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.val;
+import org.hibernate.SessionEventListener;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+
+// Feeds RequestStatistics from Hibernate: statements and second level cache access through a session event listener,
+// entity loads and collection fetches through event listeners appended after the default ones. RequestStatisticsFilter
+// scopes the counters to a request.
+@Configuration
+public class HibernateStatisticsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer requestStatisticsCustomizer() {
+        return properties -> {
+            properties.put("hibernate.session.events.auto", StatementListener.class.getName());
+            properties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(new LoadListenerIntegrator()));
+        };
+    }
+
+    // Registered here rather than as a component, so that web slice tests do not pick it up
+    @Bean
+    public FilterRegistrationBean<RequestStatisticsFilter> requestStatisticsFilter(RequestStatisticsProperties properties,
+                                                                                  MeterRegistry meterRegistry,
+                                                                                  ApplicationEventPublisher eventPublisher) {
+        val registration = new FilterRegistrationBean<>(new RequestStatisticsFilter(properties, meterRegistry, eventPublisher));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+
+        return registration;
+    }
+
+    public static class StatementListener implements SessionEventListener {
+
+        @Override
+        public void jdbcPrepareStatementStart() {
+            RequestStatistics.statementPrepared();
+        }
+
+        @Override
+        public void cacheGetEnd(boolean hit) {
+            RequestStatistics.cacheAccessed(hit);
+        }
+    }
+
+    static class LoadListenerIntegrator implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+            val registry = sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class);
+
+            registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> RequestStatistics.entityLoaded());
+            registry.appendListeners(EventType.INIT_COLLECTION,
+                    (InitializeCollectionEventListener) event -> RequestStatistics.collectionFetched());
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
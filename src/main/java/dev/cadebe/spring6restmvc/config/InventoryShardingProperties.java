@@ -0,0 +1,29 @@
+package dev.cadebe.spring6restmvc.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "inventory.sharding")
+@Getter
+@Setter
+public class InventoryShardingProperties {
+
+    // Turns automatic promotion and demotion on, beers that already have shards are allocated from them regardless
+    private boolean enabled = false;
+
+    private int shards = 8;
+
+    private Duration evaluationInterval = Duration.ofSeconds(10);
+
+    // Allocations per evaluation interval that found another allocation of the same beer still in its transaction
+    private long promoteAtContendedAllocations = 50;
+
+    // Allocations per evaluation interval below which a sharded beer goes back to its single row
+    private long demoteBelowAllocations = 5;
+
+    // Stock too thin to split would turn into false out of stock answers and collapses
+    private int minimumQuantityPerShard = 10;
+}
@@ -0,0 +1,39 @@
+package dev.cadebe.spring6restmvc.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "inventory.write-behind")
+@Getter
+@Setter
+public class InventoryWriteBehindProperties {
+
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    // Must be an absolute path on storage that outlives the process, unapplied adjustments are replayed from it
+    private Path journalDirectory;
+
+    // Must be unique per instance and stable across its restarts, it keys the checkpoint of applied journal
+    // generations. Defaults to one per host, set it explicitly where the host name changes on every restart.
+    private String journalName = defaultJournalName();
+
+    // Forces every adjustment to disk before it is acknowledged, concurrent adjustments share one force
+    private boolean syncWrites = true;
+
+    // How often deltas parked because the quantity on hand could not take them are applied again
+    private Duration replayInterval = Duration.ofMinutes(5);
+
+    static String defaultJournalName() {
+        try {
+            return "inventory-" + InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+}
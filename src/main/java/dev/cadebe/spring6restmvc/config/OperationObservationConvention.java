@@ -0,0 +1,29 @@
+package dev.cadebe.spring6restmvc.config;
+
+import dev.cadebe.spring6restmvc.services.FilterShape;
+import io.micrometer.common.KeyValues;
+import lombok.val;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Adds the handler method and the beer list filter shape to the http.server.requests timer
+@Component
+public class OperationObservationConvention extends DefaultServerRequestObservationConvention {
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        val request = context.getCarrier();
+        val handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        val operation = handler instanceof HandlerMethod handlerMethod
+                ? handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName()
+                : "none";
+        val filter = FilterShape.of(request.getParameter("beerName"), request.getParameter("beerStyle"));
+
+        return super.getLowCardinalityKeyValues(context)
+                .and("operation", operation)
+                .and("filter", filter.tagValue());
+    }
+}
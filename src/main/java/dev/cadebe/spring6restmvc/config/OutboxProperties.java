@@ -0,0 +1,45 @@
+package dev.cadebe.spring6restmvc.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "outbox")
+@Getter
+@Setter
+public class OutboxProperties {
+
+    private Relay relay = new Relay();
+
+    private Sink sink = Sink.MEMORY;
+
+    // Required by the file sink, as an absolute path that a log shipper reads and rotates
+    private Path file;
+
+    // Forces every relayed batch to disk before its rows are deleted from the outbox
+    private boolean syncWrites = true;
+
+    // Events kept by the in-memory sink, the oldest are dropped beyond this
+    private int memoryCapacity = 10_000;
+
+    public enum Sink {
+        FILE, MEMORY
+    }
+
+    @Getter
+    @Setter
+    public static class Relay {
+
+        private boolean enabled = true;
+
+        private Duration interval = Duration.ofMillis(500);
+
+        private int batchSize = 500;
+
+        // Bounds one run, so a large backlog cannot hold the scheduler thread indefinitely
+        private int maxBatchesPerRun = 20;
+    }
+}
@@ -0,0 +1,52 @@
+package dev.cadebe.spring6restmvc.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Sends read-only transactions to the replica while it is within the lag the current endpoint tolerates. Has to sit
+// behind a LazyConnectionDataSourceProxy, the read-only flag is only set after the transaction asked for a connection.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {PRIMARY, REPLICA}
+
+    private final DatabaseReplicaProperties replicaProperties;
+    private final ReplicaLagMonitor replicaLagMonitor;
+    private final Map<Target, Counter> routedCounters;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, DatabaseReplicaProperties replicaProperties,
+                                      ReplicaLagMonitor replicaLagMonitor, MeterRegistry meterRegistry) {
+        this.replicaProperties = replicaProperties;
+        this.replicaLagMonitor = replicaLagMonitor;
+        this.routedCounters = Map.of(
+                Target.PRIMARY, routedCounter(meterRegistry, "primary"),
+                Target.REPLICA, routedCounter(meterRegistry, "replica"));
+
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    private static Counter routedCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("database.routing.connections")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        var target = Target.PRIMARY;
+
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && replicaLagMonitor.isWithin(ReplicaLagTolerance.current(replicaProperties.getDefaultMaxLag()))) {
+            target = Target.REPLICA;
+        }
+
+        routedCounters.get(target).increment();
+        return target;
+    }
+}
@@ -0,0 +1,55 @@
+package dev.cadebe.spring6restmvc.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final DatabaseReplicaProperties replicaProperties;
+    private final JdbcTemplate replicaJdbcTemplate;
+
+    // Null while the lag is unknown, in which case all reads go to the primary
+    private volatile Duration lag;
+
+    public ReplicaLagMonitor(DatabaseReplicaProperties replicaProperties, DataSource replicaDataSource, MeterRegistry meterRegistry) {
+        this.replicaProperties = replicaProperties;
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+
+        Gauge.builder("database.replica.lag", this, monitor -> monitor.lag != null ? monitor.lag.toMillis() / 1000.0 : Double.NaN)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${database.replica.lag-check-interval:PT1S}")
+    public void refresh() {
+        if (replicaProperties.getLagQuery() == null) {
+            lag = Duration.ZERO;
+            return;
+        }
+
+        try {
+            val seconds = replicaJdbcTemplate.queryForObject(replicaProperties.getLagQuery(), Long.class);
+            lag = seconds != null ? Duration.ofSeconds(seconds) : null;
+        } catch (DataAccessException e) {
+            log.warn("Replica lag could not be determined", e);
+            lag = null;
+        }
+    }
+
+    public boolean isWithin(Duration maxLag) {
+        val currentLag = lag;
+
+        return currentLag != null && maxLag.isPositive() && currentLag.compareTo(maxLag) <= 0;
+    }
+}
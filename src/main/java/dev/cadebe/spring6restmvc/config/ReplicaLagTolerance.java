@@ -0,0 +1,55 @@
+package dev.cadebe.spring6restmvc.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Holds how stale replica reads may be for the endpoint the current thread is serving
+@RequiredArgsConstructor
+public class ReplicaLagTolerance implements HandlerInterceptor {
+
+    private static final ThreadLocal<Duration> CURRENT = new ThreadLocal<>();
+
+    private final DatabaseReplicaProperties replicaProperties;
+
+    public static Duration current(Duration defaultMaxLag) {
+        val maxLag = CURRENT.get();
+
+        return maxLag != null ? maxLag : defaultMaxLag;
+    }
+
+    // Runs reads that must see every committed write, e.g. to fill caches that are only invalidated by those writes,
+    // with no lag tolerated. Only covers transactions whose first statement is issued inside the reads.
+    public static <T> T onPrimary(Supplier<T> reads) {
+        val previous = CURRENT.get();
+        CURRENT.set(Duration.ZERO);
+        try {
+            return reads.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        val pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+        CURRENT.set(replicaProperties.getMaxLag().getOrDefault(pattern, replicaProperties.getDefaultMaxLag()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,65 @@
+package dev.cadebe.spring6restmvc.config;
+
+import lombok.Getter;
+import lombok.val;
+
+// Hibernate work done by the current request thread. Counting happens in Hibernate callbacks on the same thread, so
+// the counters need no synchronisation; work on other threads, such as streamed exports, is not attributed.
+@Getter
+public class RequestStatistics {
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long entityLoads;
+    private long collectionFetches;
+    private long cacheHits;
+    private long cacheMisses;
+
+    static RequestStatistics start() {
+        val statistics = new RequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static void statementPrepared() {
+        val statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+        }
+    }
+
+    static void entityLoaded() {
+        val statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.entityLoads++;
+        }
+    }
+
+    static void collectionFetched() {
+        val statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.collectionFetches++;
+        }
+    }
+
+    static void cacheAccessed(boolean hit) {
+        val statistics = CURRENT.get();
+        if (statistics != null) {
+            if (hit) {
+                statistics.cacheHits++;
+            } else {
+                statistics.cacheMisses++;
+            }
+        }
+    }
+
+    public String toHeaderValue() {
+        return "statements=" + statements + ", entity-loads=" + entityLoads + ", collection-fetches=" + collectionFetches
+                + ", cache-hits=" + cacheHits + ", cache-misses=" + cacheMisses;
+    }
+}
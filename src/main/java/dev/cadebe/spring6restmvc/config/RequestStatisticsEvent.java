@@ -0,0 +1,6 @@
+package dev.cadebe.spring6restmvc.config;
+
+// Published after every request with the Hibernate work it caused, endpoint being the method and the URI pattern.
+// Only while database.statistics.publish-events is set, which the tests do for their statement budgets.
+public record RequestStatisticsEvent(String endpoint, RequestStatistics statistics) {
+}
@@ -0,0 +1,85 @@
+package dev.cadebe.spring6restmvc.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Collects the Hibernate statements, entity loads, collection fetches and second level cache accesses of each request
+// and records them as distribution summaries per endpoint, so that N+1 query patterns show up as a high statement
+// count on a single endpoint
+@RequiredArgsConstructor
+public class RequestStatisticsFilter extends OncePerRequestFilter {
+
+    static final String HEADER_NAME = "X-Hibernate-Statistics";
+
+    private final RequestStatisticsProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        val statistics = RequestStatistics.start();
+
+        try {
+            if (properties.isResponseHeader()) {
+                // The header has to be added before the body commits the response
+                val headerResponse = new BeforeCommitResponseWrapper(response,
+                        () -> response.setHeader(HEADER_NAME, statistics.toHeaderValue()));
+
+                filterChain.doFilter(request, headerResponse);
+
+                // Still uncommitted unless the body filled the buffer, so the header covers the whole request
+                headerResponse.beforeCommit();
+            } else {
+                filterChain.doFilter(request, response);
+            }
+        } finally {
+            RequestStatistics.end();
+            record(request, statistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestStatistics statistics) {
+        val pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        val uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        summary("hibernate.request.statements", "JDBC statements prepared per request", request, uri)
+                .record(statistics.getStatements());
+        summary("hibernate.request.entity.loads", "Entities loaded per request", request, uri)
+                .record(statistics.getEntityLoads());
+        summary("hibernate.request.collection.fetches", "Collections fetched per request", request, uri)
+                .record(statistics.getCollectionFetches());
+        summary("hibernate.request.cache.hits", "Second level cache hits per request", request, uri)
+                .record(statistics.getCacheHits());
+        summary("hibernate.request.cache.misses", "Second level cache misses per request", request, uri)
+                .record(statistics.getCacheMisses());
+
+        if (properties.isPublishEvents()) {
+            eventPublisher.publishEvent(new RequestStatisticsEvent(request.getMethod() + " " + uri, statistics));
+        }
+    }
+
+    private DistributionSummary summary(String name, String description, HttpServletRequest request, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,19 @@
+package dev.cadebe.spring6restmvc.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "database.statistics")
+@Getter
+@Setter
+public class RequestStatisticsProperties {
+
+    private boolean enabled = true;
+
+    // Adds the per request Hibernate statistics as a response header, meant for debugging only
+    private boolean responseHeader = false;
+
+    // Publishes a RequestStatisticsEvent after every request, for tests that check statement budgets
+    private boolean publishEvents = false;
+}
@@ -1,5 +1,7 @@
 package dev.cadebe.spring6restmvc.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.val;
 import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.boot.actuate.info.InfoEndpoint;
@@ -18,9 +20,11 @@ import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 import static dev.cadebe.spring6restmvc.config.SecurityRoles.*;
 import static org.springframework.security.config.Customizer.withDefaults;
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
 @Configuration
 @EnableWebSecurity
@@ -28,7 +32,7 @@ import static org.springframework.security.config.Customizer.withDefaults;
 public class WebSecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, AccessTokenService accessTokenService) throws Exception {
 
         http
                 .authorizeHttpRequests(requests ->
@@ -36,6 +40,9 @@ public class WebSecurityConfig {
                                 .requestMatchers(HttpMethod.PUT, "/api/v?/customers/**").hasAnyRole(ADMIN)
                                 .requestMatchers("/api/v?/customers/**").hasAnyRole(ADMIN, USER)
                                 .requestMatchers("/api/v?/beers/**").permitAll()
+                                .requestMatchers("/api/v?/orders/**").hasAnyRole(ADMIN, USER)
+                                // Error dispatches, otherwise a 404 or 503 reaches the client as 401
+                                .requestMatchers("/error").permitAll()
                                 .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).hasAnyRole(ADMIN, ACTUATOR)
                                 .requestMatchers(EndpointRequest.to(MetricsEndpoint.class)).hasAnyRole(ADMIN, ACTUATOR)
                                 .requestMatchers(EndpointRequest.to(InfoEndpoint.class)).hasAnyRole(ADMIN, ACTUATOR)
@@ -44,6 +51,8 @@ public class WebSecurityConfig {
 
                 )
                 .httpBasic(withDefaults())
+                .addFilterBefore(new AccessTokenFilter(accessTokenService, antMatcher(HttpMethod.POST, "/api/v?/token")),
+                        BasicAuthenticationFilter.class)
                 .csrf(CsrfConfigurer::disable);
 
         return http.build();
@@ -70,7 +79,13 @@ public class WebSecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    public PasswordEncoder passwordEncoder(CredentialCacheProperties credentialCacheProperties, MeterRegistry meterRegistry) {
+        val passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+
+        if (!credentialCacheProperties.isEnabled()) {
+            return passwordEncoder;
+        }
+
+        return new CachingPasswordEncoder(passwordEncoder, credentialCacheProperties, meterRegistry);
     }
 }
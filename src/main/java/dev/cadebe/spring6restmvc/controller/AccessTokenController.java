@@ -0,0 +1,28 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import dev.cadebe.spring6restmvc.config.AccessTokenService;
+import dev.cadebe.spring6restmvc.model.AccessToken;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RequestMapping(AccessTokenController.BASE_URL)
+@RequiredArgsConstructor
+@RestController
+public class AccessTokenController {
+
+    public static final String BASE_URL = "/api/v1/token";
+
+    private final AccessTokenService accessTokenService;
+
+    @PostMapping
+    public ResponseEntity<AccessToken> issueToken(Authentication authentication) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(accessTokenService.issue(authentication));
+    }
+}
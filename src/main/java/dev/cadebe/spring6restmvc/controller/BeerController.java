@@ -1,17 +1,34 @@
 package dev.cadebe.spring6restmvc.controller;
 
+import dev.cadebe.spring6restmvc.model.BeerBulkResult;
+import dev.cadebe.spring6restmvc.model.BeerCsvImportResult;
 import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerExportFormat;
 import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.model.InventoryAdjustmentDto;
+import dev.cadebe.spring6restmvc.services.BeerBulkService;
+import dev.cadebe.spring6restmvc.services.BeerChangeFeed;
+import dev.cadebe.spring6restmvc.services.BeerCsvImportService;
+import dev.cadebe.spring6restmvc.services.BeerExportService;
 import dev.cadebe.spring6restmvc.services.BeerService;
+import dev.cadebe.spring6restmvc.services.InventoryAdjustmentService;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
 import org.springframework.core.convert.ConversionFailedException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.util.List;
 import java.util.UUID;
 
@@ -21,25 +38,97 @@ import java.util.UUID;
 public class BeerController {
 
     public static final String BASE_URL = "/api/v1/beers";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private final BeerService beerService;
+    private final BeerExportService beerExportService;
+    private final BeerBulkService beerBulkService;
+    private final BeerCsvImportService beerCsvImportService;
+    private final InventoryAdjustmentService inventoryAdjustmentService;
+    private final BeerChangeFeed beerChangeFeed;
 
     @GetMapping
     public ResponseEntity<List<BeerDto>> getBeers(@RequestParam(required = false) String beerName,
                                                   @RequestParam(required = false) BeerStyle beerStyle,
                                                   @RequestParam(required = false) Boolean showInventory,
                                                   @RequestParam(required = false) Integer pageNumber,
-                                                  @RequestParam(required = false) Integer pageSize) {
+                                                  @RequestParam(required = false) Integer pageSize,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        val eTag = EntityTags.weak(beerService.getBeerListVersion(beerName, beerStyle));
+
+        if (EntityTags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
         val page = beerService.listBeers(beerName, beerStyle, showInventory, pageNumber, pageSize);
 
+        return ResponseEntity.ok().eTag(eTag).body(page.getContent());
+    }
+
+    @GetMapping(params = "cursor")
+    public ResponseEntity<List<BeerDto>> getBeersByCursor(@RequestParam(required = false) String beerName,
+                                                          @RequestParam(required = false) BeerStyle beerStyle,
+                                                          @RequestParam(required = false) Boolean showInventory,
+                                                          @RequestParam String cursor,
+                                                          @RequestParam(required = false) Integer pageSize) {
+        val window = beerService.listBeersByCursor(beerName, beerStyle, showInventory, BeerCursorCodec.decode(cursor), pageSize);
+        val response = ResponseEntity.ok();
+
+        if (window.hasNext() && !window.isEmpty()) {
+            response.header(NEXT_CURSOR_HEADER, BeerCursorCodec.encode(window.positionAt(window.size() - 1)));
+        }
+
+        return response.body(window.getContent());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<BeerDto>> searchBeers(@RequestParam String beerName,
+                                                     @RequestParam(required = false) BeerStyle beerStyle,
+                                                     @RequestParam(required = false) Boolean showInventory,
+                                                     @RequestParam(required = false) Integer pageNumber,
+                                                     @RequestParam(required = false) Integer pageSize) {
+        val page = beerService.searchBeers(beerName, beerStyle, showInventory, pageNumber, pageSize);
+
         return ResponseEntity.ok().body(page.getContent());
     }
 
+    // A resync event tells the client to reload the beer list, after which the stream carries on
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBeerChanges(@RequestParam(required = false) BeerStyle beerStyle,
+                                        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return beerChangeFeed.subscribe(beerStyle, lastEventId);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBeers(@RequestParam(required = false) String beerName,
+                                                             @RequestParam(required = false) BeerStyle beerStyle,
+                                                             @RequestParam(defaultValue = "NDJSON") BeerExportFormat format) {
+        StreamingResponseBody body = outputStream -> beerExportService.exportBeers(beerName, beerStyle, format, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(format.getFileName())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     @GetMapping("/{beerId}")
-    public ResponseEntity<BeerDto> getBeerById(@PathVariable("beerId") UUID beerId) {
+    public ResponseEntity<BeerDto> getBeerById(@PathVariable("beerId") UUID beerId,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            val version = beerService.getBeerVersion(beerId).orElseThrow(NotFoundException::new);
+            val eTag = EntityTags.strong(beerId, version);
+
+            if (EntityTags.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+
         val found = beerService.getBeerbyId(beerId).orElseThrow(NotFoundException::new);
 
-        return ResponseEntity.ok().body(found);
+        return ResponseEntity.ok().eTag(EntityTags.strong(found.getId(), found.getVersion())).body(found);
     }
 
     @PostMapping
@@ -55,8 +144,27 @@ public class BeerController {
         return ResponseEntity.created(location).build();
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<List<BeerBulkResult>> saveNewBeers(InputStream body) throws IOException {
+        return ResponseEntity.ok().body(beerBulkService.createBeers(body));
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<BeerCsvImportResult> importBeers(Reader body) {
+        return ResponseEntity.ok().body(beerCsvImportService.importCsv(body));
+    }
+
     @PutMapping("/{beerId}")
-    public ResponseEntity<String> updateById(@PathVariable UUID beerId, @RequestBody BeerDto beer) {
+    public ResponseEntity<String> updateById(@PathVariable UUID beerId, @RequestBody BeerDto beer,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        val version = ifMatch == null ? null : EntityTags.ifMatchVersion(ifMatch, beerId);
+
+        if (version != null) {
+            val result = beerService.updateBeerByIdIfMatch(beerId, version, beer);
+
+            return EntityTags.conditionalWriteResponse(result, EntityTags.strong(beerId, version + 1));
+        }
+
         val updated = beerService.updateBeerById(beerId, beer);
 
         if (updated.isEmpty()) {
@@ -67,7 +175,16 @@ public class BeerController {
     }
 
     @PatchMapping("/{beerId}")
-    public ResponseEntity<String> patchBeerById(@PathVariable("beerId") UUID beerId, @RequestBody BeerDto beer) {
+    public ResponseEntity<String> patchBeerById(@PathVariable("beerId") UUID beerId, @RequestBody BeerDto beer,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        val version = ifMatch == null ? null : EntityTags.ifMatchVersion(ifMatch, beerId);
+
+        if (version != null) {
+            val result = beerService.patchBeerByIdIfMatch(beerId, version, beer);
+
+            return EntityTags.conditionalWriteResponse(result, EntityTags.strong(beerId, version + 1));
+        }
+
         val patched = beerService.patchBeerById(beerId, beer);
 
         if (patched.isEmpty()) {
@@ -77,8 +194,26 @@ public class BeerController {
         return ResponseEntity.noContent().build();
     }
 
+    // Accepted once journaled, quantity on hand reflects the delta after the next write-behind flush
+    @PostMapping("/{beerId}/inventory-adjustments")
+    public ResponseEntity<String> adjustInventory(@PathVariable UUID beerId,
+                                                  @Validated @RequestBody InventoryAdjustmentDto adjustment) {
+        beerService.getBeerVersion(beerId).orElseThrow(NotFoundException::new);
+
+        inventoryAdjustmentService.adjustQuantityOnHand(beerId, adjustment.getDelta());
+
+        return ResponseEntity.accepted().build();
+    }
+
     @DeleteMapping("/{beerId}")
-    public ResponseEntity<String> deleteBeerById(@PathVariable UUID beerId) {
+    public ResponseEntity<String> deleteBeerById(@PathVariable UUID beerId,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        val version = ifMatch == null ? null : EntityTags.ifMatchVersion(ifMatch, beerId);
+
+        if (version != null) {
+            return EntityTags.conditionalWriteResponse(beerService.deleteBeerByIdIfMatch(beerId, version), null);
+        }
+
         if (!beerService.deleteBeerById(beerId)) {
             throw new NotFoundException();
         }
@@ -0,0 +1,50 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.val;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class BeerCursorCodec {
+
+    private static final String BEER_NAME_KEY = "beerName";
+    private static final String ID_KEY = "id";
+    private static final char SEPARATOR = ':';
+
+    public static String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keysetPosition) || keysetPosition.isInitial()) {
+            throw new IllegalArgumentException("Only non-initial keyset positions can be encoded");
+        }
+
+        val keys = keysetPosition.getKeys();
+        val raw = keys.get(ID_KEY).toString() + SEPARATOR + keys.get(BEER_NAME_KEY);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetScrollPosition decode(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return ScrollPosition.keyset();
+        }
+
+        try {
+            val raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            val separatorIndex = raw.indexOf(SEPARATOR);
+
+            val id = UUID.fromString(raw.substring(0, separatorIndex));
+            val beerName = raw.substring(separatorIndex + 1);
+
+            return ScrollPosition.forward(Map.of(BEER_NAME_KEY, beerName, ID_KEY, id));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException();
+        }
+    }
+}
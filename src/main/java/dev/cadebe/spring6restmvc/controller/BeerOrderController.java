@@ -0,0 +1,40 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import dev.cadebe.spring6restmvc.model.BeerOrderDto;
+import dev.cadebe.spring6restmvc.services.BeerOrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.UUID;
+
+@RequestMapping(BeerOrderController.BASE_URL)
+@RequiredArgsConstructor
+@RestController
+public class BeerOrderController {
+
+    public static final String BASE_URL = "/api/v1/orders";
+
+    private final BeerOrderService beerOrderService;
+
+    @PostMapping
+    public ResponseEntity<BeerOrderDto> placeOrder(@Validated @RequestBody BeerOrderDto beerOrder) {
+        val placedOrder = beerOrderService.placeOrder(beerOrder);
+
+        val location = ServletUriComponentsBuilder
+                .fromCurrentRequestUri()
+                .path("/{beerOrderId}")
+                .buildAndExpand(placedOrder.getId())
+                .toUri();
+
+        return ResponseEntity.created(location).body(placedOrder);
+    }
+
+    @GetMapping("/{beerOrderId}")
+    public ResponseEntity<BeerOrderDto> getBeerOrderById(@PathVariable UUID beerOrderId) {
+        return ResponseEntity.ok(beerOrderService.getBeerOrderById(beerOrderId).orElseThrow(NotFoundException::new));
+    }
+}
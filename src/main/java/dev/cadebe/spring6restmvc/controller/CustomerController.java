@@ -4,6 +4,8 @@ import dev.cadebe.spring6restmvc.model.CustomerDto;
 import dev.cadebe.spring6restmvc.services.CustomerService;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -22,15 +24,31 @@ public class CustomerController {
     private final CustomerService customerService;
 
     @GetMapping
-    public List<CustomerDto> listAllCustomers() {
-        return customerService.getAllCustomers();
+    public ResponseEntity<List<CustomerDto>> listAllCustomers(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        val eTag = EntityTags.weak(customerService.getCustomerListVersion());
+
+        if (EntityTags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        return ResponseEntity.ok().eTag(eTag).body(customerService.getAllCustomers());
     }
 
     @GetMapping("/{customerId}")
-    public ResponseEntity<CustomerDto> getCustomerById(@PathVariable UUID customerId) {
+    public ResponseEntity<CustomerDto> getCustomerById(@PathVariable UUID customerId,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            val version = customerService.getCustomerVersion(customerId).orElseThrow(NotFoundException::new);
+            val eTag = EntityTags.strong(customerId, version);
+
+            if (EntityTags.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+
         val found = customerService.getCustomerById(customerId).orElseThrow(NotFoundException::new);
 
-        return ResponseEntity.ok().body(found);
+        return ResponseEntity.ok().eTag(EntityTags.strong(found.getId(), found.getVersion())).body(found);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -48,7 +66,16 @@ public class CustomerController {
     }
 
     @PutMapping("/{customerId}")
-    public ResponseEntity<String> updateCustomerById(@PathVariable("customerId") UUID customerId, @RequestBody CustomerDto customer) {
+    public ResponseEntity<String> updateCustomerById(@PathVariable("customerId") UUID customerId, @RequestBody CustomerDto customer,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        val version = ifMatch == null ? null : EntityTags.ifMatchVersion(ifMatch, customerId);
+
+        if (version != null) {
+            val result = customerService.updateCustomerByIdIfMatch(customerId, version, customer);
+
+            return EntityTags.conditionalWriteResponse(result, EntityTags.strong(customerId, version + 1));
+        }
+
         val updatedCustomer = customerService.updateCustomerById(customerId, customer);
 
         if (updatedCustomer.isEmpty()) {
@@ -59,7 +86,16 @@ public class CustomerController {
     }
 
     @PatchMapping("/{customerId}")
-    public ResponseEntity<String> patchCustomerById(@PathVariable("customerId") UUID customerId, @RequestBody CustomerDto customer) {
+    public ResponseEntity<String> patchCustomerById(@PathVariable("customerId") UUID customerId, @RequestBody CustomerDto customer,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        val version = ifMatch == null ? null : EntityTags.ifMatchVersion(ifMatch, customerId);
+
+        if (version != null) {
+            val result = customerService.patchCustomerByIdIfMatch(customerId, version, customer);
+
+            return EntityTags.conditionalWriteResponse(result, EntityTags.strong(customerId, version + 1));
+        }
+
         val patchedCustomer = customerService.patchCustomerById(customerId, customer);
 
         if (patchedCustomer.isEmpty()) {
@@ -70,7 +106,14 @@ public class CustomerController {
     }
 
     @DeleteMapping("/{customerId}")
-    public ResponseEntity<String> deleteCustomerById(@PathVariable("customerId") UUID customerId) {
+    public ResponseEntity<String> deleteCustomerById(@PathVariable("customerId") UUID customerId,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        val version = ifMatch == null ? null : EntityTags.ifMatchVersion(ifMatch, customerId);
+
+        if (version != null) {
+            return EntityTags.conditionalWriteResponse(customerService.deleteCustomerByIdIfMatch(customerId, version), null);
+        }
+
         if (!customerService.deleteCustomerById(customerId)) {
             throw new NotFoundException();
         }
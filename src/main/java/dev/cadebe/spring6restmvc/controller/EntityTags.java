@@ -0,0 +1,68 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import dev.cadebe.spring6restmvc.model.ListVersion;
+import dev.cadebe.spring6restmvc.services.ConditionalWriteResult;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.val;
+import org.springframework.http.ETag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class EntityTags {
+
+    public static String strong(UUID id, Integer version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    public static String weak(ListVersion listVersion) {
+        val lastUpdated = listVersion.lastUpdated();
+        val stamp = lastUpdated == null ? "0" : Long.toHexString(lastUpdated.toEpochSecond(ZoneOffset.UTC))
+                + "." + Integer.toHexString(lastUpdated.getNano());
+
+        return "W/\"" + Long.toHexString(listVersion.count()) + "-" + stamp + "\"";
+    }
+
+    // If-Match uses the strong comparison function, so only a strong tag for this very id can carry a version;
+    // null means the wildcard was sent and the write is unconditional
+    public static Integer ifMatchVersion(String ifMatch, UUID id) {
+        val prefix = id + "-";
+        val eTags = ETag.parse(ifMatch);
+
+        if (eTags.stream().anyMatch(ETag::isWildcard)) {
+            return null;
+        }
+
+        return eTags.stream()
+                .filter(eTag -> !eTag.weak() && eTag.tag().startsWith(prefix))
+                .map(eTag -> eTag.tag().substring(prefix.length()))
+                .filter(version -> !version.isEmpty() && version.chars().allMatch(Character::isDigit) && version.length() < 10)
+                .map(Integer::valueOf)
+                .findFirst()
+                .orElseThrow(PreconditionFailedException::new);
+    }
+
+    public static ResponseEntity<String> conditionalWriteResponse(ConditionalWriteResult result, String eTag) {
+        return switch (result) {
+            case APPLIED -> eTag == null ? ResponseEntity.noContent().build() : ResponseEntity.noContent().eTag(eTag).build();
+            case VERSION_MISMATCH -> throw new PreconditionFailedException();
+            case NOT_FOUND -> throw new NotFoundException();
+        };
+    }
+
+    // If-None-Match uses the weak comparison function (RFC 9110, section 13.1.2)
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (!StringUtils.hasText(ifNoneMatch)) {
+            return false;
+        }
+
+        val tag = ETag.parse(eTag).get(0).tag();
+
+        return ETag.parse(ifNoneMatch).stream()
+                .anyMatch(candidate -> candidate.isWildcard() || candidate.tag().equals(tag));
+    }
+}
@@ -0,0 +1,10 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.PRECONDITION_FAILED, reason = "Precondition failed")
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException() {
+    }
+}
@@ -7,7 +7,6 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.type.SqlTypes;
@@ -24,14 +23,16 @@ import java.util.UUID;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "beer")
+@Table(name = "beer", indexes = {
+        @Index(name = "beer_style_beer_name_idx", columnList = "beerStyle, beerName"),
+        @Index(name = "beer_name_idx", columnList = "beerName")
+})
 public class BeerEntity {
 
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
-    @JdbcTypeCode(SqlTypes.CHAR)
-    @Column(length = 36, columnDefinition = "varchar(36)", updatable = false, nullable = false)
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16, columnDefinition = "binary(16)", updatable = false, nullable = false)
     private UUID id;
 
     @Version
@@ -54,8 +55,21 @@ public class BeerEntity {
     @NotNull
     private BigDecimal price;
 
+    // Only the part not spread over inventory shards while the beer is sharded, see getTotalQuantityOnHand()
     private Integer quantityOnHand;
 
+    // Set while part of the stock is spread over inventory shards, see ShardedInventory
+    @Column(nullable = false)
+    private boolean sharded;
+
+    // Loaded by ShardedInventory.loadShardTotals() for sharded beers only, null otherwise
+    @Transient
+    private Integer shardedQuantityOnHand;
+
+    // Loaded together with shardedQuantityOnHand, see getTotalVersion()
+    @Transient
+    private Integer shardGeneration;
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdDate;
@@ -70,8 +84,9 @@ public class BeerEntity {
     @Builder.Default
     @ManyToMany
     @JoinTable(name = "beer_category",
-            joinColumns = @JoinColumn(name = "category_id"),
-            inverseJoinColumns = @JoinColumn(name = "beer_id")
+            joinColumns = @JoinColumn(name = "beer_id"),
+            inverseJoinColumns = @JoinColumn(name = "category_id"),
+            indexes = @Index(name = "beer_category_category_id_idx", columnList = "category_id, beer_id")
     )
     private Set<CategoryEntity> categories = new HashSet<>();
 
@@ -79,4 +94,21 @@ public class BeerEntity {
         this.categories.add(category);
         category.getBeers().add(this);
     }
+
+    public Integer getTotalQuantityOnHand() {
+        if (shardedQuantityOnHand == null) {
+            return quantityOnHand;
+        }
+
+        return (quantityOnHand != null ? quantityOnHand : 0) + shardedQuantityOnHand;
+    }
+
+    // The version clients see in ETags: the row's version plus the allocations taken from its inventory shards
+    public Integer getTotalVersion() {
+        if (shardGeneration == null || version == null) {
+            return version;
+        }
+
+        return version + shardGeneration;
+    }
 }
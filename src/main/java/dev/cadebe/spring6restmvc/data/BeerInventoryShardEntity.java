@@ -0,0 +1,37 @@
+package dev.cadebe.spring6restmvc.data;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+// One slice of a hot beer's stock. Allocations spread over the shards, so they don't all queue on the beer row's lock.
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+// Hibernate orders the primary key columns (shard, beer_id), so lookups by beer need their own index
+@Table(name = "beer_inventory_shard", indexes = @Index(name = "beer_inventory_shard_beer_id_idx", columnList = "beer_id"))
+public class BeerInventoryShardEntity {
+
+    @EmbeddedId
+    private BeerInventoryShardId id;
+
+    private Integer quantity;
+
+    // Allocations taken from this shard. They change the beer's stock without touching its row, so they count
+    // towards its version, see BeerEntity.getTotalVersion().
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer generation = 0;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedDate;
+}
@@ -0,0 +1,18 @@
+package dev.cadebe.spring6restmvc.data;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.UUID;
+
+@Embeddable
+public record BeerInventoryShardId(
+        @JdbcTypeCode(SqlTypes.BINARY)
+        @Column(name = "beer_id", length = 16, columnDefinition = "binary(16)", updatable = false, nullable = false)
+        UUID beerId,
+
+        @Column(updatable = false, nullable = false)
+        Integer shard) {
+}
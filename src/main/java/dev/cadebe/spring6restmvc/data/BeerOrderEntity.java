@@ -3,8 +3,8 @@ package dev.cadebe.spring6restmvc.data;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.Hibernate;
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.type.SqlTypes;
@@ -35,10 +35,9 @@ public class BeerOrderEntity {
     }
 
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
-    @JdbcTypeCode(SqlTypes.CHAR)
-    @Column(length = 36, columnDefinition = "varchar(36)", updatable = false, nullable = false)
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16, columnDefinition = "binary(16)", updatable = false, nullable = false)
     private UUID id;
 
     @Version
@@ -58,7 +57,7 @@ public class BeerOrderEntity {
     private CustomerEntity customer;
 
     @Builder.Default
-    @OneToMany(mappedBy = "beerOrder")
+    @OneToMany(mappedBy = "beerOrder", cascade = CascadeType.PERSIST)
     private Set<BeerOrderLineEntity> beerOrderLines = new HashSet<>();
 
     @OneToOne(cascade = CascadeType.PERSIST)
@@ -66,11 +65,21 @@ public class BeerOrderEntity {
 
     public void setCustomer(CustomerEntity customer) {
         this.customer = customer;
-        customer.getBeerOrders().add(this);
+        // An uninitialized reference is left alone, adding to its orders would load every order of the customer
+        if (customer != null && Hibernate.isInitialized(customer)) {
+            customer.getBeerOrders().add(this);
+        }
     }
 
     private void setBeerOrderShipment(BeerOrderShipmentEntity beerOrderShipment) {
         this.beerOrderShipment = beerOrderShipment;
-        beerOrderShipment.setBeerOrder(this);
+        if (beerOrderShipment != null) {
+            beerOrderShipment.setBeerOrder(this);
+        }
+    }
+
+    public void addBeerOrderLine(BeerOrderLineEntity beerOrderLine) {
+        beerOrderLine.setBeerOrder(this);
+        beerOrderLines.add(beerOrderLine);
     }
 }
@@ -0,0 +1,30 @@
+package dev.cadebe.spring6restmvc.data;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "inventory_journal_checkpoint")
+public class InventoryJournalCheckpointEntity {
+
+    @Id
+    @Column(length = 100, updatable = false, nullable = false)
+    private String journalName;
+
+    // Every journal generation up to and including this one has been applied to quantity_on_hand
+    private Long generation;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedDate;
+}
@@ -0,0 +1,50 @@
+package dev.cadebe.spring6restmvc.data;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// A change waiting to be relayed to downstream systems. Written in the transaction of the change itself and deleted
+// once a sink has accepted it, so the table only holds the backlog.
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "outbox_event")
+public class OutboxEventEntity {
+
+    // Time ordered, so the relay drains the outbox in the order the changes were made
+    @Id
+    @TimeOrderedUuid
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16, columnDefinition = "binary(16)", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(length = 20, updatable = false, nullable = false)
+    private String aggregateType;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16, columnDefinition = "binary(16)", updatable = false, nullable = false)
+    private UUID aggregateId;
+
+    @Column(length = 20, updatable = false, nullable = false)
+    private String eventType;
+
+    // JSON of the changed aggregate, null when the writer only knew its id
+    @Column(columnDefinition = "text", updatable = false)
+    private String payload;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdDate;
+}
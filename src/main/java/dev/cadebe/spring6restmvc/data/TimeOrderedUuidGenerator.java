@@ -0,0 +1,55 @@
+package dev.cadebe.spring6restmvc.data;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hibernate.generator.EventTypeSets.INSERT_ONLY;
+
+// Version 7 UUIDs: a 48 bit millisecond timestamp followed by a 12 bit counter and 62 random bits, so that
+// consecutive keys sort (and therefore land in the index) next to each other
+public class TimeOrderedUuidGenerator implements BeforeExecutionGenerator {
+
+    private static final int MAX_COUNTER = 0xFFF;
+
+    private static long lastTimestamp;
+
+    private static int counter;
+
+    public static UUID next() {
+        long timestampAndCounter = nextTimestampAndCounter();
+        long mostSigBits = (timestampAndCounter & 0xFFFF_FFFF_FFFF_0FFFL) | 0x7000L;
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    private static synchronized long nextTimestampAndCounter() {
+        long now = System.currentTimeMillis();
+
+        if (now > lastTimestamp) {
+            lastTimestamp = now;
+            counter = 0;
+        } else if (++counter > MAX_COUNTER) {
+            // Borrow the next millisecond rather than go back in order
+            lastTimestamp++;
+            counter = 0;
+        }
+
+        return (lastTimestamp << 16) | counter;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return INSERT_ONLY;
+    }
+}
@@ -10,7 +10,14 @@ public interface BeerMapper {
 
     @Mapping(target = "beerOrderLines", ignore = true)
     @Mapping(target = "categories", ignore = true)
+    @Mapping(target = "sharded", ignore = true)
+    @Mapping(target = "shardedQuantityOnHand", ignore = true)
+    @Mapping(target = "shardGeneration", ignore = true)
     BeerEntity toEntity(BeerDto beerDto);
 
+    @Mapping(target = "version", source = "totalVersion")
+    @Mapping(target = "quantityOnHand", source = "totalQuantityOnHand")
     BeerDto toModel(BeerEntity beerEntity);
+
+    BeerDto copy(BeerDto beerDto);
 }
@@ -0,0 +1,18 @@
+package dev.cadebe.spring6restmvc.mappers;
+
+import dev.cadebe.spring6restmvc.data.BeerOrderEntity;
+import dev.cadebe.spring6restmvc.data.BeerOrderLineEntity;
+import dev.cadebe.spring6restmvc.model.BeerOrderDto;
+import dev.cadebe.spring6restmvc.model.BeerOrderLineDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper
+public interface BeerOrderMapper {
+
+    @Mapping(target = "customerId", source = "customer.id")
+    BeerOrderDto toModel(BeerOrderEntity beerOrderEntity);
+
+    @Mapping(target = "beerId", source = "beer.id")
+    BeerOrderLineDto toModel(BeerOrderLineEntity beerOrderLineEntity);
+}
@@ -0,0 +1,8 @@
+package dev.cadebe.spring6restmvc.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record AccessToken(@JsonProperty("access_token") String accessToken,
+                          @JsonProperty("token_type") String tokenType,
+                          @JsonProperty("expires_in") long expiresIn) {
+}
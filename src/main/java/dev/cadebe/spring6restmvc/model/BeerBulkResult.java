@@ -0,0 +1,26 @@
+package dev.cadebe.spring6restmvc.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record BeerBulkResult(int index, Status status, UUID id, List<String> errors) {
+
+    public enum Status {
+        CREATED, INVALID, FAILED
+    }
+
+    public static BeerBulkResult created(int index, UUID id) {
+        return new BeerBulkResult(index, Status.CREATED, id, List.of());
+    }
+
+    public static BeerBulkResult invalid(int index, List<String> errors) {
+        return new BeerBulkResult(index, Status.INVALID, null, errors);
+    }
+
+    public static BeerBulkResult failed(int index, String error) {
+        return new BeerBulkResult(index, Status.FAILED, null, List.of(error));
+    }
+}
@@ -0,0 +1,14 @@
+package dev.cadebe.spring6restmvc.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Duration;
+
+public record BeerCsvImportResult(long rowsRead, long rowsImported, long rowsSkipped, long rowsFailed, int chunks,
+                                  Duration elapsed) {
+
+    @JsonProperty
+    public double rowsPerSecond() {
+        return elapsed.isZero() ? rowsImported : rowsImported * 1_000_000_000d / elapsed.toNanos();
+    }
+}
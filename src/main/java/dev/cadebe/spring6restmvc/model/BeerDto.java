@@ -42,6 +42,11 @@ public class BeerDto {
 
     private LocalDateTime updatedDate;
 
+    public BeerDto(UUID id, Integer version, String beerName, BeerStyle beerStyle, String upc, BigDecimal price,
+                   LocalDateTime createdDate, LocalDateTime updatedDate) {
+        this(id, version, beerName, beerStyle, upc, price, null, createdDate, updatedDate);
+    }
+
     public BeerDto() {
         id = UUID.randomUUID();
         version = 0;
@@ -0,0 +1,14 @@
+package dev.cadebe.spring6restmvc.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum BeerExportFormat {
+    NDJSON("application/x-ndjson", "beers.ndjson"),
+    CSV("text/csv", "beers.csv");
+
+    private final String mediaType;
+    private final String fileName;
+}
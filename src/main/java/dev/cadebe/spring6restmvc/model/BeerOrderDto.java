@@ -0,0 +1,37 @@
+package dev.cadebe.spring6restmvc.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerOrderDto {
+
+    private UUID id;
+
+    private Long version;
+
+    @NotNull
+    private UUID customerId;
+
+    @Size(max = 255)
+    private String customerRef;
+
+    @Valid
+    @NotEmpty
+    private List<BeerOrderLineDto> beerOrderLines;
+
+    private LocalDateTime createdDate;
+}
@@ -0,0 +1,28 @@
+package dev.cadebe.spring6restmvc.model;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerOrderLineDto {
+
+    private UUID id;
+
+    @NotNull
+    private UUID beerId;
+
+    @NotNull
+    @Positive
+    private Integer orderQuantity;
+
+    private Integer quantityAllocated;
+}
@@ -0,0 +1,21 @@
+package dev.cadebe.spring6restmvc.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryAdjustmentDto {
+
+    @NotNull
+    @Min(-100_000)
+    @Max(100_000)
+    private Integer delta;
+}
@@ -0,0 +1,11 @@
+package dev.cadebe.spring6restmvc.model;
+
+import java.time.LocalDateTime;
+
+public record ListVersion(long count, LocalDateTime lastUpdated) {
+
+    public ListVersion(long count, LocalDateTime lastUpdated, LocalDateTime lastShardUpdated) {
+        this(count, lastShardUpdated != null && (lastUpdated == null || lastShardUpdated.isAfter(lastUpdated))
+                ? lastShardUpdated : lastUpdated);
+    }
+}
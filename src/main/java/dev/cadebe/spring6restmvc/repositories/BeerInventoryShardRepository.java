@@ -0,0 +1,58 @@
+package dev.cadebe.spring6restmvc.repositories;
+
+import dev.cadebe.spring6restmvc.data.BeerInventoryShardEntity;
+import dev.cadebe.spring6restmvc.data.BeerInventoryShardId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface BeerInventoryShardRepository extends JpaRepository<BeerInventoryShardEntity, BeerInventoryShardId> {
+
+    interface ShardedBeer {
+
+        UUID getBeerId();
+
+        long getShards();
+    }
+
+    interface ShardTotals {
+
+        Integer getQuantity();
+
+        Integer getGeneration();
+    }
+
+    @Query("select s.id.beerId as beerId, count(s) as shards from BeerInventoryShardEntity s group by s.id.beerId")
+    List<ShardedBeer> findShardedBeers();
+
+    @Query("""
+            select sum(s.quantity) as quantity, sum(s.generation) as generation
+            from BeerInventoryShardEntity s where s.id.beerId = :beerId
+            """)
+    ShardTotals findTotalsByBeerId(UUID beerId);
+
+    @Query("select count(s) from BeerInventoryShardEntity s where s.id.beerId = :beerId")
+    long countByBeerId(UUID beerId);
+
+    @Modifying
+    @Query("""
+            update BeerInventoryShardEntity s
+            set s.quantity = s.quantity - :quantity, s.generation = s.generation + 1, s.updatedDate = local datetime
+            where s.id.beerId = :beerId and s.id.shard = :shard and s.quantity >= :quantity
+            """)
+    int allocateStock(UUID beerId, int shard, int quantity);
+
+    // Locks in shard order, like every other statement that locks more than one shard
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from BeerInventoryShardEntity s where s.id.beerId = :beerId order by s.id.shard")
+    List<BeerInventoryShardEntity> findAllForUpdateByBeerId(UUID beerId);
+
+    @Modifying
+    @Query("delete from BeerInventoryShardEntity s where s.id.beerId = :beerId")
+    int deleteAllByBeerId(UUID beerId);
+}
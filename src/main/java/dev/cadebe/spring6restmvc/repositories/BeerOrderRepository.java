@@ -2,8 +2,21 @@ package dev.cadebe.spring6restmvc.repositories;
 
 import dev.cadebe.spring6restmvc.data.BeerOrderEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Optional;
 import java.util.UUID;
 
-interface BeerOrderRepository extends JpaRepository<BeerOrderEntity, UUID> {
+public interface BeerOrderRepository extends JpaRepository<BeerOrderEntity, UUID> {
+
+    // Fetches every eager association in one statement, otherwise each line loads its beer separately
+    @Query("""
+            select distinct o from BeerOrderEntity o
+            left join fetch o.customer
+            left join fetch o.beerOrderShipment
+            left join fetch o.beerOrderLines l
+            left join fetch l.beer
+            where o.id = :id
+            """)
+    Optional<BeerOrderEntity> findWithLinesById(UUID id);
 }
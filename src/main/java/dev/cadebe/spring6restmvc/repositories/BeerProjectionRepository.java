@@ -0,0 +1,14 @@
+package dev.cadebe.spring6restmvc.repositories;
+
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.model.ListVersion;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface BeerProjectionRepository {
+
+    Page<BeerDto> findBeerDtos(String beerNamePattern, BeerStyle beerStyle, boolean includeInventory, Pageable pageable);
+
+    ListVersion findListVersion(String beerNamePattern, BeerStyle beerStyle);
+}
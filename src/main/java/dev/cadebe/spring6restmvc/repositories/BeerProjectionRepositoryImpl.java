@@ -0,0 +1,151 @@
+package dev.cadebe.spring6restmvc.repositories;
+
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.data.BeerInventoryShardEntity;
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.model.ListVersion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+@RequiredArgsConstructor
+class BeerProjectionRepositoryImpl implements BeerProjectionRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Page<BeerDto> findBeerDtos(String beerNamePattern, BeerStyle beerStyle, boolean includeInventory, Pageable pageable) {
+        val criteriaBuilder = entityManager.getCriteriaBuilder();
+        val query = criteriaBuilder.createQuery(BeerDto.class);
+        val root = query.from(BeerEntity.class);
+
+        query.select(criteriaBuilder.construct(BeerDto.class, selections(criteriaBuilder, query, root, includeInventory)))
+                .where(predicates(criteriaBuilder, root, beerNamePattern, beerStyle));
+
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(toOrders(pageable.getSort(), root, criteriaBuilder));
+        }
+
+        val typedQuery = entityManager.createQuery(query);
+
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable,
+                () -> count(criteriaBuilder, beerNamePattern, beerStyle));
+    }
+
+    @Override
+    public ListVersion findListVersion(String beerNamePattern, BeerStyle beerStyle) {
+        val criteriaBuilder = entityManager.getCriteriaBuilder();
+        val query = criteriaBuilder.createQuery(ListVersion.class);
+        val root = query.from(BeerEntity.class);
+
+        // Shard allocations don't touch the beer rows, so any of them counts as a change of every list
+        val shardsUpdated = query.subquery(LocalDateTime.class);
+        val shard = shardsUpdated.from(BeerInventoryShardEntity.class);
+        shardsUpdated.select(criteriaBuilder.greatest(shard.<LocalDateTime>get("updatedDate")));
+
+        query.select(criteriaBuilder.construct(ListVersion.class,
+                        criteriaBuilder.count(root),
+                        criteriaBuilder.greatest(root.<LocalDateTime>get("updatedDate")),
+                        shardsUpdated))
+                .where(predicates(criteriaBuilder, root, beerNamePattern, beerStyle));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private long count(CriteriaBuilder criteriaBuilder, String beerNamePattern, BeerStyle beerStyle) {
+        val query = criteriaBuilder.createQuery(Long.class);
+        val root = query.from(BeerEntity.class);
+
+        query.select(criteriaBuilder.count(root))
+                .where(predicates(criteriaBuilder, root, beerNamePattern, beerStyle));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    // Sum of one column over the beer's inventory shards. Callers only evaluate it for rows of sharded beers.
+    private static Expression<Integer> shardSum(CriteriaBuilder criteriaBuilder, CriteriaQuery<?> query,
+                                                Root<BeerEntity> root, String attribute) {
+        val shardSum = query.subquery(Integer.class);
+        val shard = shardSum.from(BeerInventoryShardEntity.class);
+        shardSum.select(criteriaBuilder.sum(shard.<Integer>get(attribute)))
+                .where(criteriaBuilder.equal(shard.get("id").get("beerId"), root.get("id")));
+
+        return criteriaBuilder.coalesce(shardSum, 0);
+    }
+
+    // Same as BeerEntity.getTotalQuantityOnHand()
+    private static Expression<Integer> totalQuantityOnHand(CriteriaBuilder criteriaBuilder, CriteriaQuery<?> query,
+                                                           Root<BeerEntity> root) {
+        Expression<Integer> quantityOnHand = root.get("quantityOnHand");
+
+        return criteriaBuilder.<Integer>selectCase()
+                .when(criteriaBuilder.isTrue(root.get("sharded")), criteriaBuilder.sum(
+                        criteriaBuilder.coalesce(quantityOnHand, 0), shardSum(criteriaBuilder, query, root, "quantity")))
+                .otherwise(quantityOnHand);
+    }
+
+    // Same as BeerEntity.getTotalVersion()
+    private static Expression<Integer> totalVersion(CriteriaBuilder criteriaBuilder, CriteriaQuery<?> query,
+                                                    Root<BeerEntity> root) {
+        return criteriaBuilder.sum(root.get("version"), criteriaBuilder.<Integer>selectCase()
+                .when(criteriaBuilder.isTrue(root.get("sharded")), shardSum(criteriaBuilder, query, root, "generation"))
+                .otherwise(0));
+    }
+
+    private static Selection<?>[] selections(CriteriaBuilder criteriaBuilder, CriteriaQuery<?> query,
+                                             Root<BeerEntity> root, boolean includeInventory) {
+        List<Selection<?>> selections = new ArrayList<>(List.of(
+                root.get("id"),
+                totalVersion(criteriaBuilder, query, root),
+                root.get("beerName"),
+                root.get("beerStyle"),
+                root.get("upc"),
+                root.get("price")));
+
+        if (includeInventory) {
+            selections.add(totalQuantityOnHand(criteriaBuilder, query, root));
+        }
+
+        selections.add(root.get("createdDate"));
+        selections.add(root.get("updatedDate"));
+
+        return selections.toArray(Selection[]::new);
+    }
+
+    private static Predicate[] predicates(CriteriaBuilder criteriaBuilder, Root<BeerEntity> root, String beerNamePattern, BeerStyle beerStyle) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (StringUtils.hasText(beerNamePattern)) {
+            predicates.add(criteriaBuilder.like(criteriaBuilder.upper(root.get("beerName")), beerNamePattern.toUpperCase(Locale.ROOT)));
+        }
+
+        if (beerStyle != null) {
+            predicates.add(criteriaBuilder.equal(root.get("beerStyle"), beerStyle));
+        }
+
+        return predicates.toArray(Predicate[]::new);
+    }
+}
@@ -2,13 +2,31 @@ package dev.cadebe.spring6restmvc.repositories;
 
 import dev.cadebe.spring6restmvc.data.BeerEntity;
 import dev.cadebe.spring6restmvc.model.BeerStyle;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.math.BigDecimal;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface BeerRepository extends JpaRepository<BeerEntity, UUID> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface BeerRepository extends JpaRepository<BeerEntity, UUID>, BeerProjectionRepository {
+
+    String STREAM_FETCH_SIZE = "500";
 
     Page<BeerEntity> findAllByBeerNameIsLikeIgnoreCase(String beerName, Pageable pageable);
 
@@ -16,4 +34,98 @@ public interface BeerRepository extends JpaRepository<BeerEntity, UUID> {
 
     Page<BeerEntity> findAllByBeerNameIsLikeIgnoreCaseAndBeerStyle(String beerName, BeerStyle beerStyle, Pageable pageable);
 
+    Window<BeerEntity> findAllBy(ScrollPosition position, Limit limit, Sort sort);
+
+    Window<BeerEntity> findAllByBeerNameIsLikeIgnoreCase(String beerName, ScrollPosition position, Limit limit, Sort sort);
+
+    Window<BeerEntity> findAllByBeerStyle(BeerStyle beerStyle, ScrollPosition position, Limit limit, Sort sort);
+
+    Window<BeerEntity> findAllByBeerNameIsLikeIgnoreCaseAndBeerStyle(String beerName, BeerStyle beerStyle, ScrollPosition position, Limit limit, Sort sort);
+
+    // Same as BeerEntity.getTotalVersion(), the shards are only read for a sharded beer
+    @Query("""
+            select b.version + case when b.sharded = true
+                then coalesce((select sum(s.generation) from BeerInventoryShardEntity s where s.id.beerId = b.id), 0)
+                else 0 end
+            from BeerEntity b where b.id = :id
+            """)
+    Optional<Integer> findVersionById(UUID id);
+
+    @Query("select b.beerStyle from BeerEntity b where b.id = :id")
+    Optional<BeerStyle> findBeerStyleById(UUID id);
+
+    // An absolute quantity on hand must not land beside stock still spread over inventory shards, so a sharded beer
+    // is left alone and the caller discards its shards first
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update BeerEntity b
+            set b.beerName = :beerName, b.beerStyle = :beerStyle, b.upc = :upc, b.price = :price,
+                b.quantityOnHand = :quantityOnHand, b.version = b.version + 1, b.updatedDate = local datetime
+            where b.id = :id and b.version = :version and b.sharded = false
+            """)
+    int updateIfVersionMatches(UUID id, Integer version, String beerName, BeerStyle beerStyle, String upc,
+                               BigDecimal price, Integer quantityOnHand);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update BeerEntity b
+            set b.beerName = coalesce(:beerName, b.beerName), b.beerStyle = coalesce(:beerStyle, b.beerStyle),
+                b.upc = coalesce(:upc, b.upc), b.price = coalesce(:price, b.price),
+                b.quantityOnHand = coalesce(:quantityOnHand, b.quantityOnHand),
+                b.version = b.version + 1, b.updatedDate = local datetime
+            where b.id = :id
+                and b.version + case when b.sharded = true
+                    then coalesce((select sum(s.generation) from BeerInventoryShardEntity s where s.id.beerId = b.id), 0)
+                    else 0 end = :version
+                and (:quantityOnHand is null or b.sharded = false)
+            """)
+    int patchIfVersionMatches(UUID id, Integer version, String beerName, BeerStyle beerStyle, String upc,
+                              BigDecimal price, Integer quantityOnHand);
+
+    // Checks and decrements in one statement, so concurrent orders can never take the stock below zero
+    @Modifying
+    @Query("""
+            update BeerEntity b
+            set b.quantityOnHand = b.quantityOnHand - :quantity, b.version = b.version + 1,
+                b.updatedDate = local datetime
+            where b.id = :id and b.quantityOnHand >= :quantity
+            """)
+    int allocateStock(UUID id, int quantity);
+
+    // Moves stock, and the allocations counted by shards that go away, between the row and its inventory shards, which
+    // changes neither the total quantity on hand nor the total version
+    @Modifying
+    @Query("""
+            update BeerEntity b
+            set b.quantityOnHand = coalesce(b.quantityOnHand, 0) + :quantity, b.version = b.version + :generation,
+                b.sharded = :sharded
+            where b.id = :id
+            """)
+    int moveStock(UUID id, int quantity, int generation, boolean sharded);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from BeerEntity b where b.id = :id")
+    Optional<BeerEntity> findForUpdateById(UUID id);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            delete from BeerEntity b
+            where b.id = :id
+                and b.version + case when b.sharded = true
+                    then coalesce((select sum(s.generation) from BeerInventoryShardEntity s where s.id.beerId = b.id), 0)
+                    else 0 end = :version
+            """)
+    int deleteIfVersionMatches(UUID id, Integer version);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<BeerEntity> streamAllBy();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<BeerEntity> streamAllByBeerNameIsLikeIgnoreCase(String beerName);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<BeerEntity> streamAllByBeerStyle(BeerStyle beerStyle);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<BeerEntity> streamAllByBeerNameIsLikeIgnoreCaseAndBeerStyle(String beerName, BeerStyle beerStyle);
 }
\ No newline at end of file
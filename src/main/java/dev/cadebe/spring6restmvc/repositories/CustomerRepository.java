@@ -1,9 +1,40 @@
 package dev.cadebe.spring6restmvc.repositories;
 
 import dev.cadebe.spring6restmvc.data.CustomerEntity;
+import dev.cadebe.spring6restmvc.model.ListVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Optional;
 import java.util.UUID;
 
 public interface CustomerRepository extends JpaRepository<CustomerEntity, UUID> {
+
+    @Query("select c.version from CustomerEntity c where c.id = :id")
+    Optional<Integer> findVersionById(UUID id);
+
+    @Query("select new dev.cadebe.spring6restmvc.model.ListVersion(count(c), max(c.updatedDate)) from CustomerEntity c")
+    ListVersion findListVersion();
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update CustomerEntity c
+            set c.name = :name, c.version = c.version + 1, c.updatedDate = local datetime
+            where c.id = :id and c.version = :version
+            """)
+    int updateIfVersionMatches(UUID id, Integer version, String name);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update CustomerEntity c
+            set c.name = coalesce(:name, c.name), c.email = coalesce(:email, c.email),
+                c.version = c.version + 1, c.updatedDate = local datetime
+            where c.id = :id and c.version = :version
+            """)
+    int patchIfVersionMatches(UUID id, Integer version, String name, String email);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from CustomerEntity c where c.id = :id and c.version = :version")
+    int deleteIfVersionMatches(UUID id, Integer version);
 }
@@ -0,0 +1,7 @@
+package dev.cadebe.spring6restmvc.repositories;
+
+import dev.cadebe.spring6restmvc.data.InventoryJournalCheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface InventoryJournalCheckpointRepository extends JpaRepository<InventoryJournalCheckpointEntity, String> {
+}
@@ -0,0 +1,16 @@
+package dev.cadebe.spring6restmvc.repositories;
+
+import dev.cadebe.spring6restmvc.data.OutboxEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, UUID> {
+
+    // Rows locked by another relay are skipped rather than waited for, so relays on several instances drain
+    // disjoint batches
+    @Query(value = "select * from outbox_event order by id limit :batchSize for update skip locked", nativeQuery = true)
+    List<OutboxEventEntity> findNextBatchForUpdate(int batchSize);
+}
@@ -0,0 +1,12 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.model.BeerBulkResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+public interface BeerBulkService {
+
+    List<BeerBulkResult> createBeers(InputStream inputStream) throws IOException;
+}
@@ -0,0 +1,138 @@
+package dev.cadebe.spring6restmvc.services;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.mappers.BeerMapper;
+import dev.cadebe.spring6restmvc.model.BeerBulkResult;
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BeerBulkServiceImpl implements BeerBulkService {
+
+    private final BeerServiceProperties beerServiceProperties;
+    private final BeerMapper beerMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // A root-level JSON array and a sequence of newline-delimited values are both read item by item
+    @Override
+    public List<BeerBulkResult> createBeers(InputStream inputStream) throws IOException {
+        val chunkSize = beerServiceProperties.getBulk().getChunkSize();
+        val results = new ArrayList<BeerBulkResult>();
+        val chunk = new ArrayList<PendingBeer>(chunkSize);
+        int index = 0;
+
+        try (MappingIterator<BeerDto> items = objectMapper.readerFor(BeerDto.class).readValues(inputStream)) {
+            while (true) {
+                BeerDto beer;
+
+                try {
+                    if (!items.hasNextValue()) {
+                        break;
+                    }
+
+                    beer = items.nextValue();
+                } catch (JsonParseException e) {
+                    results.add(BeerBulkResult.failed(index, "Malformed input: " + e.getOriginalMessage()));
+                    break;
+                } catch (JsonMappingException e) {
+                    results.add(BeerBulkResult.invalid(index++, List.of(e.getOriginalMessage())));
+                    continue;
+                }
+
+                val entity = beerMapper.toEntity(beer);
+                entity.setId(null);
+                entity.setVersion(null);
+
+                val errors = validate(beer, entity);
+
+                if (errors.isEmpty()) {
+                    chunk.add(new PendingBeer(index, entity));
+                } else {
+                    results.add(BeerBulkResult.invalid(index, errors));
+                }
+
+                index++;
+
+                if (chunk.size() == chunkSize) {
+                    persist(chunk, results);
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            persist(chunk, results);
+        }
+
+        results.sort(Comparator.comparingInt(BeerBulkResult::index));
+        log.debug("Bulk request created {} of {} beers", results.stream().filter(result -> result.status() == BeerBulkResult.Status.CREATED).count(), index);
+
+        return results;
+    }
+
+    private List<String> validate(BeerDto beer, BeerEntity entity) {
+        return Stream.concat(
+                        validator.validate(beer).stream().map(BeerBulkServiceImpl::describe),
+                        validator.validate(entity).stream().map(BeerBulkServiceImpl::describe))
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    private static String describe(ConstraintViolation<?> violation) {
+        return violation.getPropertyPath() + ": " + violation.getMessage();
+    }
+
+    // Each chunk is flushed as one JDBC batch in its own transaction, so a failure only loses that chunk
+    private void persist(List<PendingBeer> chunk, List<BeerBulkResult> results) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                chunk.forEach(pending -> entityManager.persist(pending.entity()));
+                entityManager.flush();
+
+                chunk.forEach(pending -> eventPublisher.publishEvent(BeerChangedEvent.created(beerMapper.toModel(pending.entity()))));
+                entityManager.clear();
+            });
+
+            chunk.forEach(pending -> results.add(BeerBulkResult.created(pending.index(), pending.entity().getId())));
+        } catch (DataAccessException | PersistenceException e) {
+            val message = String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            log.debug("Bulk chunk of {} beers failed: {}", chunk.size(), message);
+
+            chunk.forEach(pending -> results.add(BeerBulkResult.failed(pending.index(), message)));
+        }
+
+        chunk.clear();
+    }
+
+    private record PendingBeer(int index, BeerEntity entity) {
+    }
+}
@@ -0,0 +1,331 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Pushes committed beer changes to server-sent event subscribers. Writers only offer the change to a bounded queue,
+// and a dispatcher thread hands it to every subscriber's own bounded buffer, which a virtual thread per subscriber
+// drains into its connection. A subscriber that falls a whole buffer behind loses its buffer and is told to resync,
+// i.e. reload the beer list, instead of holding up anybody else or piling up changes.
+@Slf4j
+@Component
+public class BeerChangeFeed {
+
+    static final String RESYNC = "resync";
+
+    private final BeerRepository beerRepository;
+    private final BeerServiceProperties.Changes properties;
+
+    // Event ids are only meaningful to the instance that issued them, the epoch makes any other id a resync
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private long sequence;
+
+    private final BlockingQueue<BeerChangedEvent> incoming;
+    private final AtomicBoolean incomingOverflowed = new AtomicBoolean();
+
+    // Guards the sequence, the replay buffer and the subscriber set, so a subscriber registers between two changes
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<BeerChange> replay = new ArrayDeque<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger styleFilteredSubscribers = new AtomicInteger();
+
+    private final Thread dispatcher;
+    private final Counter resyncs;
+
+    public record BeerChange(String id, BeerChangedEvent.ChangeType changeType, UUID beerId, BeerStyle beerStyle,
+                             BeerDto beer) {
+
+        boolean matches(BeerStyle filter) {
+            // A deleted beer's style is no longer known, so every subscriber hears about it
+            return filter == null || beerStyle == null || beerStyle == filter;
+        }
+    }
+
+    public BeerChangeFeed(BeerRepository beerRepository, BeerServiceProperties beerServiceProperties,
+                          MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+        this.properties = beerServiceProperties.getChanges();
+        this.incoming = new LinkedBlockingQueue<>(properties.getDispatchQueueSize());
+
+        resyncs = Counter.builder("beer.changes.resyncs")
+                .description("Subscribers told to reload because they fell too far behind")
+                .register(meterRegistry);
+
+        Gauge.builder("beer.changes.subscribers", subscribers, Set::size)
+                .description("Open beer change streams")
+                .register(meterRegistry);
+
+        dispatcher = Thread.ofVirtual().name("beer-change-dispatcher").start(this::dispatch);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeerChanged(BeerChangedEvent event) {
+        if (!incoming.offer(event)) {
+            incomingOverflowed.set(true);
+        }
+    }
+
+    public SseEmitter subscribe(BeerStyle beerStyle, String lastEventId) {
+        return subscribe(beerStyle, lastEventId, new SseEmitter(properties.getTimeout().toMillis()));
+    }
+
+    SseEmitter subscribe(BeerStyle beerStyle, String lastEventId, SseEmitter emitter) {
+        val subscriber = new Subscriber(beerStyle, emitter, properties.getSubscriberBufferSize());
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        lock.lock();
+        try {
+            if (lastEventId != null) {
+                replayAfter(lastEventId, subscriber);
+            }
+            if (subscribers.add(subscriber) && beerStyle != null) {
+                styleFilteredSubscribers.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        Thread.ofVirtual().name("beer-changes-subscriber").start(subscriber::deliver);
+
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void replayAfter(String lastEventId, Subscriber subscriber) {
+        val lastSequence = sequenceOf(lastEventId);
+
+        if (lastSequence == sequence) {
+            return;
+        }
+
+        val oldest = replay.isEmpty() ? sequence + 1 : sequenceOf(replay.getFirst().id());
+        if (lastSequence < 0 || lastSequence > sequence || lastSequence < oldest - 1) {
+            subscriber.resync(lastEventIdOf(sequence));
+            return;
+        }
+
+        replay.stream()
+                .filter(change -> sequenceOf(change.id()) > lastSequence)
+                .forEach(subscriber::offer);
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                val event = incoming.take();
+                val change = toChange(event);
+
+                lock.lock();
+                try {
+                    if (incomingOverflowed.getAndSet(false)) {
+                        // Changes were lost before they got a sequence, so nothing before this one can be replayed
+                        replay.clear();
+                        subscribers.forEach(subscriber -> subscriber.resync(lastEventIdOf(sequence)));
+                    }
+
+                    val numbered = new BeerChange(lastEventIdOf(++sequence), change.changeType(), change.beerId(),
+                            change.beerStyle(), change.beer());
+                    if (replay.size() == properties.getReplaySize()) {
+                        replay.removeFirst();
+                    }
+                    replay.addLast(numbered);
+
+                    subscribers.forEach(subscriber -> subscriber.offer(numbered));
+                } finally {
+                    lock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Dispatching a beer change failed", e);
+            }
+        }
+    }
+
+    // Stock allocations and journal flushes don't know the beer's style. It is only looked up while some subscriber
+    // filters by style, everybody else gets changes of unknown style anyway.
+    private BeerChange toChange(BeerChangedEvent event) {
+        var beerStyle = event.beerStyle();
+
+        if (beerStyle == null && event.changeType() != BeerChangedEvent.ChangeType.DELETED
+                && styleFilteredSubscribers.get() > 0) {
+            beerStyle = beerRepository.findBeerStyleById(event.beerId()).orElse(null);
+        }
+
+        return new BeerChange(null, event.changeType(), event.beerId(), beerStyle, event.beer());
+    }
+
+    private String lastEventIdOf(long eventSequence) {
+        return epoch + "-" + eventSequence;
+    }
+
+    private long sequenceOf(String eventId) {
+        val separator = eventId.lastIndexOf('-');
+
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        dispatcher.interrupt();
+        List.copyOf(subscribers).forEach(subscriber -> {
+            subscriber.close();
+            subscriber.emitter.complete();
+        });
+    }
+
+    // A ReentrantLock rather than synchronized, so that waiting subscriber threads don't pin their carriers
+    private final class Subscriber {
+
+        private final BeerStyle beerStyle;
+        private final SseEmitter emitter;
+        private final int capacity;
+
+        private final ReentrantLock bufferLock = new ReentrantLock();
+        private final Condition changed = bufferLock.newCondition();
+        private final Deque<BeerChange> buffer = new ArrayDeque<>();
+        private String resyncId;
+        private boolean closed;
+
+        Subscriber(BeerStyle beerStyle, SseEmitter emitter, int capacity) {
+            this.beerStyle = beerStyle;
+            this.emitter = emitter;
+            this.capacity = capacity;
+        }
+
+        void offer(BeerChange change) {
+            if (!change.matches(beerStyle)) {
+                return;
+            }
+
+            bufferLock.lock();
+            try {
+                if (buffer.size() == capacity) {
+                    buffer.clear();
+                    markResync(change.id());
+                } else if (resyncId == null) {
+                    buffer.addLast(change);
+                } else {
+                    // Still waiting to send the resync, which covers this change as well
+                    resyncId = change.id();
+                }
+                changed.signal();
+            } finally {
+                bufferLock.unlock();
+            }
+        }
+
+        void resync(String eventId) {
+            bufferLock.lock();
+            try {
+                buffer.clear();
+                markResync(eventId);
+                changed.signal();
+            } finally {
+                bufferLock.unlock();
+            }
+        }
+
+        private void markResync(String eventId) {
+            if (resyncId == null) {
+                resyncs.increment();
+            }
+            resyncId = eventId;
+        }
+
+        void close() {
+            bufferLock.lock();
+            try {
+                closed = true;
+                changed.signal();
+            } finally {
+                bufferLock.unlock();
+            }
+            if (subscribers.remove(this) && beerStyle != null) {
+                styleFilteredSubscribers.decrementAndGet();
+            }
+        }
+
+        void deliver() {
+            try {
+                while (true) {
+                    String resync;
+                    BeerChange change;
+
+                    bufferLock.lock();
+                    try {
+                        while (!closed && resyncId == null && buffer.isEmpty()) {
+                            changed.await();
+                        }
+                        if (closed) {
+                            return;
+                        }
+                        resync = resyncId;
+                        resyncId = null;
+                        change = resync == null ? buffer.removeFirst() : null;
+                    } finally {
+                        bufferLock.unlock();
+                    }
+
+                    // One change at a time, so a blocked send leaves the rest in the bounded buffer
+                    if (resync != null) {
+                        emitter.send(SseEmitter.event().id(resync).name(RESYNC).data(Map.of("reason", "behind")));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(change.id())
+                                .name(change.changeType().name().toLowerCase())
+                                .data(change, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away, the emitter's completion callback removes it
+                log.debug("Beer change stream closed: {}", e.getMessage());
+                close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+
+import java.util.UUID;
+
+// The beer's style is null when the writer doesn't know it, e.g. after a stock allocation
+public record BeerChangedEvent(ChangeType changeType, UUID beerId, BeerStyle beerStyle, BeerDto beer) {
+
+    public enum ChangeType {
+        CREATED, UPDATED, PATCHED, DELETED
+    }
+
+    public static BeerChangedEvent created(BeerDto beer) {
+        return new BeerChangedEvent(ChangeType.CREATED, beer.getId(), beer.getBeerStyle(), beer);
+    }
+
+    public static BeerChangedEvent updated(BeerDto beer) {
+        return new BeerChangedEvent(ChangeType.UPDATED, beer.getId(), beer.getBeerStyle(), beer);
+    }
+
+    public static BeerChangedEvent updated(UUID beerId) {
+        return updated(beerId, null);
+    }
+
+    public static BeerChangedEvent updated(UUID beerId, BeerStyle beerStyle) {
+        return new BeerChangedEvent(ChangeType.UPDATED, beerId, beerStyle, null);
+    }
+
+    public static BeerChangedEvent patched(BeerDto beer) {
+        return new BeerChangedEvent(ChangeType.PATCHED, beer.getId(), beer.getBeerStyle(), beer);
+    }
+
+    public static BeerChangedEvent patched(UUID beerId, BeerStyle beerStyle) {
+        return new BeerChangedEvent(ChangeType.PATCHED, beerId, beerStyle, null);
+    }
+
+    public static BeerChangedEvent deleted(UUID beerId) {
+        return new BeerChangedEvent(ChangeType.DELETED, beerId, null, null);
+    }
+}
@@ -0,0 +1,10 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.model.BeerCsvImportResult;
+
+import java.io.Reader;
+
+public interface BeerCsvImportService {
+
+    BeerCsvImportResult importCsv(Reader csvReader);
+}
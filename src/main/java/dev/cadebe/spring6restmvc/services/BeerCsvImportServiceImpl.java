@@ -0,0 +1,196 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.mappers.BeerMapper;
+import dev.cadebe.spring6restmvc.model.BeerCsv;
+import dev.cadebe.spring6restmvc.model.BeerCsvImportResult;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static dev.cadebe.spring6restmvc.model.BeerStyle.*;
+
+@Slf4j
+@Service
+public class BeerCsvImportServiceImpl implements BeerCsvImportService {
+
+    private final BeerServiceProperties beerServiceProperties;
+    private final BeerCsvService beerCsvService;
+    private final BeerMapper beerMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter importedRows;
+    private final Counter skippedRows;
+    private final Counter failedRows;
+    private final Timer chunkTimer;
+    private final AtomicLong rowsInProgress = new AtomicLong();
+
+    public BeerCsvImportServiceImpl(BeerServiceProperties beerServiceProperties, BeerCsvService beerCsvService,
+                                    BeerMapper beerMapper, EntityManager entityManager,
+                                    TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                                    MeterRegistry meterRegistry) {
+        this.beerServiceProperties = beerServiceProperties;
+        this.beerCsvService = beerCsvService;
+        this.beerMapper = beerMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+
+        importedRows = rowCounter(meterRegistry, "imported");
+        skippedRows = rowCounter(meterRegistry, "skipped");
+        failedRows = rowCounter(meterRegistry, "failed");
+
+        chunkTimer = Timer.builder("beer.csv.import.chunk")
+                .description("Time to map and commit one chunk of CSV rows")
+                .register(meterRegistry);
+
+        Gauge.builder("beer.csv.import.progress", rowsInProgress, AtomicLong::get)
+                .description("Rows read by the CSV imports currently running")
+                .baseUnit("rows")
+                .register(meterRegistry);
+    }
+
+    private static Counter rowCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("beer.csv.import.rows")
+                .tag("outcome", outcome)
+                .baseUnit("rows")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public BeerCsvImportResult importCsv(Reader csvReader) {
+        val chunkSize = beerServiceProperties.getCsvImport().getChunkSize();
+        val startedAt = System.nanoTime();
+        val progress = new Progress();
+        val chunk = new ArrayList<BeerCsv>(chunkSize);
+
+        val rows = beerCsvService.iterateCsv(csvReader, exception -> {
+            log.debug("Skipping unreadable CSV row: {}", exception.getMessage());
+            progress.read++;
+            progress.skipped++;
+            rowsInProgress.incrementAndGet();
+            skippedRows.increment();
+        });
+
+        try {
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                progress.read++;
+                rowsInProgress.incrementAndGet();
+
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, progress);
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, progress);
+            }
+        } finally {
+            rowsInProgress.addAndGet(-progress.read);
+        }
+
+        val result = new BeerCsvImportResult(progress.read, progress.imported, progress.skipped, progress.failed,
+                progress.chunks, Duration.ofNanos(System.nanoTime() - startedAt));
+
+        log.debug("Imported {} of {} CSV rows in {} chunks ({} rows/s)", result.rowsImported(), result.rowsRead(),
+                result.chunks(), Math.round(result.rowsPerSecond()));
+
+        return result;
+    }
+
+    // Mapping runs in parallel within the chunk; the chunk is then flushed as JDBC batches and committed on its own,
+    // so at most one chunk of rows and entities is held in memory
+    private void importChunk(List<BeerCsv> chunk, Progress progress) {
+        val entities = chunk.parallelStream()
+                .map(BeerCsvImportServiceImpl::toBeerEntity)
+                .filter(Objects::nonNull)
+                .toList();
+
+        val skipped = chunk.size() - entities.size();
+        progress.skipped += skipped;
+        skippedRows.increment(skipped);
+        progress.chunks++;
+        chunk.clear();
+
+        try {
+            chunkTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                entities.forEach(entityManager::persist);
+                entityManager.flush();
+
+                entities.forEach(entity -> eventPublisher.publishEvent(BeerChangedEvent.created(beerMapper.toModel(entity))));
+                entityManager.clear();
+            }));
+
+            progress.imported += entities.size();
+            importedRows.increment(entities.size());
+        } catch (DataAccessException | PersistenceException e) {
+            log.warn("CSV import chunk {} of {} rows failed", progress.chunks, entities.size(), e);
+
+            progress.failed += entities.size();
+            failedRows.increment(entities.size());
+        }
+
+        log.debug("CSV import progress: {} rows read, {} imported", progress.read, progress.imported);
+    }
+
+    static BeerEntity toBeerEntity(BeerCsv beerCsv) {
+        if (StringUtils.isBlank(beerCsv.getBeer()) || StringUtils.isBlank(beerCsv.getRow())) {
+            return null;
+        }
+
+        return BeerEntity.builder()
+                .beerName(StringUtils.abbreviate(beerCsv.getBeer(), 50))
+                .beerStyle(getBeerStyle(beerCsv))
+                .upc(beerCsv.getRow())
+                .price(BigDecimal.TEN)
+                .quantityOnHand(beerCsv.getCountX())
+                .build();
+    }
+
+    private static BeerStyle getBeerStyle(BeerCsv beerCsv) {
+        return switch (StringUtils.defaultString(beerCsv.getStyle())) {
+            case "American IPA", "American Double / Imperial IPA", "Belgian IPA" -> IPA;
+            case "Oatmeal Stout", "American Stout", "Milk / Sweet Stout", "Schwarzbier" -> STOUT;
+            case "American Porter", "Baltic Porter" -> PORTER;
+            case "Saison / Farmhouse Ale" -> SAISON;
+            case "Cider" -> CIDER;
+            case "Fruit / Vegetable Beer", "Berliner Weissbier", "Altbier", "Winter Warmer", "Hefeweizen", "Rauchbier" ->
+                    WHEAT;
+            case "German Pilsener", "Czech Pilsener" -> PILSNER;
+            case "American Pale Lager", "Vienna Lager", "Euro Pale Lager", "Munich Helles Lager", "Dortmunder / Export Lager", "American Adjunct Lager" ->
+                    LAGER;
+            case "Extra Special / Strong Bitter (ESB)" -> BITTER;
+            default -> ALE;
+        };
+    }
+
+    private static class Progress {
+        long read;
+        long imported;
+        long skipped;
+        long failed;
+        int chunks;
+    }
+}
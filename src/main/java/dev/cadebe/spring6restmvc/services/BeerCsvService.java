@@ -3,9 +3,13 @@ package dev.cadebe.spring6restmvc.services;
 import dev.cadebe.spring6restmvc.model.BeerCsv;
 
 import java.io.Reader;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BeerCsvService {
 
     List<BeerCsv> convertCsv(Reader csvReader);
+
+    Iterator<BeerCsv> iterateCsv(Reader csvReader, Consumer<Exception> skippedRowHandler);
 }
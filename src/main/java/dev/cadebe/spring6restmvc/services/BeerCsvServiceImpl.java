@@ -5,7 +5,9 @@ import dev.cadebe.spring6restmvc.model.BeerCsv;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class BeerCsvServiceImpl implements BeerCsvService {
@@ -17,4 +19,18 @@ public class BeerCsvServiceImpl implements BeerCsvService {
                 .build()
                 .parse();
     }
+
+    // Reads one line per call to next(); rows that cannot be bound are handed to the handler instead of being
+    // collected, so nothing grows with the size of the input
+    @Override
+    public Iterator<BeerCsv> iterateCsv(Reader csvReader, Consumer<Exception> skippedRowHandler) {
+        return new CsvToBeanBuilder<BeerCsv>(csvReader)
+                .withType(BeerCsv.class)
+                .withExceptionHandler(exception -> {
+                    skippedRowHandler.accept(exception);
+                    return null;
+                })
+                .build()
+                .iterator();
+    }
 }
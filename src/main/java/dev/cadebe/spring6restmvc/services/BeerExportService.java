@@ -0,0 +1,12 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.model.BeerExportFormat;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface BeerExportService {
+
+    long exportBeers(String beerName, BeerStyle beerStyle, BeerExportFormat format, OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,126 @@
+package dev.cadebe.spring6restmvc.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVWriterBuilder;
+import com.opencsv.ICSVWriter;
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.mappers.BeerMapper;
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerExportFormat;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class BeerExportServiceImpl implements BeerExportService {
+
+    static final String[] CSV_HEADER = {"id", "version", "beerName", "beerStyle", "upc", "price", "quantityOnHand", "createdDate", "updatedDate"};
+
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final BeerRepository beerRepository;
+    private final BeerMapper beerMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final ShardedInventory shardedInventory;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBeers(String beerName, BeerStyle beerStyle, BeerExportFormat format, OutputStream outputStream) throws IOException {
+        val writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+        try (val beers = streamBeers(beerName, beerStyle)) {
+            return switch (format) {
+                case NDJSON -> writeNdJson(beers, writer);
+                case CSV -> writeCsv(beers, writer);
+            };
+        }
+    }
+
+    private Stream<BeerEntity> streamBeers(String beerName, BeerStyle beerStyle) {
+        if (StringUtils.hasText(beerName) && beerStyle == null) {
+            return beerRepository.streamAllByBeerNameIsLikeIgnoreCase("%" + beerName + "%");
+        } else if (beerStyle != null && !StringUtils.hasText(beerName)) {
+            return beerRepository.streamAllByBeerStyle(beerStyle);
+        } else if (StringUtils.hasText(beerName) && beerStyle != null) {
+            return beerRepository.streamAllByBeerNameIsLikeIgnoreCaseAndBeerStyle("%" + beerName + "%", beerStyle);
+        } else {
+            return beerRepository.streamAllBy();
+        }
+    }
+
+    private long writeNdJson(Stream<BeerEntity> beers, Writer writer) throws IOException {
+        val jsonWriter = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n");
+
+        try (val sequenceWriter = jsonWriter.writeValues(writer)) {
+            val count = writeRows(beers, writer, sequenceWriter::write);
+
+            if (count > 0) {
+                writer.write('\n');
+            }
+
+            writer.flush();
+            return count;
+        }
+    }
+
+    private long writeCsv(Stream<BeerEntity> beers, Writer writer) throws IOException {
+        val csvWriter = new CSVWriterBuilder(writer)
+                .withLineEnd(ICSVWriter.RFC4180_LINE_END)
+                .build();
+
+        csvWriter.writeNext(CSV_HEADER, false);
+
+        val count = writeRows(beers, writer, beer -> csvWriter.writeNext(new String[]{
+                Objects.toString(beer.getId(), ""),
+                Objects.toString(beer.getVersion(), ""),
+                beer.getBeerName(),
+                Objects.toString(beer.getBeerStyle(), ""),
+                beer.getUpc(),
+                beer.getPrice() == null ? "" : beer.getPrice().toPlainString(),
+                Objects.toString(beer.getQuantityOnHand(), ""),
+                Objects.toString(beer.getCreatedDate(), ""),
+                Objects.toString(beer.getUpdatedDate(), "")
+        }, false));
+
+        csvWriter.flush();
+        return count;
+    }
+
+    private long writeRows(Stream<BeerEntity> beers, Writer writer, RowWriter rowWriter) throws IOException {
+        val iterator = beers.iterator();
+        long count = 0;
+
+        while (iterator.hasNext()) {
+            val beerEntity = iterator.next();
+
+            rowWriter.write(beerMapper.toModel(shardedInventory.loadShardTotals(beerEntity)));
+            entityManager.detach(beerEntity);
+
+            if (++count % FLUSH_INTERVAL == 0) {
+                writer.flush();
+            }
+        }
+
+        return count;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(BeerDto beer) throws IOException;
+    }
+}
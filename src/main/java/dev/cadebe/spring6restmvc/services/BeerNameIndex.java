@@ -0,0 +1,341 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.ReplicaLagTolerance;
+import dev.cadebe.spring6restmvc.mappers.BeerMapper;
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BeerNameIndex {
+
+    static final int GRAM_SIZE = 3;
+
+    private final BeerRepository beerRepository;
+    private final BeerMapper beerMapper;
+    private final ShardedInventory shardedInventory;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, IndexedBeer> beers = new HashMap<>();
+    private final Map<String, Set<UUID>> postings = new HashMap<>();
+    private final Set<UUID> staleBeerIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    // Held by rebuilds and stale beer refreshes while they read beers, so neither applies an older read over the other
+    private final Lock reloadLock = new ReentrantLock();
+
+    // Changes seen while a rebuild reads the beers, which its snapshot may or may not include. Guarded by the write lock.
+    private List<BeerChangedEvent> changesDuringRebuild;
+
+    // Beers changed while a refresh reloads stale beers. Their reloaded rows may predate the change and are dropped.
+    // Guarded by the write lock.
+    private Set<UUID> changedDuringRefresh;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Requests are already being served, so changes committed while the beers are read are applied again on top of
+    // the new snapshot rather than lost with the old one
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        reloadLock.lock();
+        try {
+            recordChanges(new ArrayList<>());
+
+            List<BeerDto> allBeers;
+            try {
+                allBeers = ReplicaLagTolerance.onPrimary(() ->
+                        beerRepository.findBeerDtos(null, null, true, Pageable.unpaged()).getContent());
+            } catch (RuntimeException e) {
+                recordChanges(null);
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                beers.clear();
+                postings.clear();
+                allBeers.forEach(this::putUnlocked);
+                changesDuringRebuild.forEach(this::applyUnlocked);
+                changesDuringRebuild = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            log.debug("Indexed {} beer names", allBeers.size());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void recordChanges(List<BeerChangedEvent> changes) {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeerChanged(BeerChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+            markChangedUnlocked(event.beerId());
+            applyUnlocked(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyUnlocked(BeerChangedEvent event) {
+        switch (event.changeType()) {
+            case CREATED, UPDATED, PATCHED -> {
+                if (event.beer() != null) {
+                    putUnlocked(event.beer());
+                } else {
+                    staleBeerIds.add(event.beerId());
+                }
+            }
+            case DELETED -> removeUnlocked(event.beerId());
+        }
+    }
+
+    // Conditional writes don't read the beer back, so its entry is reloaded on schedule instead and searches serve the
+    // last known entry until then. A beer changed again while it is reloaded keeps that change: a deleted beer is not
+    // put back, a newer beer not replaced, and a beer marked stale again is reloaded by the next refresh. A refresh the
+    // database fails leaves the beers stale for the next one.
+    @Scheduled(fixedDelayString = "${beer.service.name-index.refresh-interval:PT1S}")
+    public void refreshStaleBeers() {
+        if (staleBeerIds.isEmpty()) {
+            return;
+        }
+
+        reloadLock.lock();
+        try {
+            Set<UUID> beerIds;
+
+            lock.writeLock().lock();
+            try {
+                beerIds = new HashSet<>(staleBeerIds);
+                staleBeerIds.removeAll(beerIds);
+                changedDuringRefresh = new HashSet<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            List<BeerDto> reloaded;
+            try {
+                reloaded = ReplicaLagTolerance.onPrimary(() -> beerRepository.findAllById(beerIds).stream()
+                        .map(shardedInventory::loadShardTotals)
+                        .map(beerMapper::toModel)
+                        .toList());
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    changedDuringRefresh = null;
+                    staleBeerIds.addAll(beerIds);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+
+                log.warn("Reloading {} stale beer names failed, retrying with the next refresh", beerIds.size(), e);
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                beerIds.removeAll(changedDuringRefresh);
+                changedDuringRefresh = null;
+
+                beerIds.forEach(this::removeUnlocked);
+                reloaded.stream()
+                        .filter(beer -> beerIds.contains(beer.getId()))
+                        .forEach(this::putUnlocked);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void markChangedUnlocked(UUID beerId) {
+        if (changedDuringRefresh != null) {
+            changedDuringRefresh.add(beerId);
+        }
+    }
+
+    public void put(BeerDto beer) {
+        lock.writeLock().lock();
+        try {
+            markChangedUnlocked(beer.getId());
+            putUnlocked(beer);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID beerId) {
+        lock.writeLock().lock();
+        try {
+            markChangedUnlocked(beerId);
+            removeUnlocked(beerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Page<BeerDto> search(String query, BeerStyle beerStyle, Pageable pageable) {
+        val normalizedQuery = normalize(query);
+        List<IndexedBeer> matches;
+
+        lock.readLock().lock();
+        try {
+            matches = candidates(normalizedQuery).stream()
+                    .filter(beer -> beerStyle == null || beerStyle == beer.dto().getBeerStyle())
+                    .filter(beer -> beer.normalizedName().contains(normalizedQuery))
+                    .sorted(byMatchQuality(normalizedQuery))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(matches.stream().map(beer -> copyOf(beer.dto())).toList(), pageable, matches.size());
+        }
+
+        val content = matches.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .map(beer -> copyOf(beer.dto()))
+                .toList();
+
+        return new PageImpl<>(content, pageable, matches.size());
+    }
+
+    private Collection<IndexedBeer> candidates(String normalizedQuery) {
+        if (normalizedQuery.length() < GRAM_SIZE) {
+            return beers.values();
+        }
+
+        val postingLists = new ArrayList<Set<UUID>>();
+
+        for (val gram : grams(normalizedQuery)) {
+            val posting = postings.get(gram);
+
+            if (posting == null) {
+                return List.of();
+            }
+
+            postingLists.add(posting);
+        }
+
+        postingLists.sort(Comparator.comparingInt(Set::size));
+
+        val candidateIds = new HashSet<>(postingLists.getFirst());
+        postingLists.stream().skip(1).forEach(candidateIds::retainAll);
+
+        return candidateIds.stream().map(beers::get).toList();
+    }
+
+    private void putUnlocked(BeerDto beer) {
+        removeUnlocked(beer.getId());
+
+        val indexedBeer = new IndexedBeer(copyOf(beer), normalize(beer.getBeerName()));
+        beers.put(beer.getId(), indexedBeer);
+
+        for (val gram : grams(indexedBeer.normalizedName())) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(beer.getId());
+        }
+    }
+
+    private void removeUnlocked(UUID beerId) {
+        val existing = beers.remove(beerId);
+
+        if (existing == null) {
+            return;
+        }
+
+        for (val gram : grams(existing.normalizedName())) {
+            val posting = postings.get(gram);
+            posting.remove(beerId);
+
+            if (posting.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    static Set<String> grams(String normalized) {
+        val grams = new HashSet<String>();
+
+        for (int i = 0; i + GRAM_SIZE <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_SIZE));
+        }
+
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Comparator<IndexedBeer> byMatchQuality(String normalizedQuery) {
+        return Comparator.<IndexedBeer>comparingInt(beer -> matchTier(beer.normalizedName(), normalizedQuery))
+                .thenComparingInt(beer -> beer.normalizedName().length())
+                .thenComparing(IndexedBeer::normalizedName)
+                .thenComparing(beer -> beer.dto().getId());
+    }
+
+    private static int matchTier(String name, String query) {
+        if (name.equals(query)) {
+            return 0;
+        }
+
+        if (name.startsWith(query)) {
+            return 1;
+        }
+
+        for (int index = name.indexOf(query); index > 0; index = name.indexOf(query, index + 1)) {
+            if (!Character.isLetterOrDigit(name.charAt(index - 1))) {
+                return 2;
+            }
+        }
+
+        return 3;
+    }
+
+    private static BeerDto copyOf(BeerDto beer) {
+        return new BeerDto(beer.getId(), beer.getVersion(), beer.getBeerName(), beer.getBeerStyle(), beer.getUpc(),
+                beer.getPrice(), beer.getQuantityOnHand(), beer.getCreatedDate(), beer.getUpdatedDate());
+    }
+
+    private record IndexedBeer(BeerDto dto, String normalizedName) {
+    }
+}
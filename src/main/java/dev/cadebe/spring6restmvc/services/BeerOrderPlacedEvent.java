@@ -0,0 +1,6 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.model.BeerOrderDto;
+
+public record BeerOrderPlacedEvent(BeerOrderDto beerOrder) {
+}
@@ -0,0 +1,13 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.model.BeerOrderDto;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BeerOrderService {
+
+    BeerOrderDto placeOrder(BeerOrderDto beerOrder);
+
+    Optional<BeerOrderDto> getBeerOrderById(UUID beerOrderId);
+}
@@ -0,0 +1,104 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.data.BeerOrderEntity;
+import dev.cadebe.spring6restmvc.data.BeerOrderLineEntity;
+import dev.cadebe.spring6restmvc.mappers.BeerOrderMapper;
+import dev.cadebe.spring6restmvc.model.BeerOrderDto;
+import dev.cadebe.spring6restmvc.repositories.BeerOrderRepository;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BeerOrderServiceJpa implements BeerOrderService {
+
+    static final int MAX_ATTEMPTS = 3;
+
+    private final BeerOrderRepository beerOrderRepository;
+    private final BeerRepository beerRepository;
+    private final CustomerRepository customerRepository;
+    private final BeerOrderMapper beerOrderMapper;
+    private final ShardedInventory shardedInventory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    // Two orders whose first shard tries both failed can still lock the same shards in opposite orders. The database
+    // rolls one of them back, and that one runs again unless it is part of a caller's transaction.
+    @Override
+    public BeerOrderDto placeOrder(BeerOrderDto beerOrder) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> allocateAndSave(beerOrder));
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt == MAX_ATTEMPTS || TransactionSynchronizationManager.isActualTransactionActive()) {
+                    throw e;
+                }
+                log.debug("Placing order {} lost a lock conflict, attempt {} of {}", beerOrder.getCustomerRef(),
+                        attempt, MAX_ATTEMPTS);
+            }
+        }
+    }
+
+    private BeerOrderDto allocateAndSave(BeerOrderDto beerOrder) {
+        if (!customerRepository.existsById(beerOrder.getCustomerId())) {
+            throw new UnknownOrderReferenceException();
+        }
+
+        // One line per beer, allocated in id order, so that concurrent orders for the same beers lock their rows in the
+        // same order and cannot deadlock
+        val quantities = new TreeMap<UUID, Integer>();
+        try {
+            beerOrder.getBeerOrderLines()
+                    .forEach(line -> quantities.merge(line.getBeerId(), line.getOrderQuantity(), Math::addExact));
+        } catch (ArithmeticException e) {
+            throw new OrderQuantityOverflowException();
+        }
+
+        quantities.forEach((beerId, quantity) -> {
+            if (!shardedInventory.allocate(beerId, quantity)) {
+                if (!beerRepository.existsById(beerId)) {
+                    throw new UnknownOrderReferenceException();
+                }
+                throw new InsufficientStockException();
+            }
+            eventPublisher.publishEvent(BeerChangedEvent.updated(beerId));
+        });
+
+        val order = BeerOrderEntity.builder()
+                .customerRef(beerOrder.getCustomerRef())
+                .customer(customerRepository.getReferenceById(beerOrder.getCustomerId()))
+                .build();
+
+        quantities.forEach((beerId, quantity) -> order.addBeerOrderLine(BeerOrderLineEntity.builder()
+                .beer(beerRepository.getReferenceById(beerId))
+                .orderQuantity(quantity)
+                .quantityAllocated(quantity)
+                .build()));
+
+        // The order and its lines are inserted as JDBC batches when the transaction flushes
+        val placedOrder = beerOrderMapper.toModel(beerOrderRepository.save(order));
+        eventPublisher.publishEvent(new BeerOrderPlacedEvent(placedOrder));
+
+        return placedOrder;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<BeerOrderDto> getBeerOrderById(UUID beerOrderId) {
+        return beerOrderRepository.findWithLinesById(beerOrderId).map(beerOrderMapper::toModel);
+    }
+}
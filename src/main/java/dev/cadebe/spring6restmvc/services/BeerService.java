@@ -2,7 +2,10 @@ package dev.cadebe.spring6restmvc.services;
 
 import dev.cadebe.spring6restmvc.model.BeerDto;
 import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.model.ListVersion;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -11,13 +14,27 @@ public interface BeerService {
 
     Page<BeerDto> listBeers(String beerName, BeerStyle beerStyle, Boolean showInventory, Integer pageNumber, Integer pageSize);
 
+    Window<BeerDto> listBeersByCursor(String beerName, BeerStyle beerStyle, Boolean showInventory, ScrollPosition position, Integer pageSize);
+
+    Page<BeerDto> searchBeers(String query, BeerStyle beerStyle, Boolean showInventory, Integer pageNumber, Integer pageSize);
+
+    ListVersion getBeerListVersion(String beerName, BeerStyle beerStyle);
+
     Optional<BeerDto> getBeerbyId(UUID id);
 
+    Optional<Integer> getBeerVersion(UUID id);
+
     BeerDto saveNewBeer(BeerDto beer);
 
     Optional<BeerDto> updateBeerById(UUID beerId, BeerDto beer);
 
+    ConditionalWriteResult updateBeerByIdIfMatch(UUID beerId, Integer version, BeerDto beer);
+
     Optional<BeerDto> patchBeerById(UUID beerId, BeerDto beer);
 
+    ConditionalWriteResult patchBeerByIdIfMatch(UUID beerId, Integer version, BeerDto beer);
+
     boolean deleteBeerById(UUID beerId);
+
+    ConditionalWriteResult deleteBeerByIdIfMatch(UUID beerId, Integer version);
 }
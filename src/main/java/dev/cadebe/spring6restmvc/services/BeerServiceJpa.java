@@ -1,25 +1,38 @@
 package dev.cadebe.spring6restmvc.services;
 
 import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
+import dev.cadebe.spring6restmvc.config.ReplicaLagTolerance;
 import dev.cadebe.spring6restmvc.data.BeerEntity;
 import dev.cadebe.spring6restmvc.mappers.BeerMapper;
 import dev.cadebe.spring6restmvc.model.BeerDto;
 import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.model.ListVersion;
 import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.val;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
 
 @Service
 @Primary
@@ -28,43 +41,107 @@ public class BeerServiceJpa implements BeerService {
     private final BeerServiceProperties beerServiceProperties;
     private final BeerRepository beerRepository;
     private final BeerMapper beerMapper;
+    private final BeerNameIndex beerNameIndex;
+    private final ShardedInventory shardedInventory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LoadingCache<UUID, BeerDto> beerByIdCache;
     private Counter objectsCount;
 
-    public BeerServiceJpa(BeerServiceProperties beerServiceProperties, BeerRepository beerRepository, BeerMapper beerMapper, MeterRegistry meterRegistry) {
+    public BeerServiceJpa(BeerServiceProperties beerServiceProperties, BeerRepository beerRepository, BeerMapper beerMapper,
+                          BeerNameIndex beerNameIndex, ShardedInventory shardedInventory,
+                          ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
         this.beerServiceProperties = beerServiceProperties;
         this.beerRepository = beerRepository;
         this.beerMapper = beerMapper;
+        this.beerNameIndex = beerNameIndex;
+        this.shardedInventory = shardedInventory;
+        this.eventPublisher = eventPublisher;
 
         objectsCount = Counter.builder("beer.object.count")
                 .tag("addition", "manual")
                 .register(meterRegistry);
+
+        beerByIdCache = Caffeine.newBuilder()
+                .maximumSize(beerServiceProperties.getCache().getMaximumSize())
+                .expireAfterWrite(beerServiceProperties.getCache().getTimeToLive())
+                .recordStats()
+                // Only a loading cache exports cache.load and cache.load.duration. It loads right after a write evicted
+                // the entry, so from the primary, the replica may not have the write yet.
+                .build(beerId -> ReplicaLagTolerance.onPrimary(() ->
+                        beerMapper.toModel(shardedInventory.loadShardTotals(beerRepository.findById(beerId).orElse(null)))));
+
+        CaffeineCacheMetrics.monitor(meterRegistry, beerByIdCache, "beerById");
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<BeerDto> listBeers(String beerName, BeerStyle beerStyle, Boolean showInventory, Integer pageNumber, Integer pageSize) {
-        val pageRequest = buildPageRequest(pageNumber, pageSize);
-        Page<BeerEntity> beerPage;
+        val includeInventory = showInventory == null || showInventory;
+
+        if (StringUtils.hasText(beerName) || beerStyle != null) {
+            val beerNamePattern = StringUtils.hasText(beerName) ? "%" + beerName + "%" : null;
+
+            return beerRepository.findBeerDtos(beerNamePattern, beerStyle, includeInventory, Pageable.unpaged(Sort.by("beerName")));
+        }
+
+        return beerRepository.findBeerDtos(null, null, includeInventory, buildPageRequest(pageNumber, pageSize));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ListVersion getBeerListVersion(String beerName, BeerStyle beerStyle) {
+        val beerNamePattern = StringUtils.hasText(beerName) ? "%" + beerName + "%" : null;
+
+        return beerRepository.findListVersion(beerNamePattern, beerStyle);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<BeerDto> listBeersByCursor(String beerName, BeerStyle beerStyle, Boolean showInventory, ScrollPosition position, Integer pageSize) {
+        val limit = Limit.of(resolvePageSize(pageSize));
+        val sort = Sort.by(Sort.Order.asc("beerName"));
+        Window<BeerEntity> beerWindow;
 
         if (StringUtils.hasText(beerName) && beerStyle == null) {
-            beerPage = beerRepository.findAllByBeerNameIsLikeIgnoreCase("%" + beerName + "%", null);
+            beerWindow = beerRepository.findAllByBeerNameIsLikeIgnoreCase("%" + beerName + "%", position, limit, sort);
         } else if (beerStyle != null && !StringUtils.hasText(beerName)) {
-            beerPage = beerRepository.findAllByBeerStyle(beerStyle, null);
+            beerWindow = beerRepository.findAllByBeerStyle(beerStyle, position, limit, sort);
         } else if (StringUtils.hasText(beerName) && beerStyle != null) {
-            beerPage = beerRepository.findAllByBeerNameIsLikeIgnoreCaseAndBeerStyle("%" + beerName + "%", beerStyle, null);
+            beerWindow = beerRepository.findAllByBeerNameIsLikeIgnoreCaseAndBeerStyle("%" + beerName + "%", beerStyle, position, limit, sort);
         } else {
-            beerPage = beerRepository.findAll(pageRequest);
+            beerWindow = beerRepository.findAllBy(position, limit, sort);
         }
 
+        val beerDtoWindow = beerWindow.map(beer -> beerMapper.toModel(shardedInventory.loadShardTotals(beer)));
+
         if (showInventory != null && !showInventory) {
-            beerPage.forEach(beerEntity -> beerEntity.setQuantityOnHand(null));
+            beerDtoWindow.forEach(beerDto -> beerDto.setQuantityOnHand(null));
+        }
+
+        return beerDtoWindow;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BeerDto> searchBeers(String query, BeerStyle beerStyle, Boolean showInventory, Integer pageNumber, Integer pageSize) {
+        val pageRequest = PageRequest.of(pageNumber != null && pageNumber > 0 ? pageNumber - 1 : 0, resolvePageSize(pageSize));
+        val includeInventory = showInventory == null || showInventory;
+
+        if (!beerNameIndex.isReady()) {
+            return beerRepository.findBeerDtos("%" + query + "%", beerStyle, includeInventory, pageRequest.withSort(Sort.by("beerName")));
+        }
+
+        val beerPage = beerNameIndex.search(query, beerStyle, pageRequest);
+
+        if (!includeInventory) {
+            beerPage.forEach(beerDto -> beerDto.setQuantityOnHand(null));
         }
 
-        return beerPage.map(beerMapper::toModel);
+        return beerPage;
     }
 
-    private PageRequest buildPageRequest(Integer pageNumber, Integer pageSize) {
+    PageRequest buildPageRequest(Integer pageNumber, Integer pageSize) {
         int queryPageNumber;
-        int queryPageSize;
 
         if (pageNumber != null && pageNumber > 0) {
             queryPageNumber = pageNumber - 1;
@@ -72,31 +149,57 @@ public class BeerServiceJpa implements BeerService {
             queryPageNumber = beerServiceProperties.getDefaultPageSize();
         }
 
+        val sort = Sort.by(Sort.Order.asc("beerName"));
+
+        return PageRequest.of(queryPageNumber, resolvePageSize(pageSize), sort);
+    }
+
+    private int resolvePageSize(Integer pageSize) {
         if (pageSize == null) {
-            queryPageSize = beerServiceProperties.getDefaultPageSize();
-        } else {
-            if (pageSize > beerServiceProperties.getPageLimit()) {
-                queryPageSize = beerServiceProperties.getPageLimit();
-            } else {
-                queryPageSize = pageSize;
-            }
+            return beerServiceProperties.getDefaultPageSize();
         }
 
-        val sort = Sort.by(Sort.Order.asc("beerName"));
-
-        return PageRequest.of(queryPageNumber, queryPageSize, sort);
+        return Math.min(pageSize, beerServiceProperties.getPageLimit());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<BeerDto> getBeerbyId(UUID id) {
-        return Optional.ofNullable(beerMapper.toModel(beerRepository.findById(id).orElse(null)));
+        if (isInsideWriteTransaction()) {
+            return beerRepository.findById(id).map(shardedInventory::loadShardTotals).map(beerMapper::toModel);
+        }
+
+        val cached = beerByIdCache.get(id);
+
+        return Optional.ofNullable(beerMapper.copy(cached));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Integer> getBeerVersion(UUID id) {
+        // Never from the cache, which only hears about this instance's writes, nor from a lagging replica, so that a 304
+        // is never stale
+        return ReplicaLagTolerance.onPrimary(() -> beerRepository.findVersionById(id));
+    }
+
+    private static boolean isInsideWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void evictChangedBeer(BeerChangedEvent event) {
+        beerByIdCache.invalidate(event.beerId());
     }
 
     @Override
     @Transactional
     public BeerDto saveNewBeer(BeerDto beer) {
         objectsCount.increment();
-        return beerMapper.toModel(beerRepository.save(beerMapper.toEntity(beer)));
+        val savedBeer = beerMapper.toModel(beerRepository.save(beerMapper.toEntity(beer)));
+        eventPublisher.publishEvent(BeerChangedEvent.created(savedBeer));
+
+        return savedBeer;
     }
 
     @Override
@@ -105,25 +208,42 @@ public class BeerServiceJpa implements BeerService {
         AtomicReference<Optional<BeerDto>> beerReference = new AtomicReference<>();
 
         beerRepository.findById(beerId).ifPresentOrElse(foundBeer -> {
+            replaceShardedStock(foundBeer);
             foundBeer.setBeerName(beer.getBeerName());
             foundBeer.setBeerStyle(beer.getBeerStyle());
             foundBeer.setUpc(beer.getUpc());
             foundBeer.setPrice(beer.getPrice());
             foundBeer.setQuantityOnHand(beer.getQuantityOnHand());
 
-            beerRepository.save(foundBeer);
-            beerReference.set(Optional.of(beerMapper.toModel(foundBeer)));
+            // Flushed first, so that the event carries the version and update time the row is committed with
+            beerRepository.saveAndFlush(foundBeer);
+            val updatedBeer = beerMapper.toModel(foundBeer);
+            eventPublisher.publishEvent(BeerChangedEvent.updated(updatedBeer));
+            beerReference.set(Optional.of(updatedBeer));
         }, () -> beerReference.set(Optional.empty()));
 
         return beerReference.get();
     }
 
+    @Override
+    @Transactional
+    public ConditionalWriteResult updateBeerByIdIfMatch(UUID beerId, Integer version, BeerDto beer) {
+        IntSupplier update = () -> beerRepository.updateIfVersionMatches(beerId, version, beer.getBeerName(),
+                beer.getBeerStyle(), beer.getUpc(), beer.getPrice(), beer.getQuantityOnHand());
+
+        return replacingShardedStock(beerId, version, update, BeerChangedEvent.updated(beerId, beer.getBeerStyle()));
+    }
+
     @Override
     @Transactional
     public Optional<BeerDto> patchBeerById(UUID beerId, BeerDto beer) {
         AtomicReference<Optional<BeerDto>> beerReference = new AtomicReference<>();
 
         beerRepository.findById(beerId).ifPresentOrElse(foundBeer -> {
+            if (beer.getQuantityOnHand() != null) {
+                replaceShardedStock(foundBeer);
+            }
+
             if (StringUtils.hasText(beer.getBeerName())) {
                 foundBeer.setBeerName(beer.getBeerName());
             }
@@ -148,22 +268,92 @@ public class BeerServiceJpa implements BeerService {
                 foundBeer.setUpc(beer.getUpc());
             }
 
-            beerRepository.save(foundBeer);
-            beerReference.set(Optional.of(beerMapper.toModel(foundBeer)));
+            beerRepository.saveAndFlush(foundBeer);
+            val patchedBeer = beerMapper.toModel(shardedInventory.loadShardTotals(foundBeer));
+            eventPublisher.publishEvent(BeerChangedEvent.patched(patchedBeer));
+            beerReference.set(Optional.of(patchedBeer));
 
         }, () -> beerReference.set(Optional.empty()));
 
         return beerReference.get();
     }
 
+    @Override
+    @Transactional
+    public ConditionalWriteResult patchBeerByIdIfMatch(UUID beerId, Integer version, BeerDto beer) {
+        IntSupplier patch = () -> beerRepository.patchIfVersionMatches(beerId, version,
+                StringUtils.hasText(beer.getBeerName()) ? beer.getBeerName() : null,
+                beer.getBeerStyle(),
+                StringUtils.hasText(beer.getUpc()) ? beer.getUpc() : null,
+                beer.getPrice(),
+                beer.getQuantityOnHand());
+
+        if (beer.getQuantityOnHand() == null) {
+            return toConditionalWriteResult(beerId, patch.getAsInt(),
+                    BeerChangedEvent.patched(beerId, beer.getBeerStyle()));
+        }
+
+        return replacingShardedStock(beerId, version, patch, BeerChangedEvent.patched(beerId, beer.getBeerStyle()));
+    }
+
     @Override
     @Transactional
     public boolean deleteBeerById(UUID beerId) {
         if (beerRepository.existsById(beerId)) {
             beerRepository.deleteById(beerId);
+            eventPublisher.publishEvent(BeerChangedEvent.deleted(beerId));
             return true;
         }
 
         return false;
     }
+
+    @Override
+    @Transactional
+    public ConditionalWriteResult deleteBeerByIdIfMatch(UUID beerId, Integer version) {
+        val affectedRows = beerRepository.deleteIfVersionMatches(beerId, version);
+
+        return toConditionalWriteResult(beerId, affectedRows, BeerChangedEvent.deleted(beerId));
+    }
+
+    // An absolute quantity on hand replaces the stock spread over inventory shards. Runs before the beer is changed,
+    // because discarding the shards reloads it.
+    private void replaceShardedStock(BeerEntity beer) {
+        if (beer.isSharded()) {
+            shardedInventory.discardShards(beer);
+        }
+    }
+
+    // A conditional write of an absolute quantity on hand skips sharded beers. Only when it touched no rows does it
+    // look up the version, which tells a missing beer and a stale version from one held back by its inventory shards.
+    // Discarding the shards moves their allocations into the row's version, so an allocation that got in between
+    // makes the retry miss.
+    private ConditionalWriteResult replacingShardedStock(UUID beerId, Integer version, IntSupplier write,
+                                                         BeerChangedEvent event) {
+        val affectedRows = write.getAsInt();
+        if (affectedRows > 0) {
+            return toConditionalWriteResult(beerId, affectedRows, event);
+        }
+
+        val currentVersion = beerRepository.findVersionById(beerId);
+        if (currentVersion.isEmpty()) {
+            return ConditionalWriteResult.NOT_FOUND;
+        }
+        if (!currentVersion.get().equals(version)) {
+            return ConditionalWriteResult.VERSION_MISMATCH;
+        }
+
+        shardedInventory.discardShards(beerId);
+        return toConditionalWriteResult(beerId, write.getAsInt(), event);
+    }
+
+    // Only a write that touched no rows pays for the extra lookup that tells a stale version from a missing beer
+    private ConditionalWriteResult toConditionalWriteResult(UUID beerId, int affectedRows, BeerChangedEvent event) {
+        if (affectedRows > 0) {
+            eventPublisher.publishEvent(event);
+            return ConditionalWriteResult.APPLIED;
+        }
+
+        return beerRepository.existsById(beerId) ? ConditionalWriteResult.VERSION_MISMATCH : ConditionalWriteResult.NOT_FOUND;
+    }
 }
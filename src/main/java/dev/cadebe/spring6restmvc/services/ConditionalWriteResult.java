@@ -0,0 +1,5 @@
+package dev.cadebe.spring6restmvc.services;
+
+public enum ConditionalWriteResult {
+    APPLIED, VERSION_MISMATCH, NOT_FOUND
+}
@@ -0,0 +1,36 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.model.CustomerDto;
+
+import java.util.UUID;
+
+public record CustomerChangedEvent(ChangeType changeType, UUID customerId, CustomerDto customer) {
+
+    public enum ChangeType {
+        CREATED, UPDATED, PATCHED, DELETED
+    }
+
+    public static CustomerChangedEvent created(CustomerDto customer) {
+        return new CustomerChangedEvent(ChangeType.CREATED, customer.getId(), customer);
+    }
+
+    public static CustomerChangedEvent updated(CustomerDto customer) {
+        return new CustomerChangedEvent(ChangeType.UPDATED, customer.getId(), customer);
+    }
+
+    public static CustomerChangedEvent updated(UUID customerId) {
+        return new CustomerChangedEvent(ChangeType.UPDATED, customerId, null);
+    }
+
+    public static CustomerChangedEvent patched(CustomerDto customer) {
+        return new CustomerChangedEvent(ChangeType.PATCHED, customer.getId(), customer);
+    }
+
+    public static CustomerChangedEvent patched(UUID customerId) {
+        return new CustomerChangedEvent(ChangeType.PATCHED, customerId, null);
+    }
+
+    public static CustomerChangedEvent deleted(UUID customerId) {
+        return new CustomerChangedEvent(ChangeType.DELETED, customerId, null);
+    }
+}
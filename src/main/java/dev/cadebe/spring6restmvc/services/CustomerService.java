@@ -1,6 +1,7 @@
 package dev.cadebe.spring6restmvc.services;
 
 import dev.cadebe.spring6restmvc.model.CustomerDto;
+import dev.cadebe.spring6restmvc.model.ListVersion;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,13 +11,23 @@ public interface CustomerService {
 
     List<CustomerDto> getAllCustomers();
 
+    ListVersion getCustomerListVersion();
+
     Optional<CustomerDto> getCustomerById(UUID uuid);
 
+    Optional<Integer> getCustomerVersion(UUID uuid);
+
     CustomerDto saveNewCustomer(CustomerDto customer);
 
     Optional<CustomerDto> updateCustomerById(UUID customerId, CustomerDto customer);
 
+    ConditionalWriteResult updateCustomerByIdIfMatch(UUID customerId, Integer version, CustomerDto customer);
+
     Optional<CustomerDto> patchCustomerById(UUID customerId, CustomerDto customer);
 
+    ConditionalWriteResult patchCustomerByIdIfMatch(UUID customerId, Integer version, CustomerDto customer);
+
     boolean deleteCustomerById(UUID customerId);
+
+    ConditionalWriteResult deleteCustomerByIdIfMatch(UUID customerId, Integer version);
 }
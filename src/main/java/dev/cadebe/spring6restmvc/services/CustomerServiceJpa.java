@@ -2,8 +2,11 @@ package dev.cadebe.spring6restmvc.services;
 
 import dev.cadebe.spring6restmvc.mappers.CustomerMapper;
 import dev.cadebe.spring6restmvc.model.CustomerDto;
+import dev.cadebe.spring6restmvc.model.ListVersion;
 import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,8 +24,10 @@ public class CustomerServiceJpa implements CustomerService {
 
     private final CustomerRepository customerRepository;
     private final CustomerMapper customerMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
+    @Transactional(readOnly = true)
     public List<CustomerDto> getAllCustomers() {
         return customerRepository.findAll()
                 .stream()
@@ -31,14 +36,30 @@ public class CustomerServiceJpa implements CustomerService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public ListVersion getCustomerListVersion() {
+        return customerRepository.findListVersion();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<CustomerDto> getCustomerById(UUID uuid) {
         return Optional.ofNullable(customerMapper.toModel(customerRepository.findById(uuid).orElse(null)));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Integer> getCustomerVersion(UUID uuid) {
+        return customerRepository.findVersionById(uuid);
+    }
+
     @Override
     @Transactional
     public CustomerDto saveNewCustomer(CustomerDto customer) {
-        return customerMapper.toModel(customerRepository.save(customerMapper.toEntity(customer)));
+        val savedCustomer = customerMapper.toModel(customerRepository.save(customerMapper.toEntity(customer)));
+        eventPublisher.publishEvent(CustomerChangedEvent.created(savedCustomer));
+
+        return savedCustomer;
     }
 
     @Override
@@ -50,12 +71,21 @@ public class CustomerServiceJpa implements CustomerService {
             foundCustomer.setName(customer.getName());
 
             customerRepository.save(foundCustomer);
-            customerReference.set(Optional.of(customerMapper.toModel(foundCustomer)));
+            val updatedCustomer = customerMapper.toModel(foundCustomer);
+            eventPublisher.publishEvent(CustomerChangedEvent.updated(updatedCustomer));
+            customerReference.set(Optional.of(updatedCustomer));
         }, () -> customerReference.set(Optional.empty()));
 
         return customerReference.get();
     }
 
+    @Override
+    @Transactional
+    public ConditionalWriteResult updateCustomerByIdIfMatch(UUID customerId, Integer version, CustomerDto customer) {
+        return toConditionalWriteResult(customerId, customerRepository.updateIfVersionMatches(customerId, version, customer.getName()),
+                CustomerChangedEvent.updated(customerId));
+    }
+
     @Override
     @Transactional
     public Optional<CustomerDto> patchCustomerById(UUID customerId, CustomerDto customer) {
@@ -83,7 +113,9 @@ public class CustomerServiceJpa implements CustomerService {
             }
 
             customerRepository.save(foundCustomer);
-            customerReference.set(Optional.of(customerMapper.toModel(foundCustomer)));
+            val patchedCustomer = customerMapper.toModel(foundCustomer);
+            eventPublisher.publishEvent(CustomerChangedEvent.patched(patchedCustomer));
+            customerReference.set(Optional.of(patchedCustomer));
         }, () -> customerReference.set(Optional.empty()));
 
         return customerReference.get();
@@ -94,9 +126,36 @@ public class CustomerServiceJpa implements CustomerService {
     public boolean deleteCustomerById(UUID customerId) {
         if (customerRepository.existsById(customerId)) {
             customerRepository.deleteById(customerId);
+            eventPublisher.publishEvent(CustomerChangedEvent.deleted(customerId));
             return true;
         }
 
         return false;
     }
+
+    @Override
+    @Transactional
+    public ConditionalWriteResult patchCustomerByIdIfMatch(UUID customerId, Integer version, CustomerDto customer) {
+        val affectedRows = customerRepository.patchIfVersionMatches(customerId, version,
+                StringUtils.hasText(customer.getName()) ? customer.getName() : null,
+                StringUtils.hasText(customer.getEmail()) ? customer.getEmail() : null);
+
+        return toConditionalWriteResult(customerId, affectedRows, CustomerChangedEvent.patched(customerId));
+    }
+
+    @Override
+    @Transactional
+    public ConditionalWriteResult deleteCustomerByIdIfMatch(UUID customerId, Integer version) {
+        return toConditionalWriteResult(customerId, customerRepository.deleteIfVersionMatches(customerId, version),
+                CustomerChangedEvent.deleted(customerId));
+    }
+
+    private ConditionalWriteResult toConditionalWriteResult(UUID customerId, int affectedRows, CustomerChangedEvent event) {
+        if (affectedRows > 0) {
+            eventPublisher.publishEvent(event);
+            return ConditionalWriteResult.APPLIED;
+        }
+
+        return customerRepository.existsById(customerId) ? ConditionalWriteResult.VERSION_MISMATCH : ConditionalWriteResult.NOT_FOUND;
+    }
 }
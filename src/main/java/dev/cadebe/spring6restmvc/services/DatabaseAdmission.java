@@ -0,0 +1,89 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.DatabaseAdmissionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.val;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Bounds the number of threads doing JPA work at the same time. With virtual threads there is no worker pool limiting
+// concurrency any more, so without this every request would queue on the connection pool with no deadline. Runs
+// before the transaction advice, so no connection is taken until a permit has been granted, and inside the service
+// operation timer, so the wait counts towards the operation latency.
+// Only request work is admitted. The background work that also takes connections, the inventory flush, the outbox
+// relay, the beer name index refresh and the change feed, is never shed and runs on the connections the permits leave
+// free in the pool, see DatabaseAdmissionProperties.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class DatabaseAdmission {
+
+    private final DatabaseAdmissionProperties properties;
+    private final Semaphore permits;
+    private final ThreadLocal<Boolean> holdsPermit = ThreadLocal.withInitial(() -> false);
+    private final Timer admittedTimer;
+    private final Counter rejectedCounter;
+
+    public DatabaseAdmission(DatabaseAdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.permits = new Semaphore(properties.getMaxConcurrent(), true);
+
+        admittedTimer = Timer.builder("database.admission.wait")
+                .description("Time spent waiting for a database permit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        rejectedCounter = Counter.builder("database.admission.rejected")
+                .description("Calls shed because no database permit became available in time")
+                .register(meterRegistry);
+
+        Gauge.builder("database.admission.active", permits, semaphore -> properties.getMaxConcurrent() - semaphore.availablePermits())
+                .register(meterRegistry);
+
+        Gauge.builder("database.admission.queued", permits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+    }
+
+    @Around("execution(* dev.cadebe.spring6restmvc.services.BeerService.*(..)) " +
+            "|| execution(* dev.cadebe.spring6restmvc.services.CustomerService.*(..)) " +
+            "|| execution(* dev.cadebe.spring6restmvc.services.BeerOrderService.*(..)) " +
+            "|| execution(* dev.cadebe.spring6restmvc.services.BeerExportService.*(..)) " +
+            "|| execution(* dev.cadebe.spring6restmvc.services.BeerBulkService.*(..)) " +
+            "|| execution(* dev.cadebe.spring6restmvc.services.BeerCsvImportService.*(..))")
+    public Object admit(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Nested service calls run under the permit of the outermost one
+        if (!properties.isEnabled() || holdsPermit.get()) {
+            return joinPoint.proceed();
+        }
+
+        acquire();
+        holdsPermit.set(true);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            holdsPermit.remove();
+            permits.release();
+        }
+    }
+
+    private void acquire() throws InterruptedException {
+        val startTime = System.nanoTime();
+
+        if (!permits.tryAcquire(properties.getTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+            rejectedCounter.increment();
+            throw new DatabaseBusyException();
+        }
+
+        admittedTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,10 @@
+package dev.cadebe.spring6restmvc.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Database busy")
+public class DatabaseBusyException extends RuntimeException {
+    public DatabaseBusyException() {
+    }
+}
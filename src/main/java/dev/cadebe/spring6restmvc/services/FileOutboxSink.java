@@ -0,0 +1,78 @@
+package dev.cadebe.spring6restmvc.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.cadebe.spring6restmvc.config.OutboxProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.val;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Appends relayed events as JSON lines to a local file, for a log shipper to pick up. Only used when configured: the
+// file is never truncated here, so it needs a location someone rotates.
+@Component
+@ConditionalOnProperty(prefix = "outbox", name = "sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink, AutoCloseable {
+
+    private final ObjectMapper objectMapper;
+    private final boolean syncWrites;
+    private final FileChannel channel;
+
+    public FileOutboxSink(OutboxProperties properties, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.syncWrites = properties.isSyncWrites();
+
+        // A relative path would follow whatever directory the process happens to be started from
+        if (properties.getFile() == null || !properties.getFile().isAbsolute()) {
+            throw new IllegalStateException("outbox.file must be set to an absolute path when outbox.sink is file");
+        }
+
+        val file = properties.getFile();
+        Files.createDirectories(file.getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        val lines = new StringBuilder();
+        for (val event : events) {
+            lines.append(toJson(event)).append('\n');
+        }
+
+        // One write per batch, so a batch is either on disk as a whole or, after a crash, ends in a torn last line
+        val buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (syncWrites) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Outbox events could not be written", e);
+        }
+    }
+
+    private String toJson(OutboxEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Outbox event " + event.id() + " could not be serialized", e);
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,26 @@
+package dev.cadebe.spring6restmvc.services;
+
+import lombok.val;
+import org.springframework.util.StringUtils;
+
+import java.util.Locale;
+
+// Which of the beer list filters a request used, low cardinality enough to tag latency metrics with
+public enum FilterShape {
+    NONE, NAME, STYLE, BOTH;
+
+    public static FilterShape of(String beerName, Object beerStyle) {
+        val hasName = StringUtils.hasText(beerName);
+        val hasStyle = beerStyle != null && StringUtils.hasText(beerStyle.toString());
+
+        if (hasName) {
+            return hasStyle ? BOTH : NAME;
+        }
+
+        return hasStyle ? STYLE : NONE;
+    }
+
+    public String tagValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,8 @@
+package dev.cadebe.spring6restmvc.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT, reason = "Insufficient stock")
+public class InsufficientStockException extends RuntimeException {
+}
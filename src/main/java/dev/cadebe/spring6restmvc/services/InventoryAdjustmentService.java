@@ -0,0 +1,10 @@
+package dev.cadebe.spring6restmvc.services;
+
+import java.util.UUID;
+
+public interface InventoryAdjustmentService {
+
+    void adjustQuantityOnHand(UUID beerId, int delta);
+
+    void flush();
+}
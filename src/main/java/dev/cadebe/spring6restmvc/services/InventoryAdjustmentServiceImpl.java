@@ -0,0 +1,462 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.InventoryWriteBehindProperties;
+import dev.cadebe.spring6restmvc.data.InventoryJournalCheckpointEntity;
+import dev.cadebe.spring6restmvc.data.TimeOrderedUuidGenerator;
+import dev.cadebe.spring6restmvc.repositories.InventoryJournalCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Write-behind buffer for quantity on hand deltas. Adjustments are journaled and summed per beer in memory, and a
+// scheduled flush applies each beer's net delta in one JDBC batch, so terminals never contend on the beer's version.
+// The flush records the journal generation it applied in the same transaction, so that recovery after a crash
+// replays exactly the adjustments that were acknowledged but not yet applied.
+// A delta may take quantity on hand below zero, it is a count taken at a terminal and for a sharded beer the row only
+// holds part of the stock. Orders never allocate from a row below the quantity they take. A net delta the column
+// cannot hold is parked: written to parked_inventory_adjustment in the transaction that checkpoints its generation,
+// and applied again on schedule until the row can take it.
+@Slf4j
+@Service
+public class InventoryAdjustmentServiceImpl implements InventoryAdjustmentService {
+
+    private static final String ADJUST_QUANTITY_ON_HAND = """
+            update beer
+            set quantity_on_hand = coalesce(quantity_on_hand, 0) + ?, version = version + 1, updated_date = ?
+            where id = ?
+            """;
+
+    private static final String PARK_ADJUSTMENT = """
+            insert into parked_inventory_adjustment (id, beer_id, delta, created_date)
+            values (?, ?, ?, ?)
+            """;
+
+    private static final String PARKED_ADJUSTMENTS = """
+            select id, beer_id, delta from parked_inventory_adjustment
+            order by id
+            limit ?
+            """;
+
+    private static final int REPLAY_BATCH_SIZE = 500;
+
+    // Net deltas of one flush, split by whether the quantity on hand column can hold them at all
+    private record NetDeltas(List<Map.Entry<UUID, Integer>> applicable, List<Map.Entry<UUID, Long>> unrepresentable) {
+
+        int size() {
+            return applicable.size() + unrepresentable.size();
+        }
+    }
+
+    private record ParkedAdjustment(byte[] id, UUID beerId, int delta) {
+    }
+
+    private final InventoryWriteBehindProperties properties;
+    private final InventoryJournalCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryJournal journal;
+
+    // Appends and additions hold the read lock, the flush holds the write lock only to swap the map and rotate the
+    // journal, so every adjustment is in the same generation in memory and on disk
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Map<UUID, LongAdder> pending = new ConcurrentHashMap<>();
+    private final AtomicLong oldestPendingNanos = new AtomicLong();
+
+    private final Counter adjustments;
+    private final Counter parkedAdjustments;
+    private final Counter replayedAdjustments;
+    private final Timer flushLag;
+    private final Timer successfulFlushes;
+    private final Timer failedFlushes;
+    private final DistributionSummary flushedBeers;
+
+    public InventoryAdjustmentServiceImpl(InventoryWriteBehindProperties properties,
+                                          InventoryJournalCheckpointRepository checkpointRepository,
+                                          JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                          ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+
+        // Another instance recovering under the same name would discard this instance's unapplied generations
+        if (!StringUtils.hasText(properties.getJournalName()) || properties.getJournalName().length() > 100) {
+            throw new IllegalStateException("inventory.write-behind.journal-name must be set to a name of at most "
+                    + "100 characters that is unique to this instance");
+        }
+
+        // A relative directory would follow whatever directory the process happens to be started from
+        if (properties.getJournalDirectory() == null || !properties.getJournalDirectory().isAbsolute()) {
+            throw new IllegalStateException("inventory.write-behind.journal-directory must be set to an absolute path "
+                    + "on persistent storage");
+        }
+
+        journal = new InventoryJournal(properties.getJournalDirectory(), properties.getJournalName(),
+                properties.isSyncWrites());
+
+        val recovered = journal.recover(checkpointOf(properties.getJournalName()));
+
+        if (!recovered.isEmpty()) {
+            log.info("Recovered unapplied inventory adjustments for {} beers from {}", recovered.size(),
+                    properties.getJournalDirectory());
+            recovered.forEach(this::addPending);
+        }
+
+        adjustments = Counter.builder("inventory.adjustments")
+                .description("Quantity on hand adjustments accepted into the write-behind buffer")
+                .register(meterRegistry);
+
+        flushLag = Timer.builder("inventory.flush.lag")
+                .description("Age of the oldest adjustment in a batch when the batch was committed")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        parkedAdjustments = Counter.builder("inventory.adjustments.parked")
+                .description("Net deltas of one beer that could not be applied to its quantity on hand")
+                .register(meterRegistry);
+
+        replayedAdjustments = Counter.builder("inventory.adjustments.replayed")
+                .description("Parked net deltas applied to their quantity on hand later")
+                .register(meterRegistry);
+
+        successfulFlushes = flushTimer(meterRegistry, "success");
+        failedFlushes = flushTimer(meterRegistry, "failure");
+
+        flushedBeers = DistributionSummary.builder("inventory.flush.beers")
+                .description("Beers whose quantity on hand was updated by one flush")
+                .register(meterRegistry);
+
+        Gauge.builder("inventory.pending.beers", this, service -> service.pending.size())
+                .description("Beers with adjustments waiting for the next flush")
+                .register(meterRegistry);
+
+        Gauge.builder("inventory.pending.lag", this, InventoryAdjustmentServiceImpl::currentLagSeconds)
+                .description("Age of the oldest adjustment waiting for the next flush")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    private static Timer flushTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("inventory.flush")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void adjustQuantityOnHand(UUID beerId, int delta) {
+        lock.readLock().lock();
+        try {
+            journal.append(beerId, delta);
+            addPending(beerId, (long) delta);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        adjustments.increment();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${inventory.write-behind.flush-interval:PT1S}")
+    public synchronized void flush() {
+        Map<UUID, LongAdder> batch;
+        long oldestNanos;
+        long generation;
+
+        lock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            batch = pending;
+            pending = new ConcurrentHashMap<>();
+            oldestNanos = oldestPendingNanos.getAndSet(0);
+            generation = journal.rotate();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        val deltas = split(batch.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum())));
+
+        val started = System.nanoTime();
+        List<Map.Entry<UUID, Long>> parkedDeltas;
+        try {
+            parkedDeltas = apply(deltas, properties.getJournalName(), generation);
+        } catch (RuntimeException e) {
+            failedFlushes.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            log.warn("Inventory flush of {} beers failed, retrying with the next flush", deltas.size(), e);
+
+            // The generation stays on disk, the next successful checkpoint covers it
+            lock.readLock().lock();
+            try {
+                deltas.applicable().forEach(entry -> addPending(entry.getKey(), (long) entry.getValue()));
+                deltas.unrepresentable().forEach(entry -> addPending(entry.getKey(), entry.getValue()));
+                oldestPendingNanos.accumulateAndGet(oldestNanos, InventoryAdjustmentServiceImpl::earliest);
+            } finally {
+                lock.readLock().unlock();
+            }
+            return;
+        }
+
+        val committed = System.nanoTime();
+        successfulFlushes.record(committed - started, TimeUnit.NANOSECONDS);
+        flushLag.record(committed - oldestNanos, TimeUnit.NANOSECONDS);
+        flushedBeers.record(deltas.size() - parkedDeltas.size());
+        parked(parkedDeltas);
+
+        journal.discardThrough(generation);
+    }
+
+    private static NetDeltas split(Stream<Map.Entry<UUID, Long>> sums) {
+        val applicable = new ArrayList<Map.Entry<UUID, Integer>>();
+        val unrepresentable = new ArrayList<Map.Entry<UUID, Long>>();
+
+        sums.forEach(entry -> {
+            if (entry.getValue() < Integer.MIN_VALUE || entry.getValue() > Integer.MAX_VALUE) {
+                unrepresentable.add(entry);
+            } else if (entry.getValue() != 0) {
+                applicable.add(Map.entry(entry.getKey(), entry.getValue().intValue()));
+            }
+        });
+
+        return new NetDeltas(applicable, unrepresentable);
+    }
+
+    // Applies all deltas as one batch. A batch the database refuses is applied again one delta at a time, each behind
+    // its own savepoint, so that one delta the row cannot take does not hold back every beer's adjustments forever.
+    // Deltas that are not applied are parked in the transaction that writes the checkpoint, which is what makes it
+    // safe to discard their generation afterwards. Returns the parked deltas.
+    private List<Map.Entry<UUID, Long>> apply(NetDeltas deltas, String journalName, long generation) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                applyDeltas(deltas.applicable());
+                park(deltas.unrepresentable());
+                checkpoint(journalName, generation);
+            });
+
+            return deltas.unrepresentable();
+        } catch (DataAccessException e) {
+            log.warn("Inventory batch of {} beers failed, applying its deltas one at a time", deltas.size(), e);
+        }
+
+        return transactionTemplate.execute(status -> {
+            val parkedDeltas = new ArrayList<>(deltas.unrepresentable());
+
+            for (val delta : deltas.applicable()) {
+                val savepoint = status.createSavepoint();
+                try {
+                    applyDeltas(List.of(delta));
+                    status.releaseSavepoint(savepoint);
+                } catch (DataAccessException e) {
+                    status.rollbackToSavepoint(savepoint);
+                    log.debug("Inventory adjustment of {} refused for beer {}", delta.getValue(), delta.getKey(), e);
+                    parkedDeltas.add(Map.entry(delta.getKey(), (long) delta.getValue()));
+                }
+            }
+
+            park(parkedDeltas);
+            checkpoint(journalName, generation);
+
+            return parkedDeltas;
+        });
+    }
+
+    private void checkpoint(String journalName, long generation) {
+        checkpointRepository.save(InventoryJournalCheckpointEntity.builder()
+                .journalName(journalName)
+                .generation(generation)
+                .build());
+    }
+
+    private void park(List<Map.Entry<UUID, Long>> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // A net delta outside the int range is parked in parts the column can hold, each replayed on its own
+        val parts = new ArrayList<Map.Entry<UUID, Integer>>();
+        for (val entry : deltas) {
+            var remaining = entry.getValue();
+            while (remaining != 0) {
+                val part = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, remaining));
+                parts.add(Map.entry(entry.getKey(), part));
+                remaining -= part;
+            }
+        }
+
+        val now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(PARK_ADJUSTMENT, parts, parts.size(), (statement, entry) -> {
+            statement.setBytes(1, toBytes(TimeOrderedUuidGenerator.next()));
+            statement.setBytes(2, toBytes(entry.getKey()));
+            statement.setInt(3, entry.getValue());
+            statement.setObject(4, now);
+        });
+    }
+
+    // Called once the transaction that parked the deltas has committed
+    private void parked(List<Map.Entry<UUID, Long>> deltas) {
+        deltas.forEach(entry -> log.error("Parked inventory adjustment of {} for beer {}, its quantity on hand cannot "
+                + "take it yet", entry.getValue(), entry.getKey()));
+        parkedAdjustments.increment(deltas.size());
+    }
+
+    // Parked deltas are applied once their row can take them, e.g. after orders have drawn its stock down. Each one is
+    // applied and deleted behind its own savepoint, so the others still go through when one is refused again.
+    @Scheduled(fixedDelayString = "${inventory.write-behind.replay-interval:PT5M}")
+    public int replayParkedAdjustments() {
+        Integer replayed = transactionTemplate.execute(status -> {
+            val parkedRows = jdbcTemplate.query(PARKED_ADJUSTMENTS,
+                    (resultSet, rowNum) -> new ParkedAdjustment(resultSet.getBytes("id"),
+                            fromBytes(resultSet.getBytes("beer_id")), resultSet.getInt("delta")),
+                    REPLAY_BATCH_SIZE);
+            var applied = 0;
+
+            for (val row : parkedRows) {
+                val savepoint = status.createSavepoint();
+                try {
+                    applyDeltas(List.of(Map.entry(row.beerId(), row.delta())));
+                    jdbcTemplate.update("delete from parked_inventory_adjustment where id = ?", (Object) row.id());
+                    status.releaseSavepoint(savepoint);
+                    applied++;
+                } catch (DataAccessException e) {
+                    status.rollbackToSavepoint(savepoint);
+                    log.debug("Parked inventory adjustment of {} still refused for beer {}", row.delta(),
+                            row.beerId(), e);
+                }
+            }
+
+            return applied;
+        });
+
+        replayedAdjustments.increment(replayed);
+        return replayed;
+    }
+
+    // Journals left in the directory under another name, e.g. by a container whose host name changed with its restart,
+    // would never be replayed by their own instance again. Each is applied up to its last generation in one
+    // transaction with its own checkpoint, so a crash during adoption leaves it to be adopted again, not twice.
+    @EventListener(ApplicationReadyEvent.class)
+    public void adoptAbandonedJournals() {
+        for (val journalName : InventoryJournal.names(properties.getJournalDirectory())) {
+            if (!journalName.equals(properties.getJournalName())) {
+                adoptAbandonedJournal(journalName);
+            }
+        }
+    }
+
+    private void adoptAbandonedJournal(String journalName) {
+        try (val abandoned = new InventoryJournal(properties.getJournalDirectory(), journalName, false)) {
+            val adopted = abandoned.adopt(checkpointOf(journalName));
+
+            if (adopted == null) {
+                return;
+            }
+
+            val deltas = split(adopted.adjustments().entrySet().stream());
+            parked(apply(deltas, journalName, adopted.lastGeneration()));
+            abandoned.discardThrough(adopted.lastGeneration());
+
+            log.info("Applied unapplied inventory adjustments for {} beers from abandoned journal {}", deltas.size(),
+                    journalName);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Abandoned inventory journal {} could not be applied, retrying on the next start", journalName, e);
+        }
+    }
+
+    private long checkpointOf(String journalName) {
+        return checkpointRepository.findById(journalName)
+                .map(InventoryJournalCheckpointEntity::getGeneration)
+                .orElse(0L);
+    }
+
+    private void applyDeltas(List<Map.Entry<UUID, Integer>> deltas) {
+        val now = LocalDateTime.now();
+        val updateCounts = jdbcTemplate.batchUpdate(ADJUST_QUANTITY_ON_HAND, deltas, deltas.size(),
+                (statement, entry) -> {
+                    statement.setInt(1, entry.getValue());
+                    statement.setObject(2, now);
+                    statement.setBytes(3, toBytes(entry.getKey()));
+                })[0];
+
+        for (int i = 0; i < deltas.size(); i++) {
+            val beerId = deltas.get(i).getKey();
+
+            if (updateCounts[i] == 0) {
+                log.warn("Dropping inventory adjustment of {} for unknown beer {}", deltas.get(i).getValue(), beerId);
+            } else {
+                eventPublisher.publishEvent(BeerChangedEvent.updated(beerId));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    private void addPending(UUID beerId, Long delta) {
+        pending.computeIfAbsent(beerId, id -> new LongAdder()).add(delta);
+        oldestPendingNanos.compareAndSet(0, System.nanoTime());
+    }
+
+    private double currentLagSeconds() {
+        val oldestNanos = oldestPendingNanos.get();
+
+        return oldestNanos == 0 ? 0 : (System.nanoTime() - oldestNanos) / 1e9;
+    }
+
+    private static long earliest(long left, long right) {
+        if (left == 0 || right == 0) {
+            return Math.max(left, right);
+        }
+
+        return left - right < 0 ? left : right;
+    }
+
+    // Same layout as Hibernate's binary(16) UUID columns
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static UUID fromBytes(byte[] bytes) {
+        val buffer = ByteBuffer.wrap(bytes);
+
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
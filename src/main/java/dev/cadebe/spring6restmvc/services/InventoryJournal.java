@@ -0,0 +1,248 @@
+package dev.cadebe.spring6restmvc.services;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Append only log of inventory adjustments, one file per flush generation. A generation's file is deleted once the
+// checkpoint in the database covers it, so the files on disk are exactly the adjustments not yet applied. A journal is
+// locked by the instance writing it, which keeps other instances from adopting it while it is still in use.
+// Synced appends are group committed: one append forces everything written so far while concurrent appends wait for
+// it, so a burst of adjustments costs one fsync per force rather than one per adjustment.
+@Slf4j
+class InventoryJournal implements AutoCloseable {
+
+    private static final Pattern ANY_FILE_NAME = Pattern.compile("(.+)-\\d+\\.journal");
+
+    private final Path directory;
+    private final String name;
+    private final boolean syncWrites;
+    private final Pattern fileNamePattern;
+
+    private volatile FileChannel channel;
+    private FileChannel lockChannel;
+    private long generation;
+
+    private final AtomicLong written = new AtomicLong();
+    private final Object syncLock = new Object();
+    private long synced;
+
+    record Adopted(Map<UUID, Long> adjustments, long lastGeneration) {
+    }
+
+    InventoryJournal(Path directory, String name, boolean syncWrites) {
+        this.directory = directory;
+        this.name = name;
+        this.syncWrites = syncWrites;
+        this.fileNamePattern = Pattern.compile(Pattern.quote(name) + "-(\\d+)\\.journal");
+    }
+
+    // Names of the journals with generations in the directory, including those of instances that are gone
+    static Set<String> names(Path directory) {
+        try (val files = Files.list(directory)) {
+            return files.map(file -> ANY_FILE_NAME.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> matcher.group(1))
+                    .collect(Collectors.toSet());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Inventory journal directory " + directory + " could not be listed", e);
+        }
+    }
+
+    // Returns the adjustments of all generations after the checkpoint and starts a new generation after them
+    synchronized Map<UUID, Long> recover(long checkpoint) {
+        val adjustments = new HashMap<UUID, Long>();
+
+        try {
+            Files.createDirectories(directory);
+
+            if (!tryLock()) {
+                throw new IllegalStateException("Inventory journal " + directory.resolve(name)
+                        + " is in use by another instance");
+            }
+
+            generation = readAfter(checkpoint, adjustments) + 1;
+            channel = open(generation);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Inventory journal " + directory.resolve(name) + " could not be recovered", e);
+        }
+
+        return adjustments;
+    }
+
+    // Reads a journal left behind by another instance without starting a new generation. Returns null while the
+    // instance is still running.
+    synchronized Adopted adopt(long checkpoint) {
+        val adjustments = new HashMap<UUID, Long>();
+
+        try {
+            if (!tryLock()) {
+                return null;
+            }
+
+            return new Adopted(adjustments, readAfter(checkpoint, adjustments));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Inventory journal " + directory.resolve(name) + " could not be adopted", e);
+        }
+    }
+
+    // Deletes the generations covered by the checkpoint and returns the last generation read
+    private long readAfter(long checkpoint, Map<UUID, Long> adjustments) throws IOException {
+        var lastGeneration = checkpoint;
+
+        for (val file : generationFiles()) {
+            val fileGeneration = generationOf(file);
+
+            if (fileGeneration <= checkpoint) {
+                Files.delete(file);
+                continue;
+            }
+
+            readInto(file, adjustments);
+            lastGeneration = Math.max(lastGeneration, fileGeneration);
+        }
+
+        return lastGeneration;
+    }
+
+    // File locks are held per process, a second journal of the same name in this process counts as another instance
+    private boolean tryLock() throws IOException {
+        lockChannel = FileChannel.open(directory.resolve(name + ".lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+
+        try {
+            if (lockChannel.tryLock() != null) {
+                return true;
+            }
+        } catch (OverlappingFileLockException e) {
+            // Locked by this process
+        }
+
+        lockChannel.close();
+        lockChannel = null;
+        return false;
+    }
+
+    // Safe to call concurrently, but not together with rotate()
+    void append(UUID beerId, long delta) {
+        val record = ByteBuffer.wrap((beerId + " " + delta + "\n").getBytes(StandardCharsets.US_ASCII));
+
+        try {
+            val current = channel;
+            while (record.hasRemaining()) {
+                current.write(record);
+            }
+            val sequence = written.incrementAndGet();
+            if (syncWrites) {
+                sync(current, sequence);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Inventory adjustment could not be journaled", e);
+        }
+    }
+
+    // Returns once the record with the given sequence is on disk. The append that takes the lock first forces the
+    // records of every append written before it, the appends that waited behind it find theirs covered.
+    private void sync(FileChannel current, long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return;
+            }
+
+            val through = written.get();
+            current.force(false);
+            synced = through;
+        }
+    }
+
+    // Closes the current generation and returns its number; later appends go to the next generation
+    synchronized long rotate() {
+        try {
+            channel.force(false);
+            synchronized (syncLock) {
+                synced = written.get();
+            }
+            channel.close();
+            channel = open(generation + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Inventory journal could not be rotated", e);
+        }
+
+        return generation++;
+    }
+
+    synchronized void discardThrough(long lastGeneration) {
+        try {
+            for (val file : generationFiles()) {
+                if (generationOf(file) <= lastGeneration) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException e) {
+            // Harmless, the checkpoint makes recovery skip these generations
+            log.warn("Applied inventory journal generations could not be deleted", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        if (lockChannel != null) {
+            lockChannel.close();
+        }
+    }
+
+    private FileChannel open(long fileGeneration) throws IOException {
+        return FileChannel.open(directory.resolve(name + "-" + fileGeneration + ".journal"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> generationFiles() throws IOException {
+        try (val files = Files.list(directory)) {
+            return files.filter(file -> fileNamePattern.matcher(file.getFileName().toString()).matches()).toList();
+        }
+    }
+
+    private long generationOf(Path file) {
+        val matcher = fileNamePattern.matcher(file.getFileName().toString());
+        matcher.matches();
+
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private void readInto(Path file, Map<UUID, Long> adjustments) throws IOException {
+        val content = Files.readString(file, StandardCharsets.US_ASCII);
+        // A record without its newline was torn by a crash and never acknowledged
+        val complete = content.substring(0, content.lastIndexOf('\n') + 1);
+
+        complete.lines().forEach(line -> {
+            val separator = line.indexOf(' ');
+            try {
+                adjustments.merge(UUID.fromString(line.substring(0, separator)),
+                        Long.parseLong(line.substring(separator + 1)), Long::sum);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                log.warn("Skipping unreadable inventory journal record '{}' in {}", line, file);
+            }
+        });
+    }
+}
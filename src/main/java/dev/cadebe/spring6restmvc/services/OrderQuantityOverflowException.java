@@ -0,0 +1,8 @@
+package dev.cadebe.spring6restmvc.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Order quantity too large")
+public class OrderQuantityOverflowException extends RuntimeException {
+}
@@ -0,0 +1,16 @@
+package dev.cadebe.spring6restmvc.services;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import dev.cadebe.spring6restmvc.data.OutboxEventEntity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record OutboxEvent(UUID id, String aggregateType, UUID aggregateId, String eventType,
+                          @JsonRawValue String payload, LocalDateTime createdDate) {
+
+    static OutboxEvent of(OutboxEventEntity entity) {
+        return new OutboxEvent(entity.getId(), entity.getAggregateType(), entity.getAggregateId(),
+                entity.getEventType(), entity.getPayload(), entity.getCreatedDate());
+    }
+}
@@ -0,0 +1,60 @@
+package dev.cadebe.spring6restmvc.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.cadebe.spring6restmvc.data.OutboxEventEntity;
+import dev.cadebe.spring6restmvc.repositories.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+// Appends every change event to the outbox just before the transaction that made the change commits, so the event
+// is stored if and only if the change is. Events published outside a transaction are not written.
+@Component
+@RequiredArgsConstructor
+public class OutboxEventWriter {
+
+    static final String BEER = "BEER";
+    static final String CUSTOMER = "CUSTOMER";
+    static final String BEER_ORDER = "BEER_ORDER";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void beerChanged(BeerChangedEvent event) {
+        append(BEER, event.beerId(), event.changeType().name(), event.beer());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void customerChanged(CustomerChangedEvent event) {
+        append(CUSTOMER, event.customerId(), event.changeType().name(), event.customer());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void beerOrderPlaced(BeerOrderPlacedEvent event) {
+        append(BEER_ORDER, event.beerOrder().getId(), "PLACED", event.beerOrder());
+    }
+
+    // Inserted with the transaction's other inserts, as part of the flush on commit
+    private void append(String aggregateType, UUID aggregateId, String eventType, Object payload) {
+        outboxEventRepository.save(OutboxEventEntity.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .eventType(eventType)
+                .payload(payload == null ? null : toJson(payload))
+                .build());
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Outbox payload could not be serialized", e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.OutboxProperties;
+import dev.cadebe.spring6restmvc.data.OutboxEventEntity;
+import dev.cadebe.spring6restmvc.repositories.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Drains the outbox into the sink in batches. Each batch is locked, published and deleted in one transaction, and
+// rows locked by a relay on another instance are skipped, so every instance can run a relay.
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxProperties properties;
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter relayedEvents;
+    private final Timer successfulBatches;
+    private final Timer failedBatches;
+    private final DistributionSummary batchSizes;
+    private final Timer lag;
+
+    public OutboxRelay(OutboxProperties properties, OutboxEventRepository outboxEventRepository, OutboxSink sink,
+                       TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+
+        relayedEvents = Counter.builder("outbox.relayed")
+                .description("Outbox events accepted by the sink")
+                .register(meterRegistry);
+
+        successfulBatches = batchTimer(meterRegistry, "success");
+        failedBatches = batchTimer(meterRegistry, "failure");
+
+        batchSizes = DistributionSummary.builder("outbox.relay.batch")
+                .description("Outbox events relayed by one batch")
+                .register(meterRegistry);
+
+        lag = Timer.builder("outbox.relay.lag")
+                .description("Time from a change until its outbox event was relayed")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static Timer batchTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("outbox.relay")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval:PT0.5S}")
+    public void scheduledRelay() {
+        if (properties.getRelay().isEnabled()) {
+            relay();
+        }
+    }
+
+    // Returns the number of events relayed
+    public synchronized int relay() {
+        val batchSize = properties.getRelay().getBatchSize();
+        var relayed = 0;
+
+        for (int i = 0; i < properties.getRelay().getMaxBatchesPerRun(); i++) {
+            val batch = relayBatch(batchSize);
+            relayed += batch;
+
+            if (batch < batchSize) {
+                break;
+            }
+        }
+
+        return relayed;
+    }
+
+    private int relayBatch(int batchSize) {
+        val started = System.nanoTime();
+        List<OutboxEvent> events;
+
+        try {
+            events = transactionTemplate.execute(status -> {
+                val batch = outboxEventRepository.findNextBatchForUpdate(batchSize);
+                if (batch.isEmpty()) {
+                    return List.of();
+                }
+
+                val relayedEvents = batch.stream().map(OutboxEvent::of).toList();
+                sink.publish(relayedEvents);
+                outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEventEntity::getId).toList());
+
+                return relayedEvents;
+            });
+        } catch (RuntimeException e) {
+            failedBatches.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            log.warn("Outbox relay failed, retrying with the next run", e);
+            return 0;
+        }
+
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+
+        successfulBatches.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        relayedEvents.increment(events.size());
+        batchSizes.record(events.size());
+
+        val now = LocalDateTime.now();
+        events.forEach(event -> lag.record(Duration.between(event.createdDate(), now)));
+
+        return events.size();
+    }
+}
@@ -0,0 +1,11 @@
+package dev.cadebe.spring6restmvc.services;
+
+import java.util.List;
+
+// Destination of relayed outbox events. Delivery is at least once: if the relay cannot delete a batch after the sink
+// accepted it, the batch is offered again, so consumers deduplicate by event id.
+public interface OutboxSink {
+
+    // Throws if the batch was not accepted, which leaves it in the outbox for the next run
+    void publish(List<OutboxEvent> events);
+}
@@ -0,0 +1,104 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Times every BeerService, CustomerService and BeerOrderService call, including the wait for database admission. Percentile histograms
+// and SLO boundaries for service.operations are configured under management.metrics.distribution.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ServiceOperationTimer {
+
+    static final String METRIC_NAME = "service.operations";
+
+    static final Set<String> NAME_FILTER_PARAMETERS = Set.of("beerName", "query");
+
+    // Positions of the name and style filter arguments per method, -1 when the method has none
+    record FilterArguments(int name, int style) {
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, FilterArguments> filterArguments = new ConcurrentHashMap<>();
+
+    @Around("execution(* dev.cadebe.spring6restmvc.services.BeerService.*(..)) " +
+            "|| execution(* dev.cadebe.spring6restmvc.services.CustomerService.*(..)) " +
+            "|| execution(* dev.cadebe.spring6restmvc.services.BeerOrderService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        val signature = (MethodSignature) joinPoint.getSignature();
+        val sample = Timer.start(meterRegistry);
+        var outcome = "error";
+        var exception = "none";
+
+        try {
+            val result = joinPoint.proceed();
+            outcome = outcome(result);
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .description("Time spent in service operations")
+                    .tag("service", signature.getDeclaringType().getSimpleName())
+                    .tag("operation", signature.getName())
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .tag("filter", filterShape(signature, joinPoint.getArgs()).tagValue())
+                    .register(meterRegistry));
+        }
+    }
+
+    static String outcome(Object result) {
+        if (result instanceof Optional<?> optional && optional.isEmpty()
+                || Boolean.FALSE.equals(result)
+                || result == ConditionalWriteResult.NOT_FOUND) {
+            return "not_found";
+        }
+
+        if (result == ConditionalWriteResult.VERSION_MISMATCH) {
+            return "version_mismatch";
+        }
+
+        return "success";
+    }
+
+    private FilterShape filterShape(MethodSignature signature, Object[] args) {
+        val positions = filterArguments.computeIfAbsent(signature.getMethod(), method -> {
+            val names = signature.getParameterNames();
+            val types = signature.getParameterTypes();
+            var name = -1;
+            var style = -1;
+
+            for (int i = 0; i < types.length; i++) {
+                if (types[i] == String.class && names != null && NAME_FILTER_PARAMETERS.contains(names[i])) {
+                    name = i;
+                } else if (types[i] == BeerStyle.class) {
+                    style = i;
+                }
+            }
+
+            return new FilterArguments(name, style);
+        });
+
+        return FilterShape.of(positions.name() < 0 ? null : (String) args[positions.name()],
+                positions.style() < 0 ? null : args[positions.style()]);
+    }
+}
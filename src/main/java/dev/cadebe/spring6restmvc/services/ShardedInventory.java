@@ -0,0 +1,317 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.InventoryShardingProperties;
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.data.BeerInventoryShardEntity;
+import dev.cadebe.spring6restmvc.data.BeerInventoryShardId;
+import dev.cadebe.spring6restmvc.repositories.BeerInventoryShardRepository;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Stock allocation for beers that may have their quantity on hand spread over inventory shards. A beer whose
+// allocations keep overlapping is promoted: its stock moves from the beer row into several shard rows, and each
+// allocation takes from a random shard, so concurrent orders mostly lock different rows. A sharded beer that has
+// gone quiet is demoted back to its single row.
+@Slf4j
+@Component
+public class ShardedInventory {
+
+    private final InventoryShardingProperties properties;
+    private final BeerRepository beerRepository;
+    private final BeerInventoryShardRepository shardRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    // Shard count of each sharded beer as last seen here. Other instances promote and demote too, so an allocation
+    // checks the database before it reports a beer as out of stock.
+    private final Map<UUID, Integer> shardedBeers = new ConcurrentHashMap<>();
+    // Only beers with an allocation whose transaction is still open have an entry
+    private final Map<UUID, Integer> allocationsInFlight = new ConcurrentHashMap<>();
+    private volatile Map<UUID, AllocationCounts> allocationCounts = new ConcurrentHashMap<>();
+
+    private final Counter rowAllocations;
+    private final Counter shardAllocations;
+    private final Counter collapsedAllocations;
+    private final Counter promotions;
+    private final Counter demotions;
+
+    private record AllocationCounts(LongAdder allocations, LongAdder contended) {
+
+        AllocationCounts() {
+            this(new LongAdder(), new LongAdder());
+        }
+    }
+
+    public ShardedInventory(InventoryShardingProperties properties, BeerRepository beerRepository,
+                            BeerInventoryShardRepository shardRepository, EntityManager entityManager,
+                            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.beerRepository = beerRepository;
+        this.shardRepository = shardRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+
+        rowAllocations = allocationCounter(meterRegistry, "row");
+        shardAllocations = allocationCounter(meterRegistry, "shard");
+        collapsedAllocations = allocationCounter(meterRegistry, "collapsed");
+
+        promotions = Counter.builder("inventory.shards.promotions")
+                .description("Beers whose stock was spread over inventory shards")
+                .register(meterRegistry);
+
+        demotions = Counter.builder("inventory.shards.demotions")
+                .description("Beers whose inventory shards were collapsed into the beer row")
+                .register(meterRegistry);
+
+        Gauge.builder("inventory.shards.beers", shardedBeers, Map::size)
+                .description("Beers currently allocated from inventory shards")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadShardedBeers() {
+        shardRepository.findShardedBeers()
+                .forEach(beer -> shardedBeers.put(beer.getBeerId(), (int) beer.getShards()));
+    }
+
+    private static Counter allocationCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("inventory.allocations")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    public boolean isSharded(UUID beerId) {
+        return shardedBeers.containsKey(beerId);
+    }
+
+    // Must run inside the caller's transaction, whose rollback releases the allocation again
+    public boolean allocate(UUID beerId, int quantity) {
+        recordAllocation(beerId);
+
+        var shards = shardedBeers.get(beerId);
+
+        if (shards != null && allocateFromShards(beerId, shards, quantity)) {
+            shardAllocations.increment();
+            return true;
+        }
+
+        // Unsharded beers, and stock added to a sharded beer's row since its promotion
+        if (beerRepository.allocateStock(beerId, quantity) > 0) {
+            rowAllocations.increment();
+            return true;
+        }
+
+        if (shards == null) {
+            shards = (int) shardRepository.countByBeerId(beerId);
+            if (shards == 0) {
+                return false;
+            }
+
+            shardedBeers.put(beerId, shards);
+            if (allocateFromShards(beerId, shards, quantity)) {
+                shardAllocations.increment();
+                return true;
+            }
+        }
+
+        // No single shard holds enough, but together they might
+        if (demote(beerId) > 0 && beerRepository.allocateStock(beerId, quantity) > 0) {
+            collapsedAllocations.increment();
+            return true;
+        }
+
+        return false;
+    }
+
+    // An absolute quantity on hand replaces whatever stock the shards hold. The allocations they counted stay part
+    // of the beer's version.
+    public boolean discardShards(UUID beerId) {
+        val shards = shardRepository.findAllForUpdateByBeerId(beerId);
+
+        if (shards.isEmpty()) {
+            return false;
+        }
+
+        shardRepository.deleteAllByBeerId(beerId);
+        beerRepository.moveStock(beerId, 0, generation(shards), false);
+        shardedBeers.remove(beerId);
+
+        return true;
+    }
+
+    // Reloads a beer loaded before its shards were discarded, so that it is saved with the version they left it
+    public void discardShards(BeerEntity beer) {
+        if (discardShards(beer.getId())) {
+            entityManager.refresh(beer);
+        }
+    }
+
+    // Adds what the shards of a sharded beer hold to the beer as loaded from its row, for the totals clients see
+    public BeerEntity loadShardTotals(BeerEntity beer) {
+        if (beer != null && beer.isSharded()) {
+            val totals = shardRepository.findTotalsByBeerId(beer.getId());
+            beer.setShardedQuantityOnHand(totals.getQuantity());
+            beer.setShardGeneration(totals.getGeneration());
+        }
+
+        return beer;
+    }
+
+    public boolean promote(UUID beerId) {
+        val shards = properties.getShards();
+
+        val promoted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            val beer = beerRepository.findForUpdateById(beerId).orElse(null);
+
+            if (beer == null || beer.isSharded()) {
+                return false;
+            }
+
+            val quantity = Objects.requireNonNullElse(beer.getQuantityOnHand(), 0);
+
+            if (quantity < shards * properties.getMinimumQuantityPerShard()) {
+                return false;
+            }
+
+            for (int shard = 0; shard < shards; shard++) {
+                entityManager.persist(BeerInventoryShardEntity.builder()
+                        .id(new BeerInventoryShardId(beerId, shard))
+                        .quantity(quantity / shards + (shard < quantity % shards ? 1 : 0))
+                        .build());
+            }
+            beerRepository.moveStock(beerId, -quantity, 0, true);
+
+            return true;
+        }));
+
+        if (promoted) {
+            shardedBeers.put(beerId, shards);
+            promotions.increment();
+            log.info("Spread the stock of beer {} over {} inventory shards", beerId, shards);
+        }
+
+        return promoted;
+    }
+
+    // Returns the quantity moved back into the beer row
+    public int demote(UUID beerId) {
+        val quantity = Objects.requireNonNull(transactionTemplate.execute(status -> {
+            val shards = shardRepository.findAllForUpdateByBeerId(beerId);
+
+            if (shards.isEmpty()) {
+                return 0;
+            }
+
+            val sum = shards.stream().mapToInt(shard -> Objects.requireNonNullElse(shard.getQuantity(), 0)).sum();
+            shardRepository.deleteAllByBeerId(beerId);
+            beerRepository.moveStock(beerId, sum, generation(shards), false);
+
+            return sum;
+        }));
+
+        if (shardedBeers.remove(beerId) != null) {
+            demotions.increment();
+            log.info("Collapsed the inventory shards of beer {}", beerId);
+        }
+
+        return quantity;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.sharding.evaluation-interval:PT10S}")
+    public void rebalance() {
+        val counts = allocationCounts;
+        allocationCounts = new ConcurrentHashMap<>();
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        // Beers promoted below have not been sharded for a whole interval yet
+        val shardedBefore = List.copyOf(shardedBeers.keySet());
+
+        counts.forEach((beerId, count) -> {
+            if (!shardedBeers.containsKey(beerId) && count.contended().sum() >= properties.getPromoteAtContendedAllocations()) {
+                runLogged(() -> promote(beerId), beerId);
+            }
+        });
+
+        shardedBefore.forEach(beerId -> {
+            val count = counts.get(beerId);
+            if (count == null || count.allocations().sum() < properties.getDemoteBelowAllocations()) {
+                runLogged(() -> demote(beerId), beerId);
+            }
+        });
+    }
+
+    private static int generation(List<BeerInventoryShardEntity> shards) {
+        return shards.stream().mapToInt(shard -> Objects.requireNonNullElse(shard.getGeneration(), 0)).sum();
+    }
+
+    // A random shard first, so that concurrent allocations mostly lock different rows. A failed conditional update
+    // keeps its lock until the transaction ends, so the rest are probed in shard order like every other statement
+    // that locks more than one shard. Only the first try can be out of that order, see BeerOrderServiceJpa.
+    private boolean allocateFromShards(UUID beerId, int shards, int quantity) {
+        val first = ThreadLocalRandom.current().nextInt(shards);
+
+        if (shardRepository.allocateStock(beerId, first, quantity) > 0) {
+            return true;
+        }
+
+        for (int shard = 0; shard < shards; shard++) {
+            if (shard != first && shardRepository.allocateStock(beerId, shard, quantity) > 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // An allocation holds its row lock until the transaction ends, so that is how long it counts as in flight
+    private void recordAllocation(UUID beerId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                allocationsInFlight.computeIfPresent(beerId, (id, inFlight) -> inFlight > 1 ? inFlight - 1 : null);
+            }
+        });
+        val contended = allocationsInFlight.merge(beerId, 1, Integer::sum) > 1;
+
+        val counts = allocationCounts.computeIfAbsent(beerId, id -> new AllocationCounts());
+        counts.allocations().increment();
+        if (contended) {
+            counts.contended().increment();
+        }
+    }
+
+    boolean hasAllocationsInFlight(UUID beerId) {
+        return allocationsInFlight.containsKey(beerId);
+    }
+
+    private static void runLogged(Runnable action, UUID beerId) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.warn("Rebalancing the inventory shards of beer {} failed", beerId, e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package dev.cadebe.spring6restmvc.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.UNPROCESSABLE_ENTITY, reason = "Unknown customer or beer")
+public class UnknownOrderReferenceException extends RuntimeException {
+}
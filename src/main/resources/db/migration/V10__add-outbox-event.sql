@@ -0,0 +1,12 @@
+-- Changes waiting to be relayed to downstream systems, see OutboxRelay. Rows are deleted once relayed.
+
+create table outbox_event
+(
+    id             binary(16)  not null,
+    aggregate_type varchar(20) not null,
+    aggregate_id   binary(16)  not null,
+    event_type     varchar(20) not null,
+    payload        text        default null,
+    created_date   datetime(6) default null,
+    primary key (id)
+) engine = InnoDB;
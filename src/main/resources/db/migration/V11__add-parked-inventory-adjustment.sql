@@ -0,0 +1,11 @@
+-- Net inventory deltas the quantity_on_hand of their beer could not take when they were flushed. Written in the same
+-- transaction as the journal checkpoint that covers them, and deleted once replayed onto the beer.
+
+create table parked_inventory_adjustment
+(
+    id           binary(16)  not null,
+    beer_id      binary(16)  not null,
+    delta        integer     not null,
+    created_date datetime(6) default null,
+    primary key (id)
+) engine = InnoDB;
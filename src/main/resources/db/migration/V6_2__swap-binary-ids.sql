@@ -0,0 +1,91 @@
+-- Last step of the binary(16) key conversion, see V6. The shadow columns are complete by now, so this only swaps them
+-- in and restores the primary, unique and foreign keys. Instances of the previous release must be stopped before it
+-- runs because their varchar ids stop matching, but no data is converted while they are down. The varchar unique keys
+-- on foreign key columns go with their columns and are not put back, see V7.
+
+drop trigger beer_id_bin_insert;
+drop trigger beer_id_bin_update;
+drop trigger customer_id_bin_insert;
+drop trigger customer_id_bin_update;
+drop trigger category_id_bin_insert;
+drop trigger category_id_bin_update;
+drop trigger beer_order_id_bin_insert;
+drop trigger beer_order_id_bin_update;
+drop trigger beer_order_line_id_bin_insert;
+drop trigger beer_order_line_id_bin_update;
+drop trigger beer_order_shipment_id_bin_insert;
+drop trigger beer_order_shipment_id_bin_update;
+drop trigger beer_category_id_bin_insert;
+drop trigger beer_category_id_bin_update;
+
+alter table beer_order
+    drop foreign key beer_order_ibfk_1,
+    drop foreign key beer_order_ibfk_2;
+alter table beer_order_line
+    drop foreign key beer_order_line_ibfk_1,
+    drop foreign key beer_order_line_ibfk_2;
+alter table beer_order_shipment
+    drop foreign key beer_order_shipment_ibfk_1;
+alter table beer_category
+    drop foreign key beer_category_ibfk_1,
+    drop foreign key beer_category_ibfk_2;
+
+alter table beer
+    drop primary key,
+    drop column id,
+    change column id_bin id binary(16) not null,
+    add primary key (id);
+alter table customer
+    drop primary key,
+    drop column id,
+    change column id_bin id binary(16) not null,
+    add primary key (id);
+alter table category
+    drop primary key,
+    drop column id,
+    change column id_bin id binary(16) not null,
+    add primary key (id);
+alter table beer_order
+    drop primary key,
+    drop column id,
+    drop column customer_id,
+    drop column beer_order_shipment_id,
+    change column id_bin id binary(16) not null,
+    change column customer_id_bin customer_id binary(16) not null,
+    change column beer_order_shipment_id_bin beer_order_shipment_id binary(16),
+    add primary key (id);
+alter table beer_order_line
+    drop primary key,
+    drop column id,
+    drop column beer_id,
+    drop column beer_order_id,
+    change column id_bin id binary(16) not null,
+    change column beer_id_bin beer_id binary(16) not null,
+    change column beer_order_id_bin beer_order_id binary(16) not null,
+    add primary key (id);
+alter table beer_order_shipment
+    drop primary key,
+    drop column id,
+    drop column beer_order_id,
+    change column id_bin id binary(16) not null,
+    change column beer_order_id_bin beer_order_id binary(16) not null unique,
+    add primary key (id);
+alter table beer_category
+    drop primary key,
+    drop column beer_id,
+    drop column category_id,
+    change column beer_id_bin beer_id binary(16) not null,
+    change column category_id_bin category_id binary(16) not null,
+    add primary key (beer_id, category_id);
+
+alter table beer_order
+    add constraint beer_order_customer_fk foreign key (customer_id) references customer (id),
+    add constraint beer_order_shipment_fk foreign key (beer_order_shipment_id) references beer_order_shipment (id);
+alter table beer_order_line
+    add constraint beer_order_line_beer_fk foreign key (beer_id) references beer (id),
+    add constraint beer_order_line_beer_order_fk foreign key (beer_order_id) references beer_order (id);
+alter table beer_order_shipment
+    add constraint beer_order_shipment_beer_order_fk foreign key (beer_order_id) references beer_order (id);
+alter table beer_category
+    add constraint beer_category_beer_fk foreign key (beer_id) references beer (id),
+    add constraint beer_category_category_fk foreign key (category_id) references category (id);
@@ -0,0 +1,74 @@
+-- First of three steps converting every varchar(36) key to binary(16) without stopping the previous release:
+--   V6   adds nullable binary(16) shadow columns and triggers that fill them on every insert and update,
+--   V6_1 backfills the rows written before V6 in small batches, see db.migration.V6_1__BackfillBinaryIds,
+--   V6_2 swaps the shadow columns in as keys.
+-- Apply up to 6.1 (flyway -target=6.1 migrate) while the previous release is still serving, then roll out this
+-- release, which applies 6.2 on startup. Adding nullable columns is an instant change on MySQL 8.
+
+alter table beer
+    add column id_bin binary(16);
+alter table customer
+    add column id_bin binary(16);
+alter table category
+    add column id_bin binary(16);
+alter table beer_order
+    add column id_bin binary(16),
+    add column customer_id_bin binary(16),
+    add column beer_order_shipment_id_bin binary(16);
+alter table beer_order_line
+    add column id_bin binary(16),
+    add column beer_id_bin binary(16),
+    add column beer_order_id_bin binary(16);
+alter table beer_order_shipment
+    add column id_bin binary(16),
+    add column beer_order_id_bin binary(16);
+alter table beer_category
+    add column beer_id_bin binary(16),
+    add column category_id_bin binary(16);
+
+create trigger beer_id_bin_insert before insert on beer for each row
+    set new.id_bin = uuid_to_bin(new.id);
+create trigger beer_id_bin_update before update on beer for each row
+    set new.id_bin = uuid_to_bin(new.id);
+
+create trigger customer_id_bin_insert before insert on customer for each row
+    set new.id_bin = uuid_to_bin(new.id);
+create trigger customer_id_bin_update before update on customer for each row
+    set new.id_bin = uuid_to_bin(new.id);
+
+create trigger category_id_bin_insert before insert on category for each row
+    set new.id_bin = uuid_to_bin(new.id);
+create trigger category_id_bin_update before update on category for each row
+    set new.id_bin = uuid_to_bin(new.id);
+
+create trigger beer_order_id_bin_insert before insert on beer_order for each row
+    set new.id_bin = uuid_to_bin(new.id),
+        new.customer_id_bin = uuid_to_bin(new.customer_id),
+        new.beer_order_shipment_id_bin = uuid_to_bin(new.beer_order_shipment_id);
+create trigger beer_order_id_bin_update before update on beer_order for each row
+    set new.id_bin = uuid_to_bin(new.id),
+        new.customer_id_bin = uuid_to_bin(new.customer_id),
+        new.beer_order_shipment_id_bin = uuid_to_bin(new.beer_order_shipment_id);
+
+create trigger beer_order_line_id_bin_insert before insert on beer_order_line for each row
+    set new.id_bin = uuid_to_bin(new.id),
+        new.beer_id_bin = uuid_to_bin(new.beer_id),
+        new.beer_order_id_bin = uuid_to_bin(new.beer_order_id);
+create trigger beer_order_line_id_bin_update before update on beer_order_line for each row
+    set new.id_bin = uuid_to_bin(new.id),
+        new.beer_id_bin = uuid_to_bin(new.beer_id),
+        new.beer_order_id_bin = uuid_to_bin(new.beer_order_id);
+
+create trigger beer_order_shipment_id_bin_insert before insert on beer_order_shipment for each row
+    set new.id_bin = uuid_to_bin(new.id),
+        new.beer_order_id_bin = uuid_to_bin(new.beer_order_id);
+create trigger beer_order_shipment_id_bin_update before update on beer_order_shipment for each row
+    set new.id_bin = uuid_to_bin(new.id),
+        new.beer_order_id_bin = uuid_to_bin(new.beer_order_id);
+
+create trigger beer_category_id_bin_insert before insert on beer_category for each row
+    set new.beer_id_bin = uuid_to_bin(new.beer_id),
+        new.category_id_bin = uuid_to_bin(new.category_id);
+create trigger beer_category_id_bin_update before update on beer_category for each row
+    set new.beer_id_bin = uuid_to_bin(new.beer_id),
+        new.category_id_bin = uuid_to_bin(new.category_id);
@@ -0,0 +1,21 @@
+-- Secondary indexes for the repository finders, see QueryPlanTest. The unique keys V3/V4 put on foreign key columns
+-- limited a customer to one order, an order and a beer to one order line and a beer to one category; V6 dropped them
+-- with the varchar columns, and these indexes take over from the ones MySQL created for the foreign keys. The keyset
+-- order is beer_name, id; InnoDB appends the primary key to beer_name_idx anyway, H2 only sorts by what it lists.
+
+alter table beer
+    add index beer_style_beer_name_idx (beer_style, beer_name),
+    add index beer_name_idx (beer_name, id);
+
+alter table customer
+    add index customer_email_idx (email);
+
+alter table beer_order
+    add index beer_order_customer_id_idx (customer_id);
+
+alter table beer_order_line
+    add index beer_order_line_beer_order_id_idx (beer_order_id),
+    add index beer_order_line_beer_id_idx (beer_id);
+
+alter table beer_category
+    add index beer_category_category_id_idx (category_id, beer_id);
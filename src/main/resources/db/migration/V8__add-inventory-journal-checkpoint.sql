@@ -0,0 +1,10 @@
+-- Last inventory journal generation applied by each write-behind buffer, updated in the same transaction as the
+-- quantity_on_hand changes it covers.
+
+create table inventory_journal_checkpoint
+(
+    journal_name varchar(100) not null,
+    generation   bigint      default null,
+    updated_date datetime(6) default null,
+    primary key (journal_name)
+) engine = InnoDB;
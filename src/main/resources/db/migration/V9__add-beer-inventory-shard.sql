@@ -0,0 +1,19 @@
+-- Stock of hot beers spread over several rows, see ShardedInventory. While a beer has shards its quantity on hand is
+-- beer.quantity_on_hand plus the sum of its shards, and its version counts the allocations taken from each shard.
+-- List versions read the latest shard update, see BeerProjectionRepositoryImpl.findListVersion().
+
+alter table beer
+    add column sharded boolean not null default false;
+
+create table beer_inventory_shard
+(
+    beer_id      binary(16)  not null,
+    shard        integer     not null,
+    quantity     integer     default null,
+    generation   integer     not null default 0,
+    updated_date datetime(6) default null,
+    primary key (beer_id, shard),
+    constraint beer_inventory_shard_beer_fk foreign key (beer_id) references beer (id) on delete cascade
+) engine = InnoDB;
+
+create index beer_inventory_shard_updated_date_idx on beer_inventory_shard (updated_date);
@@ -0,0 +1,209 @@
+package db.migration;
+
+import lombok.val;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs V1 to the latest migration against MySQL 8 seeded with -Dmigration.beers rows (default 100,000) at V5, writing
+// more rows between V6 and V6.1 as the previous release would during a rolling deploy. Prints the beer and customer
+// table sizes and primary key lookup throughput before and after the binary(16) key conversion.
+@Testcontainers(disabledWithoutDocker = true)
+class BinaryIdMigrationIT {
+
+    static final int BEERS = Integer.getInteger("migration.beers", 100_000);
+    static final int LOOKUPS = 20_000;
+    static final int BATCH_SIZE = 1000;
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0")
+            .withDatabaseName("restdb")
+            .withUrlParam("rewriteBatchedStatements", "true");
+
+    record TableSize(String table, long rows, long dataLength, long indexLength) {
+    }
+
+    @Test
+    void shouldConvertSeededKeysToBinaryWithoutLosingRows() throws SQLException {
+        migrate("5");
+
+        List<UUID> beerIds;
+        try (val connection = connect()) {
+            beerIds = seed(connection, BEERS);
+            report("varchar(36) keys", connection, beerIds, "?");
+        }
+
+        migrate("6");
+
+        // Written by the previous release while V6.1 has not run yet, the V6 triggers fill their shadow columns
+        try (val connection = connect()) {
+            beerIds.addAll(seed(connection, BATCH_SIZE));
+        }
+
+        migrate("6.1");
+
+        long customers;
+        try (val connection = connect()) {
+            assertThat(count(connection, "select count(*) from beer where id_bin is null")).isZero();
+            assertThat(count(connection, "select count(*) from customer where id_bin is null")).isZero();
+            customers = count(connection, "select count(*) from customer");
+        }
+
+        val started = System.nanoTime();
+        val result = flyway(null).migrate();
+        System.out.printf("V6.2 and later: %d migrations in %,d ms%n", result.migrationsExecuted,
+                (System.nanoTime() - started) / 1_000_000);
+
+        try (val connection = connect()) {
+            assertThat(count(connection, "select count(*) from beer")).isEqualTo(beerIds.size());
+            assertThat(count(connection, "select count(*) from customer")).isEqualTo(customers);
+            assertThat(columnType(connection, "beer", "id")).isEqualTo("binary(16)");
+            assertThat(columnType(connection, "customer", "id")).isEqualTo("binary(16)");
+
+            report("binary(16) keys", connection, beerIds, "uuid_to_bin(?)");
+        }
+
+        assertThat(flyway(null).info().pending()).isEmpty();
+    }
+
+    private static Flyway flyway(String target) {
+        val configuration = Flyway.configure()
+                .dataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword())
+                .locations("classpath:db/migration");
+
+        if (target != null) {
+            configuration.target(target);
+        }
+
+        return configuration.load();
+    }
+
+    private static void migrate(String target) {
+        flyway(target).migrate();
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+    }
+
+    // Beers and one customer per ten beers in the V5 schema, which every later schema up to V6.2 still accepts
+    private static List<UUID> seed(Connection connection, int beers) throws SQLException {
+        val beerIds = new ArrayList<UUID>(beers);
+        val now = Timestamp.valueOf(LocalDateTime.now());
+        connection.setAutoCommit(false);
+
+        try (val beer = connection.prepareStatement("insert into beer (id, beer_name, beer_style, upc, price, "
+                + "quantity_on_hand, version, created_date, updated_date) values (?, ?, ?, ?, ?, ?, 0, ?, ?)");
+             val customer = connection.prepareStatement("insert into customer (id, name, email, version, "
+                     + "created_date, updated_date) values (?, ?, ?, 0, ?, ?)")) {
+            for (int i = 0; i < beers; i++) {
+                val id = UUID.randomUUID();
+                beerIds.add(id);
+
+                beer.setString(1, id.toString());
+                beer.setString(2, "Migration Beer " + i);
+                beer.setInt(3, i % 12);
+                beer.setString(4, String.format("%013d", i));
+                beer.setBigDecimal(5, BigDecimal.valueOf(5 + i % 10));
+                beer.setInt(6, i % 500);
+                beer.setTimestamp(7, now);
+                beer.setTimestamp(8, now);
+                beer.addBatch();
+
+                if (i % 10 == 0) {
+                    customer.setString(1, UUID.randomUUID().toString());
+                    customer.setString(2, "Migration Customer " + i);
+                    customer.setString(3, "customer" + i + "@example.com");
+                    customer.setTimestamp(4, now);
+                    customer.setTimestamp(5, now);
+                    customer.addBatch();
+                }
+
+                if ((i + 1) % BATCH_SIZE == 0 || i == beers - 1) {
+                    beer.executeBatch();
+                    customer.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+
+        return beerIds;
+    }
+
+    private static void report(String label, Connection connection, List<UUID> beerIds, String idParameter)
+            throws SQLException {
+        for (val table : List.of("beer", "customer")) {
+            try (val statement = connection.createStatement()) {
+                statement.execute("analyze table " + table);
+            }
+
+            val size = tableSize(connection, table);
+            System.out.printf("%s, %-8s %,d rows: data %,d bytes, indexes %,d bytes%n", label, size.table(),
+                    size.rows(), size.dataLength(), size.indexLength());
+        }
+
+        val random = ThreadLocalRandom.current();
+        try (val lookup = connection.prepareStatement("select quantity_on_hand from beer where id = " + idParameter)) {
+            val started = System.nanoTime();
+
+            for (int i = 0; i < LOOKUPS; i++) {
+                lookup.setString(1, beerIds.get(random.nextInt(beerIds.size())).toString());
+                try (val resultSet = lookup.executeQuery()) {
+                    assertThat(resultSet.next()).isTrue();
+                }
+            }
+
+            val seconds = (System.nanoTime() - started) / 1e9;
+            System.out.printf("%s, %,d primary key lookups: %,.0f lookups/s%n", label, LOOKUPS, LOOKUPS / seconds);
+        }
+    }
+
+    private static TableSize tableSize(Connection connection, String table) throws SQLException {
+        try (val statement = connection.prepareStatement("select table_rows, data_length, index_length "
+                + "from information_schema.tables where table_schema = database() and table_name = ?")) {
+            statement.setString(1, table);
+
+            try (val resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return new TableSize(table, resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3));
+            }
+        }
+    }
+
+    private static String columnType(Connection connection, String table, String column) throws SQLException {
+        try (val statement = connection.prepareStatement("select column_type from information_schema.columns "
+                + "where table_schema = database() and table_name = ? and column_name = ?")) {
+            statement.setString(1, table);
+            statement.setString(2, column);
+
+            try (val resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    private static long count(Connection connection, String sql) throws SQLException {
+        try (val statement = connection.createStatement(); val resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
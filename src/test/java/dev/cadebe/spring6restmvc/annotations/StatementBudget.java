@@ -0,0 +1,30 @@
+package dev.cadebe.spring6restmvc.annotations;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Fails the test when a request to the endpoint, e.g. "GET /api/v1/beers/{beerId}", prepares more JDBC statements than
+// allowed, or when no request reaches it. Without an endpoint the budget applies to every request of the test.
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(StatementBudget.List.class)
+@ExtendWith(StatementBudgetExtension.class)
+public @interface StatementBudget {
+
+    int value();
+
+    String endpoint() default "";
+
+    @Target({ElementType.TYPE, ElementType.METHOD})
+    @Retention(RetentionPolicy.RUNTIME)
+    @ExtendWith(StatementBudgetExtension.class)
+    @interface List {
+
+        StatementBudget[] value();
+    }
+}
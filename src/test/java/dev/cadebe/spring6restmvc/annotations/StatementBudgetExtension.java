@@ -0,0 +1,95 @@
+package dev.cadebe.spring6restmvc.annotations;
+
+import dev.cadebe.spring6restmvc.config.RequestStatisticsEvent;
+import lombok.val;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Listens to the RequestStatisticsEvent of every request a test makes and checks it against the test's budgets
+public class StatementBudgetExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(StatementBudgetExtension.class);
+
+    static class BudgetListener implements ApplicationListener<PayloadApplicationEvent<?>> {
+
+        private final List<StatementBudget> budgets;
+        private final List<String> violations = new ArrayList<>();
+        private final Set<String> reached = new HashSet<>();
+
+        BudgetListener(List<StatementBudget> budgets) {
+            this.budgets = budgets;
+        }
+
+        @Override
+        public synchronized void onApplicationEvent(PayloadApplicationEvent<?> payloadEvent) {
+            if (!(payloadEvent.getPayload() instanceof RequestStatisticsEvent event)) {
+                return;
+            }
+
+            for (val budget : budgets) {
+                if (budget.endpoint().isEmpty() || budget.endpoint().equals(event.endpoint())) {
+                    reached.add(budget.endpoint());
+
+                    if (event.statistics().getStatements() > budget.value()) {
+                        violations.add("%s prepared %d statements, budget is %d (%s)".formatted(event.endpoint(),
+                                event.statistics().getStatements(), budget.value(), event.statistics().toHeaderValue()));
+                    }
+                }
+            }
+        }
+
+        synchronized List<String> failures() {
+            val failures = new ArrayList<>(violations);
+
+            budgets.stream()
+                    .filter(budget -> !reached.contains(budget.endpoint()))
+                    .forEach(budget -> failures.add("No request reached " +
+                            (budget.endpoint().isEmpty() ? "any endpoint" : budget.endpoint())));
+
+            return failures;
+        }
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        val budgets = new ArrayList<StatementBudget>(
+                AnnotationSupport.findRepeatableAnnotations(context.getRequiredTestMethod(), StatementBudget.class));
+        if (budgets.isEmpty()) {
+            budgets.addAll(AnnotationSupport.findRepeatableAnnotations(context.getRequiredTestClass(), StatementBudget.class));
+        }
+
+        val listener = new BudgetListener(budgets);
+        applicationContext(context).addApplicationListener(listener);
+        context.getStore(NAMESPACE).put(BudgetListener.class, listener);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        val listener = context.getStore(NAMESPACE).remove(BudgetListener.class, BudgetListener.class);
+        if (listener == null) {
+            return;
+        }
+
+        applicationContext(context).removeApplicationListener(listener);
+
+        val failures = listener.failures();
+        if (!failures.isEmpty()) {
+            throw new AssertionError("Statement budget exceeded:\n  " + String.join("\n  ", failures));
+        }
+    }
+
+    private static ConfigurableApplicationContext applicationContext(ExtensionContext context) {
+        return (ConfigurableApplicationContext) SpringExtension.getApplicationContext(context);
+    }
+}
@@ -1,35 +1,54 @@
 package dev.cadebe.spring6restmvc.bootstrap;
 
+import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
+import dev.cadebe.spring6restmvc.mappers.BeerMapperImpl;
 import dev.cadebe.spring6restmvc.repositories.BeerRepository;
 import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
-import dev.cadebe.spring6restmvc.services.BeerCsvService;
+import dev.cadebe.spring6restmvc.services.BeerCsvImportServiceImpl;
 import dev.cadebe.spring6restmvc.services.BeerCsvServiceImpl;
+import dev.cadebe.spring6restmvc.services.BeerNameIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.val;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
-import org.springframework.context.annotation.Import;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
 @DataJpaTest
-@Import(BeerCsvServiceImpl.class)
 class BootstrapDataTest {
 
     @Autowired
     BeerRepository beerRepository;
 
     @Autowired
-    BeerCsvService beerCsvService;
+    CustomerRepository customerRepository;
 
     @Autowired
-    CustomerRepository customerRepository;
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
 
     BootstrapData bootstrapData;
 
     @BeforeEach
     void setUp() {
-        bootstrapData = new BootstrapData(beerRepository, beerCsvService, customerRepository);
+        val beerCsvImportService = new BeerCsvImportServiceImpl(new BeerServiceProperties(), new BeerCsvServiceImpl(),
+                new BeerMapperImpl(), entityManager, new TransactionTemplate(transactionManager), eventPublisher,
+                new SimpleMeterRegistry());
+
+        bootstrapData = new BootstrapData(beerRepository, beerCsvImportService, customerRepository,
+                new BeerServiceProperties(), mock(BeerNameIndex.class));
     }
 
     @Test
@@ -0,0 +1,92 @@
+package dev.cadebe.spring6restmvc.bootstrap;
+
+import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
+import dev.cadebe.spring6restmvc.services.BeerCsvImportService;
+import dev.cadebe.spring6restmvc.services.BeerNameIndex;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BootstrapHealthIndicatorTest {
+
+    BeerRepository beerRepository = mock(BeerRepository.class);
+
+    BeerCsvImportService beerCsvImportService = mock(BeerCsvImportService.class);
+
+    CustomerRepository customerRepository = mock(CustomerRepository.class);
+
+    BeerServiceProperties beerServiceProperties = new BeerServiceProperties();
+
+    BeerNameIndex beerNameIndex = mock(BeerNameIndex.class);
+
+    BootstrapData bootstrapData;
+
+    BootstrapHealthIndicator healthIndicator;
+
+    @BeforeEach
+    void setUp() {
+        beerServiceProperties.getBootstrap().setAsync(true);
+        bootstrapData = new BootstrapData(beerRepository, beerCsvImportService, customerRepository, beerServiceProperties,
+                beerNameIndex);
+        healthIndicator = new BootstrapHealthIndicator(bootstrapData);
+    }
+
+    @Test
+    void shouldReportWarmingUntilSeedingHasFinished() throws Exception {
+        val importStarted = new CountDownLatch(1);
+        val releaseImport = new CountDownLatch(1);
+        when(beerCsvImportService.importCsv(any())).thenAnswer(invocation -> {
+            importStarted.countDown();
+            releaseImport.await();
+            return null;
+        });
+
+        bootstrapData.run();
+
+        assertThat(importStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(BootstrapHealthIndicator.WARMING);
+
+        releaseImport.countDown();
+        bootstrapData.getSeeded().get(5, TimeUnit.SECONDS);
+
+        val health = healthIndicator.health();
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsKey("seedTimeMs");
+        verify(beerRepository, times(1)).count();
+    }
+
+    @Test
+    void shouldRebuildNameIndexBeforeReportingSeeded() throws Exception {
+        doAnswer(invocation -> {
+            assertThat(bootstrapData.getSeeded()).isNotDone();
+            return null;
+        }).when(beerNameIndex).rebuild();
+
+        bootstrapData.run();
+        bootstrapData.getSeeded().get(5, TimeUnit.SECONDS);
+
+        verify(beerCsvImportService).importCsv(any());
+        verify(beerNameIndex).rebuild();
+    }
+
+    @Test
+    void shouldReportDownWhenSeedingFails() throws Exception {
+        when(beerRepository.count()).thenThrow(new IllegalStateException("database unavailable"));
+
+        bootstrapData.run();
+
+        assertThat(bootstrapData.getSeeded()).failsWithin(5, TimeUnit.SECONDS);
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.DOWN);
+        verify(beerNameIndex, never()).rebuild();
+    }
+}
@@ -0,0 +1,121 @@
+package dev.cadebe.spring6restmvc.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccessTokenServiceTest {
+
+    static final Instant NOW = Instant.parse("2024-10-01T12:00:00Z");
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldVerifyIssuedToken() {
+        val service = service(properties(Map.of("k1", secret(1))), NOW);
+
+        val token = service.issue(user());
+        val authentication = service.verify(token.accessToken());
+
+        assertThat(token.tokenType()).isEqualTo("Bearer");
+        assertThat(token.expiresIn()).isEqualTo(900);
+        assertThat(authentication).hasValueSatisfying(verified -> {
+            assertThat(verified.getName()).isEqualTo("user");
+            assertThat(verified.isAuthenticated()).isTrue();
+            assertThat(verified.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER");
+        });
+    }
+
+    @Test
+    void shouldRejectTamperedToken() {
+        val service = service(properties(Map.of("k1", secret(1))), NOW);
+        val token = service.issue(user()).accessToken();
+        val parts = token.split("\\.");
+        val elevated = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"sub\":\"user\",\"roles\":[\"ROLE_ADMIN\"],\"exp\":9999999999}".getBytes());
+
+        assertThat(service.verify(parts[0] + "." + elevated + "." + parts[2])).isEmpty();
+        assertThat(service.verify(token.substring(0, token.length() - 2))).isEmpty();
+        assertThat(service.verify("unknown." + parts[1] + "." + parts[2])).isEmpty();
+        assertThat(service.verify("not a token")).isEmpty();
+    }
+
+    @Test
+    void shouldRejectExpiredToken() {
+        val properties = properties(Map.of("k1", secret(1)));
+        val token = service(properties, NOW).issue(user()).accessToken();
+
+        assertThat(service(properties, NOW.plus(Duration.ofMinutes(14))).verify(token)).isPresent();
+        assertThat(service(properties, NOW.plus(Duration.ofMinutes(15))).verify(token)).isEmpty();
+    }
+
+    @Test
+    void shouldAcceptTokensOfPreviousKeyDuringRotation() {
+        val beforeRotation = service(properties(Map.of("k1", secret(1))), NOW);
+        val oldToken = beforeRotation.issue(user()).accessToken();
+
+        val rotating = properties(Map.of("k1", secret(1), "k2", secret(2)));
+        rotating.setSigningKeyId("k2");
+        val duringRotation = service(rotating, NOW);
+        val newToken = duringRotation.issue(user()).accessToken();
+
+        val afterRotation = service(properties(Map.of("k2", secret(2))), NOW);
+
+        assertThat(newToken).startsWith("k2.");
+        assertThat(duringRotation.verify(oldToken)).isPresent();
+        assertThat(afterRotation.verify(newToken)).isPresent();
+        assertThat(afterRotation.verify(oldToken)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectShortOrUnknownKeys() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service(properties(Map.of("k1", Base64.getEncoder().encodeToString(new byte[16]))), NOW));
+
+        val unknownSigningKey = properties(Map.of("k1", secret(1)));
+        unknownSigningKey.setSigningKeyId("k2");
+        assertThrows(IllegalArgumentException.class, () -> service(unknownSigningKey, NOW));
+    }
+
+    @Test
+    void shouldGenerateKeyWhenNoneConfigured() {
+        val service = service(new AccessTokenProperties(), NOW);
+
+        assertThat(service.verify(service.issue(user()).accessToken())).isPresent();
+        assertThat(service(new AccessTokenProperties(), NOW).verify(service.issue(user()).accessToken())).isEmpty();
+    }
+
+    AccessTokenService service(AccessTokenProperties properties, Instant now) {
+        return new AccessTokenService(properties, objectMapper, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    static AccessTokenProperties properties(Map<String, String> keys) {
+        val properties = new AccessTokenProperties();
+        properties.getKeys().putAll(new TreeMap<>(keys));
+        return properties;
+    }
+
+    static String secret(int seed) {
+        val bytes = new byte[32];
+        bytes[0] = (byte) seed;
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    static UsernamePasswordAuthenticationToken user() {
+        return UsernamePasswordAuthenticationToken.authenticated("user", null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+    }
+}
@@ -0,0 +1,133 @@
+package dev.cadebe.spring6restmvc.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.cadebe.spring6restmvc.controller.AccessTokenController;
+import dev.cadebe.spring6restmvc.model.AccessToken;
+import lombok.val;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.NestedTestConfiguration;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.test.context.NestedTestConfiguration.EnclosingConfiguration.OVERRIDE;
+
+// Sends -Dloadtest.requests authenticated requests per role with HTTP Basic with and without the verified credential
+// cache, and with bearer access tokens, and prints throughput and process CPU time per request
+@EnabledIfSystemProperty(named = "loadtest.requests", matches = "\\d+")
+class AuthenticationLoadIT {
+
+    static final int CONCURRENCY = 8;
+
+    record RoleRequest(String role, String username, String path) {
+    }
+
+    static final List<RoleRequest> ROLE_REQUESTS = List.of(
+            new RoleRequest(SecurityRoles.USER, "user", "/api/v1/customers?pageSize=1"),
+            new RoleRequest(SecurityRoles.ADMIN, "admin", "/api/v1/customers?pageSize=1"),
+            new RoleRequest(SecurityRoles.ACTUATOR, "actuator", "/actuator/info"));
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(webEnvironment = RANDOM_PORT, properties = "security.credential-cache.enabled=false")
+    class WithoutCache {
+
+        @LocalServerPort
+        int port;
+
+        @Test
+        void shouldAuthenticateEveryRole() throws Exception {
+            runLoad("bcrypt per request", port);
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(webEnvironment = RANDOM_PORT, properties = "security.credential-cache.enabled=true")
+    class WithCache {
+
+        @LocalServerPort
+        int port;
+
+        @Test
+        void shouldAuthenticateEveryRole() throws Exception {
+            runLoad("verified credential cache", port);
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(webEnvironment = RANDOM_PORT, properties = "security.credential-cache.enabled=false")
+    class WithAccessToken {
+
+        @LocalServerPort
+        int port;
+
+        @Test
+        void shouldAuthenticateEveryRole() throws Exception {
+            runLoad("bearer access token", port);
+        }
+    }
+
+    static void runLoad(String mode, int port) throws Exception {
+        val useToken = mode.startsWith("bearer");
+        val requests = Integer.getInteger("loadtest.requests");
+        val osBean = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        try (val client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             val executor = Executors.newFixedThreadPool(CONCURRENCY)) {
+            for (val roleRequest : ROLE_REQUESTS) {
+                val basic = "Basic " + Base64.getEncoder().encodeToString(
+                        (roleRequest.username() + ":" + roleRequest.username()).getBytes(StandardCharsets.UTF_8));
+                val authorization = useToken ? "Bearer " + issueToken(client, port, basic) : basic;
+                val request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + roleRequest.path()))
+                        .header("Authorization", authorization)
+                        .build();
+
+                // Warm up connections, JIT and, when enabled, the cache
+                for (int i = 0; i < 200; i++) {
+                    client.send(request, HttpResponse.BodyHandlers.discarding());
+                }
+
+                val startCpu = osBean.getProcessCpuTime();
+                val startTime = System.nanoTime();
+                val responses = new ArrayList<Future<Integer>>();
+                for (int i = 0; i < requests; i++) {
+                    responses.add(executor.submit(() -> client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+                }
+                for (val response : responses) {
+                    assertThat(response.get()).isEqualTo(200);
+                }
+                val elapsed = System.nanoTime() - startTime;
+                val cpu = osBean.getProcessCpuTime() - startCpu;
+
+                System.out.printf("%s, %-8s %,d requests: %,.0f req/s, %.2f ms CPU per request (client included)%n",
+                        mode, roleRequest.role(), requests, requests * 1e9 / elapsed, cpu / 1e6 / requests);
+            }
+        }
+    }
+
+    static String issueToken(HttpClient client, int port, String basic) throws Exception {
+        val response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + AccessTokenController.BASE_URL))
+                .header("Authorization", basic)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        return new ObjectMapper().readValue(response.body(), AccessToken.class).accessToken();
+    }
+}
@@ -0,0 +1,68 @@
+package dev.cadebe.spring6restmvc.config;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BeforeCommitResponseWrapperTest {
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final List<Boolean> committedWhenCalled = new ArrayList<>();
+    private final BeforeCommitResponseWrapper wrapper = new BeforeCommitResponseWrapper(response,
+            () -> committedWhenCalled.add(response.isCommitted()));
+
+    @Test
+    void shouldNotCallBackWhileBodyFitsBuffer() throws Exception {
+        wrapper.getOutputStream().write(new byte[100]);
+        wrapper.getWriter().write("small");
+
+        assertThat(committedWhenCalled).isEmpty();
+
+        wrapper.beforeCommit();
+        wrapper.beforeCommit();
+
+        assertThat(committedWhenCalled).containsExactly(false);
+    }
+
+    @Test
+    void shouldCallBackBeforeOutputStreamFillsBuffer() throws Exception {
+        wrapper.getOutputStream().write(new byte[response.getBufferSize() + 1]);
+
+        assertThat(response.isCommitted()).isTrue();
+        assertThat(committedWhenCalled).containsExactly(false);
+    }
+
+    @Test
+    void shouldCallBackBeforeWriterFillsBuffer() throws Exception {
+        val writer = wrapper.getWriter();
+
+        for (int i = 0; i < response.getBufferSize(); i++) {
+            writer.write('é');
+        }
+        writer.flush();
+
+        assertThat(response.isCommitted()).isTrue();
+        assertThat(committedWhenCalled).containsExactly(false);
+    }
+
+    @Test
+    void shouldCallBackBeforeContentLengthIsReached() throws Exception {
+        wrapper.setContentLength(10);
+        wrapper.getOutputStream().write(new byte[10]);
+
+        assertThat(committedWhenCalled).containsExactly(false);
+    }
+
+    @Test
+    void shouldCallBackBeforeErrorAndFlush() throws Exception {
+        wrapper.sendError(404);
+        wrapper.flushBuffer();
+
+        assertThat(committedWhenCalled).containsExactly(false);
+    }
+}
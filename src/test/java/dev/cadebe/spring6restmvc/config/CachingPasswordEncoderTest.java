@@ -0,0 +1,74 @@
+package dev.cadebe.spring6restmvc.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CachingPasswordEncoderTest {
+
+    PasswordEncoder delegate;
+
+    SimpleMeterRegistry meterRegistry;
+
+    CachingPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        delegate = spy(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        meterRegistry = new SimpleMeterRegistry();
+        passwordEncoder = new CachingPasswordEncoder(delegate, new CredentialCacheProperties(), meterRegistry);
+    }
+
+    @Test
+    void shouldVerifyRepeatedCredentialsOnce() {
+        val encoded = passwordEncoder.encode("user");
+
+        assertThat(passwordEncoder.matches("user", encoded)).isTrue();
+        assertThat(passwordEncoder.matches("user", encoded)).isTrue();
+        assertThat(passwordEncoder.matches("user", encoded)).isTrue();
+
+        verify(delegate, times(1)).matches(any(), anyString());
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "verifiedCredentials").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotCacheFailedVerifications() {
+        val encoded = passwordEncoder.encode("user");
+
+        assertThat(passwordEncoder.matches("guess", encoded)).isFalse();
+        assertThat(passwordEncoder.matches("guess", encoded)).isFalse();
+
+        verify(delegate, times(2)).matches(any(), anyString());
+    }
+
+    @Test
+    void shouldMissAfterPasswordChange() {
+        val encoded = passwordEncoder.encode("user");
+        assertThat(passwordEncoder.matches("user", encoded)).isTrue();
+
+        val changed = passwordEncoder.encode("changed");
+
+        assertThat(passwordEncoder.matches("user", changed)).isFalse();
+        assertThat(passwordEncoder.matches("changed", changed)).isTrue();
+        verify(delegate, times(3)).matches(any(), anyString());
+    }
+
+    @Test
+    void shouldNotExposeCredentialsInCacheKey() {
+        val encoded = passwordEncoder.encode("secret-password");
+        val cacheKey = passwordEncoder.hmac("secret-password", encoded);
+
+        assertThat(cacheKey).doesNotContain("secret-password").doesNotContain(encoded).hasSize(64);
+        assertThat(new CachingPasswordEncoder(delegate, new CredentialCacheProperties(), meterRegistry)
+                .hmac("secret-password", encoded)).isNotEqualTo(cacheKey);
+    }
+}
@@ -0,0 +1,103 @@
+package dev.cadebe.spring6restmvc.config;
+
+import dev.cadebe.spring6restmvc.controller.BeerController;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import dev.cadebe.spring6restmvc.services.BeerChangedEvent;
+import dev.cadebe.spring6restmvc.services.BeerNameIndex;
+import dev.cadebe.spring6restmvc.services.BeerServiceJpa;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("replica")
+class ReadWriteRoutingIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private BeerServiceJpa beerService;
+
+    @Autowired
+    private BeerNameIndex beerNameIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldReadListsFromTheReplica() throws Exception {
+        val replicaConnections = routedConnections("replica");
+        val primaryConnections = routedConnections("primary");
+
+        mockMvc.perform(get(BeerController.BASE_URL).queryParam("pageNumber", "1"))
+                .andExpect(status().isOk());
+
+        assertThat(routedConnections("replica")).isGreaterThan(replicaConnections);
+        assertThat(routedConnections("primary")).isEqualTo(primaryConnections);
+    }
+
+    @Test
+    void shouldReadEndpointsWithoutLagToleranceFromThePrimary() throws Exception {
+        val beerId = beerRepository.findAll().getLast().getId();
+        val replicaConnections = routedConnections("replica");
+
+        mockMvc.perform(get(BeerController.BASE_URL + "/{beerId}", beerId))
+                .andExpect(status().isOk());
+
+        assertThat(routedConnections("replica")).isEqualTo(replicaConnections);
+    }
+
+    // Outside a request the default lag tolerance applies, which would send these reads to the replica
+    @Test
+    void shouldReadWhatWritesInvalidateFromThePrimary() {
+        val beer = beerRepository.findAll().getLast();
+        val replicaConnections = routedConnections("replica");
+        val primaryConnections = routedConnections("primary");
+
+        beerService.evictChangedBeer(BeerChangedEvent.updated(beer.getId()));
+        assertThat(beerService.getBeerbyId(beer.getId())).isPresent();
+        assertThat(beerService.getBeerVersion(beer.getId())).isPresent();
+        beerNameIndex.onBeerChanged(BeerChangedEvent.patched(beer.getId(), null));
+        beerNameIndex.refreshStaleBeers();
+        assertThat(beerNameIndex.search(beer.getBeerName(), null, Pageable.unpaged()).getContent()).isNotEmpty();
+
+        assertThat(routedConnections("replica")).isEqualTo(replicaConnections);
+        assertThat(routedConnections("primary")).isGreaterThanOrEqualTo(primaryConnections + 3);
+    }
+
+    @Test
+    void shouldWriteToThePrimary() throws Exception {
+        val beerId = beerRepository.findAll().getLast().getId();
+        val replicaConnections = routedConnections("replica");
+        val primaryConnections = routedConnections("primary");
+
+        mockMvc.perform(patch(BeerController.BASE_URL + "/{beerId}", beerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantityOnHand\": 17}"))
+                .andExpect(status().isNoContent());
+
+        assertThat(routedConnections("primary")).isGreaterThan(primaryConnections);
+        assertThat(routedConnections("replica")).isEqualTo(replicaConnections);
+    }
+
+    private double routedConnections(String target) {
+        return meterRegistry.get("database.routing.connections").tag("target", target).counter().count();
+    }
+}
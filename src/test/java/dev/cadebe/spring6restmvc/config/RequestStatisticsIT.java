@@ -0,0 +1,78 @@
+package dev.cadebe.spring6restmvc.config;
+
+import dev.cadebe.spring6restmvc.annotations.StatementBudget;
+import dev.cadebe.spring6restmvc.controller.BeerController;
+import dev.cadebe.spring6restmvc.controller.CustomerController;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "database.statistics.response-header=true")
+@AutoConfigureMockMvc
+class RequestStatisticsIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    @StatementBudget(value = 3, endpoint = "GET /api/v1/beers")
+    void shouldReportStatementsInDebugHeader() throws Exception {
+        mockMvc.perform(get(BeerController.BASE_URL).queryParam("pageSize", "10"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RequestStatisticsFilter.HEADER_NAME, matchesPattern("statements=[1-9]\\d*, "
+                        + "entity-loads=\\d+, collection-fetches=\\d+, cache-hits=\\d+, cache-misses=\\d+")));
+    }
+
+    @Test
+    void shouldRecordStatisticsPerEndpoint() throws Exception {
+        val customerId = customerRepository.findAll().getFirst().getId();
+
+        mockMvc.perform(get(CustomerController.BASE_URL + "/{customerId}", customerId).with(httpBasic("user", "user")))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(RequestStatisticsFilter.HEADER_NAME));
+
+        val statements = meterRegistry.get("hibernate.request.statements")
+                .tag("method", "GET")
+                .tag("uri", "/api/v1/customers/{customerId}")
+                .summary();
+        val entityLoads = meterRegistry.get("hibernate.request.entity.loads")
+                .tag("uri", "/api/v1/customers/{customerId}")
+                .summary();
+
+        assertThat(statements.count()).isPositive();
+        assertThat(statements.max()).isEqualTo(1);
+        assertThat(entityLoads.max()).isEqualTo(1);
+    }
+
+    @Test
+    @StatementBudget(value = 1, endpoint = "GET /api/v1/beers/{beerId}")
+    @StatementBudget(value = 2, endpoint = "GET /api/v1/beers")
+    void shouldStayWithinStatementBudgets() throws Exception {
+        val beerId = beerRepository.findAll().getFirst().getId();
+
+        mockMvc.perform(get(BeerController.BASE_URL + "/{beerId}", beerId)).andExpect(status().isOk());
+        mockMvc.perform(get(BeerController.BASE_URL).queryParam("beerStyle", "PORTER")).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,85 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.cadebe.spring6restmvc.model.AccessToken;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AccessTokenControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldIssueTokenForBasicCredentials() throws Exception {
+        mockMvc.perform(post(AccessTokenController.BASE_URL).with(httpBasic("user", "user")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(jsonPath("$.token_type").value("Bearer"))
+                .andExpect(jsonPath("$.expires_in").value(900))
+                .andExpect(jsonPath("$.access_token").isString());
+    }
+
+    @Test
+    void shouldRejectTokenRequestWithoutCredentials() throws Exception {
+        mockMvc.perform(post(AccessTokenController.BASE_URL))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post(AccessTokenController.BASE_URL).with(httpBasic("user", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void shouldAuthoriseWithTokenRoles() throws Exception {
+        val userToken = issue("user", "user");
+
+        mockMvc.perform(get(CustomerController.BASE_URL).header(HttpHeaders.AUTHORIZATION, "Bearer " + userToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, "Bearer " + issue("actuator", "actuator")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldRejectInvalidToken() throws Exception {
+        val token = issue("user", "user");
+
+        mockMvc.perform(get(CustomerController.BASE_URL)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.substring(0, token.length() - 2)))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\""));
+    }
+
+    @Test
+    void shouldNotRenewTokenWithToken() throws Exception {
+        mockMvc.perform(post(AccessTokenController.BASE_URL)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + issue("admin", "admin")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    String issue(String username, String password) throws Exception {
+        val response = mockMvc.perform(post(AccessTokenController.BASE_URL).with(httpBasic(username, password)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return objectMapper.readValue(response, AccessToken.class).accessToken();
+    }
+}
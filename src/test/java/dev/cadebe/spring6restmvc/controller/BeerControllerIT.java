@@ -6,12 +6,16 @@ import dev.cadebe.spring6restmvc.mappers.BeerMapper;
 import dev.cadebe.spring6restmvc.model.BeerDto;
 import dev.cadebe.spring6restmvc.model.BeerStyle;
 import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.val;
 import org.hamcrest.core.IsNull;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,9 +29,16 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -49,9 +60,12 @@ class BeerControllerIT {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     void shouldGetBeerList() {
-        val beers = beerController.getBeers(null, null, false, 1, 1251);
+        val beers = beerController.getBeers(null, null, false, 1, 1251, null);
 
         assertThat(beers.getBody()).hasSize(1250);
     }
@@ -60,7 +74,7 @@ class BeerControllerIT {
     @Transactional
     void shouldReturnEmptyListIfNoBeersFound() {
         beerRepository.deleteAll();
-        val beers = beerController.getBeers(null, null, false, 1, 25);
+        val beers = beerController.getBeers(null, null, false, 1, 25, null);
 
         assertThat(beers.getBody()).isEmpty();
     }
@@ -68,7 +82,7 @@ class BeerControllerIT {
     @Test
     void shouldGetBeerById() {
         val beer = beerRepository.findAll().getFirst();
-        val found = beerController.getBeerById(beerMapper.toModel(beer).getId());
+        val found = beerController.getBeerById(beerMapper.toModel(beer).getId(), null);
 
         assertThat(found).isNotNull();
     }
@@ -79,7 +93,7 @@ class BeerControllerIT {
                         .queryParam("beerName", "%IPA%"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()", is(336)))
-                .andExpect(jsonPath("$.[0].beerName", is("21st Amendment IPA (2006)")))
+                .andExpect(jsonPath("$.[0].beerName", is("113 IPA")))
                 .andExpect(jsonPath("$.[0].quantityOnHand").value(IsNull.notNullValue()));
     }
 
@@ -91,10 +105,49 @@ class BeerControllerIT {
                         .queryParam("pageSize", "56"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()", is(336)))
-                .andExpect(jsonPath("$.[0].beerName", is("21st Amendment IPA (2006)")))
+                .andExpect(jsonPath("$.[0].beerName", is("113 IPA")))
                 .andExpect(jsonPath("$.[0].quantityOnHand").value(IsNull.notNullValue()));
     }
 
+    @Test
+    void shouldGetBeerByNameWithCursor() throws Exception {
+        val nextCursor = mockMvc.perform(get(BASE_URL)
+                        .queryParam("beerName", "IPA")
+                        .queryParam("cursor", "")
+                        .queryParam("pageSize", "300"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(300)))
+                .andReturn()
+                .getResponse()
+                .getHeader(BeerController.NEXT_CURSOR_HEADER);
+
+        assertThat(nextCursor).isNotBlank();
+
+        mockMvc.perform(get(BASE_URL)
+                        .queryParam("beerName", "IPA")
+                        .queryParam("cursor", nextCursor)
+                        .queryParam("pageSize", "300"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(36)))
+                .andExpect(header().doesNotExist(BeerController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void shouldExportBeersByStyleAsNdJson() throws Exception {
+        val mvcResult = mockMvc.perform(get(BASE_URL + "/export")
+                        .queryParam("beerStyle", "PORTER"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        val body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(body.lines()).hasSize(74).allSatisfy(line -> assertThat(line).contains("\"beerStyle\":\"PORTER\""));
+    }
+
     @Test
     void shouldGetBeerByBeerStyleWithoutPaging() throws Exception {
         mockMvc.perform(get(BASE_URL)
@@ -124,7 +177,7 @@ class BeerControllerIT {
                         .queryParam("beerStyle", "ALE"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()", is(26)))
-                .andExpect(jsonPath("$.[0].beerName", is("Bitter American")))
+                .andExpect(jsonPath("$.[0].beerName", is("Ace Hole American Pale Ale")))
                 .andExpect(jsonPath("$.[0].beerStyle", is(BeerStyle.ALE.name())))
                 .andExpect(jsonPath("$.[0].quantityOnHand").value(IsNull.notNullValue()));
     }
@@ -137,7 +190,7 @@ class BeerControllerIT {
                         .queryParam("showInventory", "false"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()", is(26)))
-                .andExpect(jsonPath("$.[0].beerName", is("Bitter American")))
+                .andExpect(jsonPath("$.[0].beerName", is("Ace Hole American Pale Ale")))
                 .andExpect(jsonPath("$.[0].beerStyle", is(BeerStyle.ALE.name())))
                 .andExpect(jsonPath("$.[0].quantityOnHand").value(IsNull.nullValue()));
     }
@@ -152,7 +205,7 @@ class BeerControllerIT {
                         .queryParam("pageSize", "50"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()", is(26)))
-                .andExpect(jsonPath("$.[0].beerName", is("Bitter American")))
+                .andExpect(jsonPath("$.[0].beerName", is("Ace Hole American Pale Ale")))
                 .andExpect(jsonPath("$.[0].beerStyle", is(BeerStyle.ALE.name())))
                 .andExpect(jsonPath("$.[0].quantityOnHand").value(IsNull.notNullValue()));
     }
@@ -165,16 +218,59 @@ class BeerControllerIT {
                         .queryParam("showInventory", "true"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()", is(26)))
-                .andExpect(jsonPath("$.[0].beerName", is("Bitter American")))
+                .andExpect(jsonPath("$.[0].beerName", is("Ace Hole American Pale Ale")))
                 .andExpect(jsonPath("$.[0].beerStyle", is(BeerStyle.ALE.name())))
                 .andExpect(jsonPath("$.[0].quantityOnHand").value(IsNull.notNullValue()));
     }
 
+    @Test
+    void shouldReturnNotModifiedForUnchangedBeer() throws Exception {
+        val beer = beerRepository.findAll().getFirst();
+
+        val eTag = mockMvc.perform(get(BASE_URL + "/" + beer.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + beer.getId() + "-" + beer.getVersion() + "\""))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(BASE_URL + "/" + beer.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @Transactional
+    void shouldChangeBeerListETagWhenBeerIsRemoved() throws Exception {
+        val eTag = mockMvc.perform(get(BASE_URL)
+                        .queryParam("beerStyle", "PORTER"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(BASE_URL)
+                        .queryParam("beerStyle", "PORTER")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        val porter = beerRepository.findAllByBeerStyle(BeerStyle.PORTER, Pageable.unpaged()).getContent().getFirst();
+        beerRepository.delete(porter);
+        beerRepository.flush();
+
+        mockMvc.perform(get(BASE_URL)
+                        .queryParam("beerStyle", "PORTER")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(73)));
+    }
+
     @Test
     void shouldFailIfGetBeerByIdReturnsEmpty() {
         val id = UUID.randomUUID();
 
-        assertThrows(NotFoundException.class, () -> beerController.getBeerById(id));
+        assertThrows(NotFoundException.class, () -> beerController.getBeerById(id, null));
     }
 
     @Test
@@ -230,7 +326,7 @@ class BeerControllerIT {
         val beerDto = beerMapper.toModel(beer);
         beerDto.setBeerName("UPDATED");
 
-        val result = beerController.updateById(id, beerDto);
+        val result = beerController.updateById(id, beerDto, null);
         assertThat(result.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(204));
 
         val updatedBeer = beerRepository.findById(id);
@@ -238,7 +334,9 @@ class BeerControllerIT {
         assertThat(updatedBeer.get())
                 .usingRecursiveComparison()
                 .ignoringFieldsOfTypes(LocalDateTime.class)
+                .ignoringFields("version")
                 .isEqualTo(beerMapper.toEntity(beerDto));
+        assertThat(updatedBeer.get().getVersion()).isEqualTo(beerDto.getVersion() + 1);
     }
 
     @Test
@@ -247,7 +345,7 @@ class BeerControllerIT {
         val id = UUID.randomUUID();
         val beer = BeerDto.builder().build();
 
-        assertThrows(NotFoundException.class, () -> beerController.updateById(id, beer));
+        assertThrows(NotFoundException.class, () -> beerController.updateById(id, beer, null));
     }
 
     @Test
@@ -267,7 +365,7 @@ class BeerControllerIT {
         beerDto.setQuantityOnHand(9999);
         beerDto.setUpc("abc123");
 
-        val result = beerController.patchBeerById(id, beerDto);
+        val result = beerController.patchBeerById(id, beerDto, null);
         assertThat(result.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(204));
 
         val patchedBeer = beerRepository.findById(id);
@@ -275,7 +373,9 @@ class BeerControllerIT {
         assertThat(patchedBeer.get())
                 .usingRecursiveComparison()
                 .ignoringFieldsOfTypes(LocalDateTime.class)
+                .ignoringFields("version")
                 .isEqualTo(beerMapper.toEntity(beerDto));
+        assertThat(patchedBeer.get().getVersion()).isEqualTo(beerDto.getVersion() + 1);
     }
 
     @Test
@@ -283,7 +383,7 @@ class BeerControllerIT {
         val id = UUID.randomUUID();
         val beer = BeerDto.builder().build();
 
-        assertThrows(NotFoundException.class, () -> beerController.patchBeerById(id, beer));
+        assertThrows(NotFoundException.class, () -> beerController.patchBeerById(id, beer, null));
     }
 
     @Test
@@ -293,7 +393,7 @@ class BeerControllerIT {
 
         assertThat(beerRepository.findById(beer.getId()).get()).isNotNull();
 
-        var result = beerController.deleteBeerById(beer.getId());
+        var result = beerController.deleteBeerById(beer.getId(), null);
 
         assertThat(result.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(204));
 
@@ -304,6 +404,111 @@ class BeerControllerIT {
     void shouldFailDeleteByIdIfBeerNotFound() {
         val id = UUID.randomUUID();
 
-        assertThrows(NotFoundException.class, () -> beerController.deleteBeerById(id));
+        assertThrows(NotFoundException.class, () -> beerController.deleteBeerById(id, null));
+    }
+
+    @Test
+    @Transactional
+    void shouldUpdateBeerInSingleStatementWhenIfMatchIsCurrent() throws Exception {
+        val beer = beerRepository.findAll().getFirst();
+        val beerDto = beerMapper.toModel(beer);
+        beerDto.setBeerName("Conditionally Updated");
+
+        val statements = countStatements(() -> mockMvc.perform(put(BASE_URL + "/" + beer.getId())
+                        .header(HttpHeaders.IF_MATCH, EntityTags.strong(beer.getId(), beer.getVersion()))
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(beerDto)))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, EntityTags.strong(beer.getId(), beer.getVersion() + 1))));
+
+        assertThat(statements).isEqualTo(1);
+
+        val updated = beerRepository.findById(beer.getId()).get();
+        assertThat(updated.getBeerName()).isEqualTo("Conditionally Updated");
+        assertThat(updated.getVersion()).isEqualTo(beer.getVersion() + 1);
+    }
+
+    @Test
+    @Transactional
+    void shouldPatchBeerInSingleStatementWhenIfMatchIsCurrent() throws Exception {
+        val beer = beerRepository.findAll().getFirst();
+
+        val statements = countStatements(() -> mockMvc.perform(patch(BASE_URL + "/" + beer.getId())
+                        .header(HttpHeaders.IF_MATCH, EntityTags.strong(beer.getId(), beer.getVersion()))
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"quantityOnHand\": 7}"))
+                .andExpect(status().isNoContent()));
+
+        assertThat(statements).isEqualTo(1);
+
+        val patched = beerRepository.findById(beer.getId()).get();
+        assertThat(patched.getQuantityOnHand()).isEqualTo(7);
+        assertThat(patched.getBeerName()).isEqualTo(beer.getBeerName());
+    }
+
+    @Test
+    @Transactional
+    void shouldReturnPreconditionFailedForStaleIfMatch() throws Exception {
+        val beer = beerRepository.findAll().getFirst();
+
+        val statements = countStatements(() -> mockMvc.perform(patch(BASE_URL + "/" + beer.getId())
+                        .header(HttpHeaders.IF_MATCH, EntityTags.strong(beer.getId(), beer.getVersion() + 1))
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"quantityOnHand\": 7}"))
+                .andExpect(status().isPreconditionFailed()));
+
+        assertThat(statements).isEqualTo(2);
+        assertThat(beerRepository.findById(beer.getId()).get().getQuantityOnHand()).isEqualTo(beer.getQuantityOnHand());
+    }
+
+    @Test
+    void shouldReturnNotFoundForConditionalWriteOfMissingBeer() throws Exception {
+        val id = UUID.randomUUID();
+
+        mockMvc.perform(delete(BASE_URL + "/" + id)
+                        .header(HttpHeaders.IF_MATCH, EntityTags.strong(id, 0)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldRejectIfMatchThatIsNotAStrongTagForTheBeer() throws Exception {
+        val beer = beerRepository.findAll().getFirst();
+
+        val statements = countStatements(() -> mockMvc.perform(delete(BASE_URL + "/" + beer.getId())
+                        .header(HttpHeaders.IF_MATCH, "W/" + EntityTags.strong(beer.getId(), beer.getVersion())))
+                .andExpect(status().isPreconditionFailed()));
+
+        assertThat(statements).isZero();
+    }
+
+    @Test
+    @Transactional
+    void shouldDeleteBeerWithoutLoadingItWhenIfMatchIsCurrent() throws Exception {
+        val beer = beerRepository.findAll().getFirst();
+
+        val statements = countStatements(() -> mockMvc.perform(delete(BASE_URL + "/" + beer.getId())
+                        .header(HttpHeaders.IF_MATCH, EntityTags.strong(beer.getId(), beer.getVersion())))
+                .andExpect(status().isNoContent()));
+
+        // the bulk delete also clears the beer's rows from the beer_category join table
+        assertThat(statements).isEqualTo(2);
+        assertThat(beerRepository.findById(beer.getId())).isEmpty();
+    }
+
+    private long countStatements(Request request) throws Exception {
+        val statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+
+        try {
+            request.perform();
+            return statistics.getPrepareStatementCount();
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    private interface Request {
+        void perform() throws Exception;
     }
-}
\ No newline at end of file
+}
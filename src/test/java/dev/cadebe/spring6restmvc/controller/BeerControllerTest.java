@@ -1,9 +1,20 @@
 package dev.cadebe.spring6restmvc.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.cadebe.spring6restmvc.model.BeerBulkResult;
+import dev.cadebe.spring6restmvc.model.BeerCsvImportResult;
 import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerExportFormat;
+import dev.cadebe.spring6restmvc.model.InventoryAdjustmentDto;
+import dev.cadebe.spring6restmvc.model.ListVersion;
+import dev.cadebe.spring6restmvc.services.BeerBulkService;
+import dev.cadebe.spring6restmvc.services.BeerChangeFeed;
+import dev.cadebe.spring6restmvc.services.BeerCsvImportService;
+import dev.cadebe.spring6restmvc.services.BeerExportService;
 import dev.cadebe.spring6restmvc.services.BeerService;
+import dev.cadebe.spring6restmvc.services.InventoryAdjustmentService;
 import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -14,12 +25,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Stream;
@@ -29,10 +49,15 @@ import static dev.cadebe.spring6restmvc.model.BeerStyle.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -49,12 +74,32 @@ class BeerControllerTest {
     @MockBean
     private BeerService beerService;
 
+    @MockBean
+    private BeerExportService beerExportService;
+
+    @MockBean
+    private BeerBulkService beerBulkService;
+
+    @MockBean
+    private BeerCsvImportService beerCsvImportService;
+
+    @MockBean
+    private InventoryAdjustmentService inventoryAdjustmentService;
+
+    @MockBean
+    private BeerChangeFeed beerChangeFeed;
+
     @Captor
     private ArgumentCaptor<UUID> idCaptor;
 
     @Captor
     private ArgumentCaptor<BeerDto> beerCaptor;
 
+    @BeforeEach
+    void setUp() {
+        when(beerService.getBeerListVersion(any(), any())).thenReturn(new ListVersion(2, LocalDateTime.now()));
+    }
+
     @Test
     void shouldGetBeerList() throws Exception {
         val id1 = UUID.randomUUID();
@@ -97,6 +142,174 @@ class BeerControllerTest {
                 .andExpect(jsonPath("$..beerName", is(List.of("Galaxy Cat", "Crank"))));
     }
 
+    @Test
+    void shouldGetFirstBeerWindowWithNextCursor() throws Exception {
+        val id1 = UUID.randomUUID();
+        val id2 = UUID.randomUUID();
+
+        val beers = List.of(
+                BeerDto.builder()
+                        .id(id1)
+                        .beerName("Crank")
+                        .beerStyle(PALE_ALE)
+                        .build(),
+                BeerDto.builder()
+                        .id(id2)
+                        .beerName("Galaxy Cat")
+                        .beerStyle(PALE_ALE)
+                        .build());
+
+        when(beerService.listBeersByCursor(any(), any(), any(), any(), eq(2))).thenReturn(
+                Window.from(beers, index -> ScrollPosition.forward(
+                        Map.of("beerName", beers.get(index).getBeerName(), "id", beers.get(index).getId())), true));
+
+        val nextCursor = mockMvc.perform(get(BASE_URL)
+                        .queryParam("cursor", "")
+                        .queryParam("pageSize", "2")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$..beerName", is(List.of("Crank", "Galaxy Cat"))))
+                .andExpect(header().exists(BeerController.NEXT_CURSOR_HEADER))
+                .andReturn()
+                .getResponse()
+                .getHeader(BeerController.NEXT_CURSOR_HEADER);
+
+        val positionCaptor = ArgumentCaptor.forClass(ScrollPosition.class);
+        verify(beerService).listBeersByCursor(any(), any(), any(), positionCaptor.capture(), eq(2));
+        assertThat(positionCaptor.getValue().isInitial()).isTrue();
+
+        assertThat(BeerCursorCodec.decode(nextCursor).getKeys())
+                .containsEntry("beerName", "Galaxy Cat")
+                .containsEntry("id", id2);
+    }
+
+    @Test
+    void shouldPassDecodedCursorAndOmitNextCursorOnLastWindow() throws Exception {
+        val id = UUID.randomUUID();
+        val cursor = BeerCursorCodec.encode(ScrollPosition.forward(Map.of("beerName", "Crank", "id", id)));
+
+        when(beerService.listBeersByCursor(any(), eq(IPA), any(), any(), any())).thenReturn(
+                Window.from(List.of(BeerDto.builder().beerName("Sunshine City").beerStyle(IPA).build()),
+                        index -> ScrollPosition.keyset(), false));
+
+        mockMvc.perform(get(BASE_URL)
+                        .queryParam("cursor", cursor)
+                        .queryParam("beerStyle", "IPA")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(header().doesNotExist(BeerController.NEXT_CURSOR_HEADER));
+
+        val positionCaptor = ArgumentCaptor.forClass(ScrollPosition.class);
+        verify(beerService).listBeersByCursor(any(), eq(IPA), any(), positionCaptor.capture(), any());
+        assertThat(((KeysetScrollPosition) positionCaptor.getValue()).getKeys())
+                .containsEntry("beerName", "Crank")
+                .containsEntry("id", id);
+    }
+
+    @Test
+    void shouldReturnBadRequestForMalformedCursor() throws Exception {
+        mockMvc.perform(get(BASE_URL)
+                        .queryParam("cursor", "not-a-cursor!"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldSearchBeersByName() throws Exception {
+        val id = UUID.randomUUID();
+
+        when(beerService.searchBeers(eq("galaxy"), eq(PALE_ALE), any(), eq(2), eq(10))).thenReturn(
+                new PageImpl<>(List.of(BeerDto.builder()
+                        .id(id)
+                        .beerName("Galaxy Cat")
+                        .beerStyle(PALE_ALE)
+                        .build())));
+
+        mockMvc.perform(get(BASE_URL + "/search")
+                        .queryParam("beerName", "galaxy")
+                        .queryParam("beerStyle", "PALE_ALE")
+                        .queryParam("pageNumber", "2")
+                        .queryParam("pageSize", "10")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$.[0].id", is(id.toString())));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenSearchingWithoutBeerName() throws Exception {
+        mockMvc.perform(get(BASE_URL + "/search"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldStreamBeerExportAsCsv() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(3);
+            outputStream.write("id,beerName\r\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        }).when(beerExportService).exportBeers(isNull(), eq(PORTER), eq(BeerExportFormat.CSV), any(OutputStream.class));
+
+        val mvcResult = mockMvc.perform(get(BASE_URL + "/export")
+                        .queryParam("beerStyle", "PORTER")
+                        .queryParam("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"beers.csv\""))
+                .andExpect(content().string("id,beerName\r\n"));
+    }
+
+    @Test
+    void shouldStreamBeerExportAsNdJsonByDefault() throws Exception {
+        val mvcResult = mockMvc.perform(get(BASE_URL + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"));
+
+        verify(beerExportService).exportBeers(isNull(), isNull(), eq(BeerExportFormat.NDJSON), any(OutputStream.class));
+    }
+
+    @Test
+    void shouldReturnPerItemResultsForBulkCreate() throws Exception {
+        val id = UUID.randomUUID();
+
+        when(beerBulkService.createBeers(any())).thenReturn(List.of(
+                BeerBulkResult.created(0, id),
+                BeerBulkResult.invalid(1, List.of("beerName: must not be blank"))));
+
+        mockMvc.perform(post(BASE_URL + "/bulk")
+                        .contentType("application/x-ndjson")
+                        .content("{}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$.[0].status", is("CREATED")))
+                .andExpect(jsonPath("$.[0].id", is(id.toString())))
+                .andExpect(jsonPath("$.[0].errors").doesNotExist())
+                .andExpect(jsonPath("$.[1].status", is("INVALID")))
+                .andExpect(jsonPath("$.[1].errors[0]", is("beerName: must not be blank")));
+    }
+
+    @Test
+    void shouldImportCsvBody() throws Exception {
+        when(beerCsvImportService.importCsv(any())).thenReturn(new BeerCsvImportResult(10, 8, 2, 0, 1, Duration.ofMillis(4)));
+
+        mockMvc.perform(post(BASE_URL + "/import")
+                        .contentType("text/csv")
+                        .content("row,beer\n1,Pub Beer\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsImported", is(8)))
+                .andExpect(jsonPath("$.rowsSkipped", is(2)))
+                .andExpect(jsonPath("$.rowsPerSecond", is(2000.0)));
+    }
+
     @Test
     void shouldGetBeerById() throws Exception {
         val id = UUID.randomUUID();
@@ -125,7 +338,70 @@ class BeerControllerTest {
                 .andExpect(jsonPath("$.beerStyle", is(PILSNER.name())))
                 .andExpect(jsonPath("$.upc", is("24680")))
                 .andExpect(jsonPath("$.price", is(new BigDecimal("5.99").doubleValue())))
-                .andExpect(jsonPath("$.quantityOnHand", is(158)));
+                .andExpect(jsonPath("$.quantityOnHand", is(158)))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-1\""));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWithoutLoadingBeerWhenETagMatches() throws Exception {
+        val id = UUID.randomUUID();
+
+        when(beerService.getBeerVersion(id)).thenReturn(Optional.of(4));
+
+        mockMvc.perform(get(BASE_URL + "/" + id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + id + "-4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-4\""))
+                .andExpect(content().string(""));
+
+        verify(beerService, never()).getBeerbyId(any());
+    }
+
+    @Test
+    void shouldReturnBeerWhenETagIsStale() throws Exception {
+        val id = UUID.randomUUID();
+
+        when(beerService.getBeerVersion(id)).thenReturn(Optional.of(5));
+        when(beerService.getBeerbyId(id)).thenReturn(Optional.of(BeerDto.builder()
+                .id(id)
+                .version(5)
+                .beerName("Czech Brew")
+                .build()));
+
+        mockMvc.perform(get(BASE_URL + "/" + id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + id + "-4\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-5\""))
+                .andExpect(jsonPath("$.version", is(5)));
+    }
+
+    @Test
+    void shouldReturnNotFoundForConditionalGetOfMissingBeer() throws Exception {
+        when(beerService.getBeerVersion(any(UUID.class))).thenReturn(Optional.empty());
+
+        mockMvc.perform(get(BASE_URL + "/" + UUID.randomUUID())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldReturnNotModifiedForUnchangedBeerList() throws Exception {
+        when(beerService.listBeers(any(), eq(PORTER), any(), any(), any())).thenReturn(new PageImpl<>(List.of()));
+
+        val eTag = mockMvc.perform(get(BASE_URL).queryParam("beerStyle", "PORTER"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        assertThat(eTag).startsWith("W/");
+
+        mockMvc.perform(get(BASE_URL)
+                        .queryParam("beerStyle", "PORTER")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        verify(beerService).listBeers(any(), eq(PORTER), any(), any(), any());
     }
 
     @Test
@@ -345,6 +621,53 @@ class BeerControllerTest {
         verify(beerService).patchBeerById(id, beer);
     }
 
+    @Test
+    void shouldAcceptInventoryAdjustment() throws Exception {
+        val id = UUID.randomUUID();
+        when(beerService.getBeerVersion(id)).thenReturn(Optional.of(3));
+
+        mockMvc.perform(post(BASE_URL + "/" + id + "/inventory-adjustments")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(InventoryAdjustmentDto.builder().delta(-2).build())))
+                .andExpect(status().isAccepted());
+
+        verify(inventoryAdjustmentService).adjustQuantityOnHand(id, -2);
+    }
+
+    @Test
+    void shouldRejectInventoryAdjustmentForUnknownBeer() throws Exception {
+        val id = UUID.randomUUID();
+        when(beerService.getBeerVersion(id)).thenReturn(Optional.empty());
+
+        mockMvc.perform(post(BASE_URL + "/" + id + "/inventory-adjustments")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(InventoryAdjustmentDto.builder().delta(5).build())))
+                .andExpect(status().isNotFound());
+
+        verify(inventoryAdjustmentService, never()).adjustQuantityOnHand(any(), anyInt());
+    }
+
+    @Test
+    void shouldRejectInventoryAdjustmentWithoutDelta() throws Exception {
+        mockMvc.perform(post(BASE_URL + "/" + UUID.randomUUID() + "/inventory-adjustments")
+                        .contentType(APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verify(inventoryAdjustmentService, never()).adjustQuantityOnHand(any(), anyInt());
+    }
+
+    @Test
+    void shouldRejectInventoryAdjustmentOutOfRange() throws Exception {
+        mockMvc.perform(post(BASE_URL + "/" + UUID.randomUUID() + "/inventory-adjustments")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                InventoryAdjustmentDto.builder().delta(Integer.MAX_VALUE).build())))
+                .andExpect(status().isBadRequest());
+
+        verify(inventoryAdjustmentService, never()).adjustQuantityOnHand(any(), anyInt());
+    }
+
     @Test
     void shouldDeleteExistingBeerById() throws Exception {
         val id = UUID.randomUUID();
@@ -369,4 +692,17 @@ class BeerControllerTest {
                         .accept(APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldSubscribeToBeerChangesWithStyleAndLastEventId() throws Exception {
+        when(beerChangeFeed.subscribe(IPA, "m1abc-42")).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get(BASE_URL + "/changes")
+                        .accept(TEXT_EVENT_STREAM)
+                        .queryParam("beerStyle", "IPA")
+                        .header("Last-Event-ID", "m1abc-42"))
+                .andExpect(request().asyncStarted());
+
+        verify(beerChangeFeed).subscribe(IPA, "m1abc-42");
+    }
+}
@@ -0,0 +1,48 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BeerCursorCodecTest {
+
+    @Test
+    void shouldRoundTripKeysetPosition() {
+        val id = UUID.randomUUID();
+        val position = ScrollPosition.forward(Map.of("beerName", "Porter (a/k/a Black: Gold Porter)", "id", id));
+
+        val cursor = BeerCursorCodec.encode(position);
+        val decoded = BeerCursorCodec.decode(cursor);
+
+        assertThat(cursor).doesNotContain("Porter");
+        assertThat(decoded.getKeys())
+                .containsEntry("beerName", "Porter (a/k/a Black: Gold Porter)")
+                .containsEntry("id", id);
+        assertThat(decoded.scrollsForward()).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", " "})
+    void shouldDecodeBlankCursorAsInitialPosition(String cursor) {
+        assertThat(BeerCursorCodec.decode(cursor).isInitial()).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not-a-cursor!", "bm8tc2VwYXJhdG9y", "bm90LWEtdXVpZDpDcmFuaw"})
+    void shouldFailForMalformedCursor(String cursor) {
+        assertThrows(InvalidCursorException.class, () -> BeerCursorCodec.decode(cursor));
+    }
+
+    @Test
+    void shouldFailToEncodeInitialPosition() {
+        assertThrows(IllegalArgumentException.class, () -> BeerCursorCodec.encode(ScrollPosition.keyset()));
+    }
+}
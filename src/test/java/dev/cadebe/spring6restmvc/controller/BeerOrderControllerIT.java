@@ -0,0 +1,174 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.cadebe.spring6restmvc.annotations.StatementBudget;
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.model.BeerOrderDto;
+import dev.cadebe.spring6restmvc.model.BeerOrderLineDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BeerOrderControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private BeerEntity testBeer;
+
+    private UUID customerId;
+
+    @BeforeEach
+    void setUp() {
+        testBeer = beerRepository.save(BeerEntity.builder()
+                .beerName("Order Test Lager")
+                .beerStyle(BeerStyle.LAGER)
+                .upc("0000000000021")
+                .price(new BigDecimal("9.99"))
+                .quantityOnHand(10)
+                .build());
+        customerId = customerRepository.findAll().getFirst().getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from beer_order_line "
+                + "where beer_order_id in (select id from beer_order where customer_ref like 'IT-%')");
+        jdbcTemplate.update("delete from beer_order where customer_ref like 'IT-%'");
+        beerRepository.deleteById(testBeer.getId());
+    }
+
+    private BeerOrderDto order(String customerRef, UUID customerId, BeerOrderLineDto... lines) {
+        return BeerOrderDto.builder()
+                .customerRef(customerRef)
+                .customerId(customerId)
+                .beerOrderLines(List.of(lines))
+                .build();
+    }
+
+    private BeerOrderLineDto line(UUID beerId, int quantity) {
+        return BeerOrderLineDto.builder().beerId(beerId).orderQuantity(quantity).build();
+    }
+
+    @Test
+    @StatementBudget(value = 1, endpoint = "GET /api/v1/orders/{beerOrderId}")
+    void shouldPlaceOrderAndAllocateStock() throws Exception {
+        val result = mockMvc.perform(post(BeerOrderController.BASE_URL)
+                        .with(httpBasic("user", "user"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                order("IT-1", customerId, line(testBeer.getId(), 3), line(testBeer.getId(), 2)))))
+                .andExpect(status().isCreated())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.customerId", is(customerId.toString())))
+                .andExpect(jsonPath("$.beerOrderLines", hasSize(1)))
+                .andExpect(jsonPath("$.beerOrderLines[0].quantityAllocated", is(5)))
+                .andReturn();
+
+        assertThat(beerRepository.findById(testBeer.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(5);
+
+        mockMvc.perform(get(result.getResponse().getHeader("Location")).with(httpBasic("user", "user")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customerRef", is("IT-1")))
+                .andExpect(jsonPath("$.beerOrderLines[0].beerId", is(testBeer.getId().toString())));
+    }
+
+    @Test
+    void shouldRejectOrderExceedingStockWithoutAllocating() throws Exception {
+        val otherBeer = beerRepository.findAll().getFirst();
+        val otherQuantity = otherBeer.getQuantityOnHand();
+
+        mockMvc.perform(post(BeerOrderController.BASE_URL)
+                        .with(httpBasic("user", "user"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                order("IT-2", customerId, line(otherBeer.getId(), 1), line(testBeer.getId(), 11)))))
+                .andExpect(status().isConflict());
+
+        // The whole order rolls back, including lines that could be allocated
+        assertThat(beerRepository.findById(testBeer.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(10);
+        assertThat(beerRepository.findById(otherBeer.getId()).orElseThrow().getQuantityOnHand())
+                .isEqualTo(otherQuantity);
+    }
+
+    @Test
+    void shouldRejectOrderForUnknownBeer() throws Exception {
+        mockMvc.perform(post(BeerOrderController.BASE_URL)
+                        .with(httpBasic("user", "user"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order("IT-3", customerId, line(UUID.randomUUID(), 1)))))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void shouldRejectOrderForUnknownCustomer() throws Exception {
+        mockMvc.perform(post(BeerOrderController.BASE_URL)
+                        .with(httpBasic("user", "user"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                order("IT-4", UUID.randomUUID(), line(testBeer.getId(), 1)))))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void shouldRejectInvalidOrder() throws Exception {
+        mockMvc.perform(post(BeerOrderController.BASE_URL)
+                        .with(httpBasic("user", "user"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order("IT-5", customerId, line(testBeer.getId(), 0)))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRequireAuthentication() throws Exception {
+        mockMvc.perform(post(BeerOrderController.BASE_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order("IT-6", customerId, line(testBeer.getId(), 1)))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownOrder() throws Exception {
+        mockMvc.perform(get(BeerOrderController.BASE_URL + "/{beerOrderId}", UUID.randomUUID())
+                        .with(httpBasic("user", "user")))
+                .andExpect(status().isNotFound());
+    }
+}
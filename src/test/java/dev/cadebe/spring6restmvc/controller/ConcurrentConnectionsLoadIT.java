@@ -0,0 +1,109 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import lombok.val;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.NestedTestConfiguration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.test.context.NestedTestConfiguration.EnclosingConfiguration.OVERRIDE;
+
+// Opens -Dloadtest.connections concurrent connections against the beer list, once with Tomcat on platform threads and
+// once on virtual threads, and prints throughput, latency and how many requests were shed with 503
+@EnabledIfSystemProperty(named = "loadtest.connections", matches = "\\d+")
+class ConcurrentConnectionsLoadIT {
+
+    static final String TOMCAT_LIMITS = "server.tomcat.max-connections=20000";
+
+    static final String ACCEPT_COUNT = "server.tomcat.accept-count=20000";
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(webEnvironment = RANDOM_PORT, properties = {"spring.threads.virtual.enabled=false", TOMCAT_LIMITS, ACCEPT_COUNT})
+    class PlatformThreads {
+
+        @LocalServerPort
+        int port;
+
+        @Test
+        void shouldServeConcurrentConnections() throws Exception {
+            runLoad("platform threads", port);
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(webEnvironment = RANDOM_PORT, properties = {"spring.threads.virtual.enabled=true", TOMCAT_LIMITS, ACCEPT_COUNT})
+    class VirtualThreads {
+
+        @LocalServerPort
+        int port;
+
+        @Test
+        void shouldServeConcurrentConnections() throws Exception {
+            runLoad("virtual threads", port);
+        }
+    }
+
+    static void runLoad(String mode, int port) throws Exception {
+        val connections = Integer.getInteger("loadtest.connections");
+        val uri = URI.create("http://localhost:" + port + "/api/v1/beers?pageNumber=1&pageSize=25");
+        val statusCounts = new ConcurrentHashMap<Integer, AtomicInteger>();
+        val failures = new ConcurrentHashMap<String, AtomicInteger>();
+        val latencies = new long[connections];
+        val done = new CountDownLatch(connections);
+
+        // HTTP/1.1 without idle connections to reuse, so every in-flight request holds its own connection
+        try (val executor = Executors.newVirtualThreadPerTaskExecutor();
+             val client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(60))
+                     .executor(executor)
+                     .build()) {
+            val startTime = System.nanoTime();
+            for (int i = 0; i < connections; i++) {
+                val index = i;
+                executor.execute(() -> {
+                    val requestStart = System.nanoTime();
+                    try {
+                        val response = client.send(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(120)).build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        statusCounts.computeIfAbsent(response.statusCode(), status -> new AtomicInteger()).incrementAndGet();
+                    } catch (Exception e) {
+                        failures.computeIfAbsent(e.getClass().getSimpleName(), type -> new AtomicInteger()).incrementAndGet();
+                    } finally {
+                        latencies[index] = System.nanoTime() - requestStart;
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+
+            val elapsed = Duration.ofNanos(System.nanoTime() - startTime);
+            Arrays.sort(latencies);
+            System.out.printf("%s, %,d connections: %s, failed %s, %.1f s, %,.0f req/s, p50 %d ms, p99 %d ms, max %d ms%n",
+                    mode, connections, statusCounts, failures, elapsed.toMillis() / 1000.0,
+                    connections * 1000.0 / Math.max(elapsed.toMillis(), 1),
+                    latencies[connections / 2] / 1_000_000, latencies[connections * 99 / 100] / 1_000_000,
+                    latencies[connections - 1] / 1_000_000);
+        }
+
+        assertThat(statusCounts).containsKey(200);
+        assertThat(statusCounts.keySet()).isSubsetOf(200, 503);
+    }
+}
@@ -6,7 +6,10 @@ import dev.cadebe.spring6restmvc.data.CustomerEntity;
 import dev.cadebe.spring6restmvc.mappers.CustomerMapper;
 import dev.cadebe.spring6restmvc.model.CustomerDto;
 import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.val;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -32,11 +35,14 @@ class CustomerControllerIT {
     @Autowired
     private CustomerMapper customerMapper;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     void shouldGetCustomerList() {
-        val customers = customerController.listAllCustomers();
+        val customers = customerController.listAllCustomers(null);
 
-        assertThat(customers).hasSize(3);
+        assertThat(customers.getBody()).hasSize(3);
     }
 
     @Test
@@ -44,16 +50,16 @@ class CustomerControllerIT {
     void shouldReturnEmptyListIfNoCustomersFound() {
         customerRepository.deleteAll();
 
-        val customers = customerController.listAllCustomers();
+        val customers = customerController.listAllCustomers(null);
 
-        assertThat(customers).isEmpty();
+        assertThat(customers.getBody()).isEmpty();
     }
 
     @Test
     void shouldGetCustomerById() {
         val customer = customerRepository.findAll().getFirst();
 
-        val found = customerController.getCustomerById(customer.getId());
+        val found = customerController.getCustomerById(customer.getId(), null);
 
         assertThat(found).isNotNull();
     }
@@ -62,7 +68,7 @@ class CustomerControllerIT {
     void shouldFailWhenGetCustomerByIdReturnsEmpty() {
         val id = UUID.randomUUID();
 
-        assertThrows(NotFoundException.class, () -> customerController.getCustomerById(id));
+        assertThrows(NotFoundException.class, () -> customerController.getCustomerById(id, null));
     }
 
     @Test
@@ -109,7 +115,7 @@ class CustomerControllerIT {
         val customerDto = customerMapper.toModel(customer);
         customerDto.setName(name);
 
-        val result = customerController.updateCustomerById(customer.getId(), customerDto);
+        val result = customerController.updateCustomerById(customer.getId(), customerDto, null);
 
         assertThat(result.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(204));
 
@@ -122,7 +128,7 @@ class CustomerControllerIT {
         val id = UUID.randomUUID();
         val customer = CustomerDto.builder().build();
 
-        assertThrows(NotFoundException.class, () -> customerController.updateCustomerById(id, customer));
+        assertThrows(NotFoundException.class, () -> customerController.updateCustomerById(id, customer, null));
     }
 
     @Test
@@ -139,7 +145,7 @@ class CustomerControllerIT {
         customerDto.setName("Some new custome name");
         customerDto.setEmail("357@jkl.com");
 
-        val result = customerController.patchCustomerById(id, customerDto);
+        val result = customerController.patchCustomerById(id, customerDto, null);
         assertThat(result.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(204));
 
         val patched = customerRepository.findById(id);
@@ -155,7 +161,7 @@ class CustomerControllerIT {
         val id = UUID.randomUUID();
         val customer = CustomerDto.builder().build();
 
-        assertThrows(NotFoundException.class, () -> customerController.patchCustomerById(id, customer));
+        assertThrows(NotFoundException.class, () -> customerController.patchCustomerById(id, customer, null));
     }
 
     @Test
@@ -165,7 +171,7 @@ class CustomerControllerIT {
         val found = customerRepository.findById(customerId);
         assertThat(found).isNotEmpty();
 
-        val result = customerController.deleteCustomerById(customerId);
+        val result = customerController.deleteCustomerById(customerId, null);
 
         assertThat(result.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(204));
 
@@ -177,6 +183,59 @@ class CustomerControllerIT {
     void shouldFailDeleteCustomerByIdWhenCustomerNotFound() {
         val id = UUID.randomUUID();
 
-        assertThrows(NotFoundException.class, () -> customerController.deleteCustomerById(id));
+        assertThrows(NotFoundException.class, () -> customerController.deleteCustomerById(id, null));
+    }
+
+    @Test
+    @Transactional
+    void shouldPatchCustomerInSingleStatementWhenIfMatchIsCurrent() {
+        val customer = customerRepository.findAll().getFirst();
+        val ifMatch = EntityTags.strong(customer.getId(), customer.getVersion());
+
+        val statistics = enableStatistics();
+        val result = customerController.patchCustomerById(customer.getId(), CustomerDto.builder().email("new@example.com").build(), ifMatch);
+        statistics.setStatisticsEnabled(false);
+
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(204));
+        assertThat(result.getHeaders().getETag()).isEqualTo(EntityTags.strong(customer.getId(), customer.getVersion() + 1));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        val patched = customerRepository.findById(customer.getId()).get();
+        assertThat(patched.getEmail()).isEqualTo("new@example.com");
+        assertThat(patched.getName()).isEqualTo(customer.getName());
+    }
+
+    @Test
+    @Transactional
+    void shouldDeleteCustomerInSingleStatementWhenIfMatchIsCurrent() {
+        val customer = customerRepository.findAll().getFirst();
+        val ifMatch = EntityTags.strong(customer.getId(), customer.getVersion());
+
+        val statistics = enableStatistics();
+        val result = customerController.deleteCustomerById(customer.getId(), ifMatch);
+        statistics.setStatisticsEnabled(false);
+
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(204));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(customerRepository.findById(customer.getId())).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void shouldFailConditionalUpdateOfCustomerWithStaleVersion() {
+        val customer = customerRepository.findAll().getFirst();
+        val ifMatch = EntityTags.strong(customer.getId(), customer.getVersion() + 1);
+        val customerDto = CustomerDto.builder().name("Stale").build();
+
+        assertThrows(PreconditionFailedException.class, () -> customerController.updateCustomerById(customer.getId(), customerDto, ifMatch));
+        assertThat(customerRepository.findById(customer.getId()).get().getName()).isEqualTo(customer.getName());
+    }
+
+    private Statistics enableStatistics() {
+        val statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+
+        return statistics;
     }
-}
\ No newline at end of file
+}
@@ -2,8 +2,10 @@ package dev.cadebe.spring6restmvc.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.cadebe.spring6restmvc.model.CustomerDto;
+import dev.cadebe.spring6restmvc.model.ListVersion;
 import dev.cadebe.spring6restmvc.services.CustomerService;
 import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -14,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -26,6 +29,7 @@ import java.util.stream.Stream;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -50,6 +54,11 @@ class CustomerControllerTest {
     @Captor
     private ArgumentCaptor<CustomerDto> customerCaptor;
 
+    @BeforeEach
+    void setUp() {
+        when(customerService.getCustomerListVersion()).thenReturn(new ListVersion(2, LocalDateTime.now()));
+    }
+
     @Test
     void shouldGetCustomerList() throws Exception {
         val id1 = UUID.randomUUID();
@@ -99,7 +108,37 @@ class CustomerControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(id.toString())))
                 .andExpect(jsonPath("$.name", is("Customer X")))
-                .andExpect(jsonPath("$.version", is(1)));
+                .andExpect(jsonPath("$.version", is(1)))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-1\""));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWithoutLoadingCustomerWhenETagMatches() throws Exception {
+        val id = UUID.randomUUID();
+
+        when(customerService.getCustomerVersion(id)).thenReturn(Optional.of(2));
+
+        mockMvc.perform(get(CustomerController.BASE_URL + "/" + id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + id + "-2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(customerService, never()).getCustomerById(any());
+    }
+
+    @Test
+    void shouldReturnNotModifiedForUnchangedCustomerList() throws Exception {
+        val eTag = mockMvc.perform(get(CustomerController.BASE_URL))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(CustomerController.BASE_URL)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        verify(customerService).getAllCustomers();
     }
 
     @Test
@@ -0,0 +1,189 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.data.CustomerEntity;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
+import dev.cadebe.spring6restmvc.services.BeerNameIndex;
+import lombok.val;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+// Drives the beer and customer endpoints at -Dloadtest.rate requests per second against an H2 database topped up to
+// -Dloadtest.beers and -Dloadtest.customers rows, then fails when a latency percentile or the error rate breaches the
+// configured SLO. Run with the loadtest profile: mvn -Ploadtest verify -Dit.test=EndpointLatencyLoadIT
+@EnabledIfSystemProperty(named = "loadtest.rate", matches = "\\d+(\\.\\d+)?")
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+class EndpointLatencyLoadIT {
+
+    static final int SEED_BATCH_SIZE = 1000;
+
+    static final Map<String, Double> PERCENTILES = Map.of("p50", 50.0, "p95", 95.0, "p99", 99.0, "p99.9", 99.9);
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    BeerNameIndex beerNameIndex;
+
+    @Test
+    void shouldMeetLatencySlos() throws Exception {
+        seed(Integer.getInteger("loadtest.beers", 10_000), Integer.getInteger("loadtest.customers", 1_000));
+
+        val beerIds = beerRepository.findAll(PageRequest.of(0, 1000)).map(BeerEntity::getId).getContent();
+        val customerIds = customerRepository.findAll(PageRequest.of(0, 1000)).map(CustomerEntity::getId).getContent();
+        val styles = BeerStyle.values();
+        val basicAuth = "Basic " + Base64.getEncoder().encodeToString("user:user".getBytes(StandardCharsets.UTF_8));
+
+        val generator = new OpenModelLoadGenerator(List.of(
+                new OpenModelLoadGenerator.Scenario("GET /beers", 4,
+                        () -> get("/api/v1/beers?pageNumber=" + random(1, 20) + "&pageSize=25")),
+                new OpenModelLoadGenerator.Scenario("GET /beers?beerStyle", 2,
+                        () -> get("/api/v1/beers?beerStyle=" + styles[random(0, styles.length)] + "&pageSize=25")),
+                new OpenModelLoadGenerator.Scenario("GET /beers/{beerId}", 3,
+                        () -> get("/api/v1/beers/" + any(beerIds))),
+                new OpenModelLoadGenerator.Scenario("GET /customers", Integer.getInteger("loadtest.customer-weight", 1),
+                        () -> get("/api/v1/customers?pageNumber=" + random(1, 20) + "&pageSize=25", basicAuth)),
+                new OpenModelLoadGenerator.Scenario("GET /customers/{customerId}", Integer.getInteger("loadtest.customer-weight", 1),
+                        () -> get("/api/v1/customers/" + any(customerIds), basicAuth))));
+
+        val rate = Double.parseDouble(System.getProperty("loadtest.rate"));
+        generator.run(rate, durationProperty("loadtest.warmup", "5s"), durationProperty("loadtest.duration", "30s"));
+
+        System.out.printf("%nOpen model load at %.0f req/s, %,d beers, %,d customers%n", rate, beerRepository.count(),
+                customerRepository.count());
+        System.out.printf("%-30s %8s %8s %9s %9s %9s %9s %9s%n", "scenario", "requests", "errors", "p50 ms", "p95 ms",
+                "p99 ms", "p99.9 ms", "max ms");
+        generator.byScenario().forEach(this::print);
+        print("all", generator.overall());
+        System.out.println("outcomes: " + generator.overall().outcomes());
+
+        val report = Path.of("target", "loadtest-latency.hgrm");
+        Files.createDirectories(report.getParent());
+        try (val out = new PrintStream(new FileOutputStream(report.toFile()))) {
+            generator.overall().latencies().outputPercentileDistribution(out, 1_000_000.0);
+        }
+
+        assertThat(breaches(generator.overall())).isEmpty();
+    }
+
+    List<String> breaches(OpenModelLoadGenerator.Result result) {
+        val breaches = new ArrayList<String>();
+
+        assertThat(result.requests()).isPositive();
+
+        PERCENTILES.forEach((name, percentile) -> {
+            val slo = System.getProperty("loadtest.slo." + name);
+            if (slo != null) {
+                val actual = Duration.ofNanos(result.latencies().getValueAtPercentile(percentile));
+                if (actual.compareTo(DurationStyle.detectAndParse(slo)) > 0) {
+                    breaches.add("%s latency %d ms exceeds SLO of %s".formatted(name, actual.toMillis(), slo));
+                }
+            }
+        });
+
+        val errorRateSlo = Double.parseDouble(System.getProperty("loadtest.slo.error-rate", "0.001"));
+        if (result.errorRate() > errorRateSlo) {
+            breaches.add("error rate %.4f exceeds SLO of %s".formatted(result.errorRate(), errorRateSlo));
+        }
+
+        return breaches;
+    }
+
+    void seed(int beers, int customers) {
+        val existingBeers = (int) beerRepository.count();
+        val styles = BeerStyle.values();
+
+        for (int from = existingBeers; from < beers; from += SEED_BATCH_SIZE) {
+            beerRepository.saveAll(IntStream.range(from, Math.min(from + SEED_BATCH_SIZE, beers))
+                    .mapToObj(i -> BeerEntity.builder()
+                            .beerName("Load Test Beer " + i)
+                            .beerStyle(styles[i % styles.length])
+                            .upc(String.valueOf(100_000 + i))
+                            .price(new BigDecimal("9.99"))
+                            .quantityOnHand(i % 500)
+                            .build())
+                    .toList());
+        }
+
+        for (int from = (int) customerRepository.count(); from < customers; from += SEED_BATCH_SIZE) {
+            customerRepository.saveAll(IntStream.range(from, Math.min(from + SEED_BATCH_SIZE, customers))
+                    .mapToObj(i -> CustomerEntity.builder()
+                            .name("Load Test Customer " + i)
+                            .email("customer" + i + "@example.com")
+                            .build())
+                    .toList());
+        }
+
+        if (beers > existingBeers) {
+            beerNameIndex.rebuild();
+        }
+    }
+
+    void print(String scenario, OpenModelLoadGenerator.Result result) {
+        val latencies = result.latencies();
+        System.out.printf("%-30s %,8d %,8d %9.1f %9.1f %9.1f %9.1f %9.1f%n", scenario, result.requests(), result.errors(),
+                millis(latencies, 50), millis(latencies, 95), millis(latencies, 99), millis(latencies, 99.9),
+                latencies.getMaxValue() / 1_000_000.0);
+    }
+
+    HttpRequest get(String path, String... authorization) {
+        val request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(10));
+
+        if (authorization.length > 0) {
+            request.header("Authorization", authorization[0]);
+        }
+
+        return request.build();
+    }
+
+    static double millis(Histogram latencies, double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1_000_000.0;
+    }
+
+    static int random(int origin, int bound) {
+        return ThreadLocalRandom.current().nextInt(origin, bound);
+    }
+
+    static UUID any(List<UUID> ids) {
+        return ids.get(random(0, ids.size()));
+    }
+
+    static Duration durationProperty(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(name, defaultValue));
+    }
+}
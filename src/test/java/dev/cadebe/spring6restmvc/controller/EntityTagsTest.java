@@ -0,0 +1,67 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import dev.cadebe.spring6restmvc.model.ListVersion;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EntityTagsTest {
+
+    @Test
+    void shouldDeriveStrongTagFromIdAndVersion() {
+        val id = UUID.fromString("0b7c8a0e-0f4f-4b7e-9d1e-2d4a3f0c9b11");
+
+        assertThat(EntityTags.strong(id, 3)).isEqualTo("\"0b7c8a0e-0f4f-4b7e-9d1e-2d4a3f0c9b11-3\"");
+        assertThat(EntityTags.strong(id, 3)).isNotEqualTo(EntityTags.strong(id, 4));
+    }
+
+    @Test
+    void shouldDeriveWeakTagFromCountAndLastUpdate() {
+        val lastUpdated = LocalDateTime.of(2024, 5, 1, 12, 30, 0, 123_456_000);
+
+        val tag = EntityTags.weak(new ListVersion(74, lastUpdated));
+
+        assertThat(tag).startsWith("W/\"4a-");
+        assertThat(tag).isNotEqualTo(EntityTags.weak(new ListVersion(73, lastUpdated)));
+        assertThat(tag).isNotEqualTo(EntityTags.weak(new ListVersion(74, lastUpdated.plusNanos(1_000))));
+        assertThat(EntityTags.weak(new ListVersion(0, null))).isEqualTo("W/\"0-0\"");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"\"abc-1\"", "W/\"abc-1\"", "\"xyz\", \"abc-1\"", "*"})
+    void shouldMatchIfNoneMatchUsingWeakComparison(String ifNoneMatch) {
+        assertThat(EntityTags.matches(ifNoneMatch, "\"abc-1\"")).isTrue();
+        assertThat(EntityTags.matches(ifNoneMatch, "W/\"abc-1\"")).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "\"abc-2\"", "W/\"abc\""})
+    void shouldNotMatchDifferentTags(String ifNoneMatch) {
+        assertThat(EntityTags.matches(ifNoneMatch, "\"abc-1\"")).isFalse();
+    }
+
+    @Test
+    void shouldExtractVersionFromStrongIfMatchForSameId() {
+        val id = UUID.randomUUID();
+
+        assertThat(EntityTags.ifMatchVersion(EntityTags.strong(id, 7), id)).isEqualTo(7);
+        assertThat(EntityTags.ifMatchVersion("\"other\", " + EntityTags.strong(id, 8), id)).isEqualTo(8);
+        assertThat(EntityTags.ifMatchVersion("*", id)).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"\"abc\"", "W/\"%s-1\"", "\"%s-\"", "\"%s-x\"", "\"%s-99999999999\""})
+    void shouldFailIfMatchThatCannotCarryVersion(String template) {
+        val id = UUID.randomUUID();
+        val ifMatch = template.formatted(id);
+
+        assertThrows(PreconditionFailedException.class, () -> EntityTags.ifMatchVersion(ifMatch, id));
+    }
+}
@@ -0,0 +1,144 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import lombok.val;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Sends requests at a constant arrival rate, whether or not earlier requests have completed, and measures every
+// latency from the moment the request was scheduled so that a stalled server is not hidden by a stalled client
+class OpenModelLoadGenerator {
+
+    record Scenario(String name, int weight, Supplier<HttpRequest> request) {
+    }
+
+    record Result(Histogram latencies, long requests, long errors, Map<String, Long> outcomes) {
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+    }
+
+    private final List<Scenario> scenarios;
+    private final int totalWeight;
+    private final Map<String, Recording> recordings = new LinkedHashMap<>();
+    private final Recording overall = new Recording();
+
+    OpenModelLoadGenerator(List<Scenario> scenarios) {
+        this.scenarios = scenarios;
+        this.totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+        scenarios.forEach(scenario -> recordings.put(scenario.name(), new Recording()));
+    }
+
+    void run(double requestsPerSecond, Duration warmup, Duration duration) throws Exception {
+        val interval = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        val warmupNanos = warmup.toNanos();
+        val totalNanos = warmupNanos + duration.toNanos();
+        val pending = new ArrayList<CompletableFuture<?>>();
+
+        try (val executor = Executors.newVirtualThreadPerTaskExecutor();
+             val client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .executor(executor)
+                     .build()) {
+            val start = System.nanoTime();
+
+            for (long i = 0; i * interval < totalNanos; i++) {
+                val intendedStart = start + i * interval;
+                parkUntil(intendedStart);
+
+                val scenario = pick();
+                val measured = i * interval >= warmupNanos;
+
+                pending.add(client.sendAsync(scenario.request().get(), HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, failure) -> {
+                            if (measured) {
+                                val latency = System.nanoTime() - intendedStart;
+                                val outcome = failure != null ? failure.getClass().getSimpleName()
+                                        : String.valueOf(response.statusCode());
+                                val failed = failure != null || response.statusCode() >= 400;
+                                recordings.get(scenario.name()).record(latency, outcome, failed);
+                                overall.record(latency, outcome, failed);
+                            }
+                        }));
+            }
+
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                    .exceptionally(failure -> null)
+                    .get(1, TimeUnit.MINUTES);
+        }
+    }
+
+    Result overall() {
+        return overall.result();
+    }
+
+    Map<String, Result> byScenario() {
+        val results = new LinkedHashMap<String, Result>();
+        recordings.forEach((name, recording) -> results.put(name, recording.result()));
+        return results;
+    }
+
+    private Scenario pick() {
+        var remaining = ThreadLocalRandom.current().nextInt(totalWeight);
+
+        for (val scenario : scenarios) {
+            remaining -= scenario.weight();
+            if (remaining < 0) {
+                return scenario;
+            }
+        }
+
+        return scenarios.getLast();
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static class Recording {
+
+        // Three significant digits, auto resized so a multi second outlier is still recorded exactly
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final Map<String, LongAdder> outcomes = new ConcurrentSkipListMap<>();
+
+        void record(long latencyNanos, String outcome, boolean failed) {
+            latencies.recordValue(latencyNanos);
+            requests.incrementAndGet();
+            outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+            if (failed) {
+                errors.incrementAndGet();
+            }
+        }
+
+        Result result() {
+            val counts = new LinkedHashMap<String, Long>();
+            outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+
+            return new Result(latencies.copy(), requests.get(), errors.get(), counts);
+        }
+    }
+}
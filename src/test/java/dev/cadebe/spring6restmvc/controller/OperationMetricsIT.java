@@ -0,0 +1,92 @@
+package dev.cadebe.spring6restmvc.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OperationMetricsIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldTimeControllerEndpointsByOperationAndFilterShape() throws Exception {
+        mockMvc.perform(get(BeerController.BASE_URL).queryParam("beerName", "IPA").queryParam("beerStyle", "IPA"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(BeerController.BASE_URL).queryParam("beerStyle", "PORTER"))
+                .andExpect(status().isOk());
+
+        val both = meterRegistry.get("http.server.requests")
+                .tag("operation", "BeerController.getBeers")
+                .tag("filter", "both")
+                .tag("outcome", "SUCCESS")
+                .timer();
+
+        assertThat(both.count()).isPositive();
+        assertThat(meterRegistry.get("http.server.requests").tag("filter", "style").timer().count()).isPositive();
+        assertThat(bucketBoundariesInMillis(both.takeSnapshot().histogramCounts()))
+                .contains(25.0, 50.0, 100.0, 250.0, 500.0, 1000.0);
+    }
+
+    @Test
+    void shouldTimeServiceOperationsByOutcomeAndFilterShape() throws Exception {
+        mockMvc.perform(get(BeerController.BASE_URL).queryParam("beerName", "Porter"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(BeerController.BASE_URL + "/{beerId}", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get(CustomerController.BASE_URL).with(httpBasic("user", "user")))
+                .andExpect(status().isOk());
+
+        val listBeers = meterRegistry.get("service.operations")
+                .tag("operation", "listBeers")
+                .tag("filter", "name")
+                .tag("outcome", "success")
+                .timer();
+
+        assertThat(listBeers.count()).isPositive();
+        assertThat(listBeers.totalTime(TimeUnit.NANOSECONDS)).isPositive();
+        assertThat(bucketBoundariesInMillis(listBeers.takeSnapshot().histogramCounts()))
+                .contains(5.0, 10.0, 25.0, 50.0, 100.0, 250.0);
+        assertThat(meterRegistry.get("service.operations").tag("operation", "getBeerbyId").tag("outcome", "not_found")
+                .timer().count()).isPositive();
+        assertThat(meterRegistry.get("service.operations").tag("operation", "getAllCustomers").tag("filter", "none")
+                .timer().count()).isPositive();
+    }
+
+    @Test
+    void shouldExposeOperationTimersThroughActuator() throws Exception {
+        mockMvc.perform(get(BeerController.BASE_URL)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/metrics/service.operations").with(httpBasic("actuator", "actuator")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableTags[?(@.tag == 'operation')]").exists())
+                .andExpect(jsonPath("$.availableTags[?(@.tag == 'filter')]").exists());
+
+        mockMvc.perform(get("/actuator/metrics/service.operations.percentile").with(httpBasic("actuator", "actuator")))
+                .andExpect(status().isOk());
+    }
+
+    static double[] bucketBoundariesInMillis(CountAtBucket[] buckets) {
+        return Arrays.stream(buckets).mapToDouble(bucket -> bucket.bucket(TimeUnit.MILLISECONDS)).toArray();
+    }
+}
@@ -0,0 +1,31 @@
+package dev.cadebe.spring6restmvc.data;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+class TimeOrderedUuidGeneratorTest {
+
+    @Test
+    void shouldGenerateVersion7Uuids() {
+        val uuid = TimeOrderedUuidGenerator.next();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(uuid.getMostSignificantBits() >>> 16).isCloseTo(System.currentTimeMillis(), offset(1000L));
+    }
+
+    @Test
+    void shouldGenerateUuidsInAscendingOrder() {
+        val uuids = new ArrayList<String>();
+        for (int i = 0; i < 10_000; i++) {
+            uuids.add(TimeOrderedUuidGenerator.next().toString());
+        }
+
+        assertThat(uuids).isSorted().doesNotHaveDuplicates();
+    }
+}
@@ -1,10 +1,17 @@
 package dev.cadebe.spring6restmvc.repositories;
 
 import dev.cadebe.spring6restmvc.bootstrap.BootstrapData;
+import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
+import dev.cadebe.spring6restmvc.config.InventoryShardingProperties;
 import dev.cadebe.spring6restmvc.data.BeerOrderEntity;
 import dev.cadebe.spring6restmvc.data.BeerOrderShipmentEntity;
 import dev.cadebe.spring6restmvc.data.CustomerEntity;
+import dev.cadebe.spring6restmvc.mappers.BeerMapperImpl;
+import dev.cadebe.spring6restmvc.services.BeerCsvImportServiceImpl;
 import dev.cadebe.spring6restmvc.services.BeerCsvServiceImpl;
+import dev.cadebe.spring6restmvc.services.BeerNameIndex;
+import dev.cadebe.spring6restmvc.services.ShardedInventory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.val;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,7 +22,9 @@ import org.springframework.context.annotation.Import;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
-@Import({BootstrapData.class, BeerCsvServiceImpl.class})
+@Import({BootstrapData.class, BeerCsvServiceImpl.class, BeerCsvImportServiceImpl.class, BeerMapperImpl.class,
+        BeerNameIndex.class, ShardedInventory.class, InventoryShardingProperties.class, BeerServiceProperties.class,
+        SimpleMeterRegistry.class})
 class BeerOrderRepositoryTest {
 
     @Autowired
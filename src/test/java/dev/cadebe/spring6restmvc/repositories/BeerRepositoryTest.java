@@ -1,15 +1,26 @@
 package dev.cadebe.spring6restmvc.repositories;
 
 import dev.cadebe.spring6restmvc.bootstrap.BootstrapData;
+import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
+import dev.cadebe.spring6restmvc.config.InventoryShardingProperties;
 import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.mappers.BeerMapperImpl;
+import dev.cadebe.spring6restmvc.model.BeerDto;
 import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.services.BeerCsvImportServiceImpl;
 import dev.cadebe.spring6restmvc.services.BeerCsvServiceImpl;
+import dev.cadebe.spring6restmvc.services.BeerNameIndex;
+import dev.cadebe.spring6restmvc.services.ShardedInventory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.validation.ConstraintViolationException;
 import lombok.val;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 
@@ -19,7 +30,9 @@ import static org.assertj.core.groups.Tuple.tuple;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @DataJpaTest
-@Import({BootstrapData.class, BeerCsvServiceImpl.class})
+@Import({BootstrapData.class, BeerCsvServiceImpl.class, BeerCsvImportServiceImpl.class, BeerMapperImpl.class,
+        BeerNameIndex.class, ShardedInventory.class, InventoryShardingProperties.class, BeerServiceProperties.class,
+        SimpleMeterRegistry.class})
 class BeerRepositoryTest {
 
     @Autowired
@@ -38,6 +51,7 @@ class BeerRepositoryTest {
 
         assertThat(savedBeer).isNotNull();
         assertThat(savedBeer.getId()).isNotNull();
+        assertThat(savedBeer.getId().version()).isEqualTo(7);
     }
 
     @Test
@@ -70,27 +84,68 @@ class BeerRepositoryTest {
 
     @Test
     void shouldFindAllBeersByBeerStyle() {
-        val beerList = beerRepository.findAllByBeerStyle(PORTER, null).getContent();
+        val beerList = beerRepository.findAllByBeerStyle(PORTER, Pageable.unpaged(Sort.by("beerName"))).getContent();
 
         assertThat(beerList).hasSize(74);
         assertThat(beerList.subList(0, 3))
                 .extracting(BeerEntity::getBeerName, BeerEntity::getBeerStyle, BeerEntity::getUpc)
                 .containsExactly(
-                        tuple("Foreman", PORTER, "8"),
-                        tuple("He Said Baltic-Style Porter", PORTER, "20"),
-                        tuple("Porter (a/k/a Black Gold Porter)", PORTER, "131"));
+                        tuple("#003 Brown & Robust Porter", PORTER, "2384"),
+                        tuple("3 Gear Robust Porter", PORTER, "2195"),
+                        tuple("3 Picket Porter", PORTER, "664"));
     }
 
     @Test
     void shouldFindAllBeersByBeerNameAndBeerStyle() {
-        val beerList = beerRepository.findAllByBeerNameIsLikeIgnoreCaseAndBeerStyle("%american%", ALE, null).getContent();
+        val beerList = beerRepository.findAllByBeerNameIsLikeIgnoreCaseAndBeerStyle("%american%", ALE, Pageable.unpaged(Sort.by("beerName"))).getContent();
 
         assertThat(beerList).hasSize(26);
         assertThat(beerList.subList(0, 3))
                 .extracting(BeerEntity::getBeerName, BeerEntity::getBeerStyle, BeerEntity::getUpc)
                 .containsExactly(
-                        tuple("Bitter American", ALE, "25"),
-                        tuple("Bitter American (2011)", ALE, "34"),
-                        tuple("Banner American Rye", ALE, "190"));
+                        tuple("Ace Hole American Pale Ale", ALE, "1279"),
+                        tuple("Akari Shogun American Wheat Ale", ALE, "1007"),
+                        tuple("All American Blonde Ale", ALE, "572"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldProjectBeerDtosWithInventory() {
+        val page = beerRepository.findBeerDtos("%IPA%", null, true, Pageable.unpaged());
+
+        assertThat(page.getContent()).hasSize(336);
+        assertThat(page.getContent().subList(0, 3))
+                .extracting(BeerDto::getBeerName, BeerDto::getBeerStyle, BeerDto::getUpc)
+                .containsExactly(
+                        tuple("21st Amendment IPA (2006)", IPA, "29"),
+                        tuple("Brew Free! or Die IPA (2008)", IPA, "30"),
+                        tuple("Brew Free! or Die IPA (2009)", IPA, "31"));
+        assertThat(page.getContent()).allSatisfy(beer -> {
+            assertThat(beer.getId()).isNotNull();
+            assertThat(beer.getQuantityOnHand()).isNotNull();
+        });
+    }
+
+    @Test
+    void shouldProjectBeerDtosWithoutInventory() {
+        val page = beerRepository.findBeerDtos("%american%", ALE, false, Pageable.unpaged());
+
+        assertThat(page.getContent()).hasSize(26);
+        assertThat(page.getContent()).allSatisfy(beer -> {
+            assertThat(beer.getBeerStyle()).isEqualTo(ALE);
+            assertThat(beer.getPrice()).isNotNull();
+            assertThat(beer.getQuantityOnHand()).isNull();
+        });
+    }
+
+    @Test
+    void shouldProjectSortedPageOfBeerDtosWithTotalCount() {
+        val page = beerRepository.findBeerDtos(null, PORTER, true, PageRequest.of(1, 20, Sort.by("beerName")));
+
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(page.getTotalElements()).isEqualTo(74);
+        assertThat(page.getTotalPages()).isEqualTo(4);
+        assertThat(page.getContent())
+                .extracting(BeerDto::getBeerName)
+                .isSortedAccordingTo(String::compareTo);
+    }
+}
@@ -0,0 +1,308 @@
+package dev.cadebe.spring6restmvc.repositories;
+
+import dev.cadebe.spring6restmvc.bootstrap.BootstrapData;
+import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
+import dev.cadebe.spring6restmvc.config.InventoryShardingProperties;
+import dev.cadebe.spring6restmvc.mappers.BeerMapperImpl;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.services.BeerCsvImportServiceImpl;
+import dev.cadebe.spring6restmvc.services.BeerCsvServiceImpl;
+import dev.cadebe.spring6restmvc.services.BeerNameIndex;
+import dev.cadebe.spring6restmvc.services.ShardedInventory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Fails when one of the hot queries below stops being served by an index. The finders' plans are taken for the SQL
+// Hibernate generates and the values it binds, recorded at the JDBC level. Run with -Dexplain.mysql.url=... (user and
+// password included) to check the plans against a MySQL schema migrated by Flyway as well.
+@DataJpaTest
+@Import({BootstrapData.class, BeerCsvServiceImpl.class, BeerCsvImportServiceImpl.class, BeerMapperImpl.class,
+        BeerNameIndex.class, ShardedInventory.class, InventoryShardingProperties.class, BeerServiceProperties.class,
+        SimpleMeterRegistry.class, QueryPlanTest.RecordingConfig.class})
+class QueryPlanTest {
+
+    static final String SOME_ID = "X'0192b4a1c2d37e4f8a9b0c1d2e3f4a5b'";
+    static final UUID SOME_UUID = UUID.fromString("0192b4a1-c2d3-7e4f-8a9b-0c1d2e3f4a5b");
+
+    static final ScrollPosition AFTER_GALAXY_CAT = ScrollPosition.forward(Map.of("beerName", "Galaxy Cat", "id", SOME_UUID));
+
+    static final Map<String, Consumer<BeerRepository>> HOT_FINDERS = Map.ofEntries(
+            Map.entry("beer dtos by style sorted by name", beers ->
+                    beers.findBeerDtos(null, BeerStyle.IPA, true, PageRequest.of(1, 2, Sort.by("beerName")))),
+            Map.entry("beers after keyset position", beers ->
+                    beers.findAllBy(AFTER_GALAXY_CAT, Limit.of(25), Sort.by("beerName"))),
+            Map.entry("beers by style after keyset position", beers ->
+                    beers.findAllByBeerStyle(BeerStyle.IPA, AFTER_GALAXY_CAT, Limit.of(25), Sort.by("beerName"))),
+            Map.entry("beer list version by style", beers -> beers.findListVersion(null, BeerStyle.IPA)),
+            Map.entry("beer version by id", beers -> beers.findVersionById(SOME_UUID))
+    );
+
+    // A leading wildcard rules out an index seek, name searches are served by BeerNameIndex once it is ready. Their
+    // plans are still taken, so that the statements keep running on both databases, but may scan.
+    static final Map<String, Consumer<BeerRepository>> SCANNING_FINDERS = Map.ofEntries(
+            Map.entry("beer dtos by name pattern", beers ->
+                    beers.findBeerDtos("%ipa%", null, true, Pageable.unpaged(Sort.by("beerName")))),
+            Map.entry("beers by name pattern after keyset position", beers ->
+                    beers.findAllByBeerNameIsLikeIgnoreCase("%ipa%", AFTER_GALAXY_CAT, Limit.of(25), Sort.by("beerName")))
+    );
+
+    // Association loads Hibernate issues by foreign key, which no finder exposes
+    static final Map<String, String> HOT_QUERIES = Map.ofEntries(
+            Map.entry("customer by email", "select * from customer where email = '123@abc.com'"),
+            Map.entry("orders of customer", "select * from beer_order where customer_id = " + SOME_ID),
+            Map.entry("order lines of order", "select * from beer_order_line where beer_order_id = " + SOME_ID),
+            Map.entry("order lines of beer", "select * from beer_order_line where beer_id = " + SOME_ID),
+            Map.entry("categories of beer", "select category_id from beer_category where beer_id = " + SOME_ID),
+            Map.entry("beers of category", "select beer_id from beer_category where category_id = " + SOME_ID),
+            Map.entry("shipment of order", "select * from beer_order_shipment where beer_order_id = " + SOME_ID),
+            Map.entry("shards of beer", "select sum(quantity) from beer_inventory_shard where beer_id = " + SOME_ID)
+    );
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    RecordingDataSource recordingDataSource;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    static Stream<String> hotFinders() {
+        return HOT_FINDERS.keySet().stream().sorted();
+    }
+
+    static Stream<String> scanningFinders() {
+        return SCANNING_FINDERS.keySet().stream().sorted();
+    }
+
+    static Stream<String> hotQueries() {
+        return HOT_QUERIES.keySet().stream().sorted();
+    }
+
+    @ParameterizedTest
+    @MethodSource("hotFinders")
+    void shouldServeFinderFromAnIndexOnH2(String name) {
+        val statements = record(HOT_FINDERS.get(name));
+
+        assertThat(statements).as(name).isNotEmpty();
+        for (val statement : statements) {
+            assertThat(withoutDirectLookups(explainOnH2(statement))).as(name + ": " + statement.sql())
+                    .doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("scanningFinders")
+    void shouldExplainScanningFinderOnH2(String name) {
+        val statements = record(SCANNING_FINDERS.get(name));
+
+        assertThat(statements).as(name).isNotEmpty();
+        for (val statement : statements) {
+            assertThat(explainOnH2(statement)).as(name + ": " + statement.sql()).isNotBlank();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("hotQueries")
+    void shouldUseAnIndexOnH2(String name) {
+        val plan = jdbcTemplate.queryForObject("explain " + HOT_QUERIES.get(name), String.class);
+
+        assertThat(plan).as(name).doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "explain.mysql.url", matches = ".+")
+    void shouldUseAnIndexOnMySql() throws SQLException {
+        val hotStatements = new ArrayList<RecordedStatement>();
+        HOT_FINDERS.values().forEach(finder -> hotStatements.addAll(record(finder)));
+        val scanningStatements = new ArrayList<RecordedStatement>();
+        SCANNING_FINDERS.values().forEach(finder -> scanningStatements.addAll(record(finder)));
+        HOT_QUERIES.values().forEach(query -> hotStatements.add(new RecordedStatement(query)));
+        val fullScans = new ArrayList<String>();
+
+        try (val connection = DriverManager.getConnection(System.getProperty("explain.mysql.url"))) {
+            for (val statement : hotStatements) {
+                try (val explain = statement.prepareExplain(connection, toMySql(statement.sql()));
+                     val plan = explain.executeQuery()) {
+                    while (plan.next()) {
+                        val extra = String.valueOf(plan.getString("Extra"));
+                        if ("ALL".equals(plan.getString("type")) || extra.contains("Using filesort")) {
+                            fullScans.add(statement.sql() + ": " + plan.getString("type") + " " + extra);
+                        }
+                    }
+                }
+            }
+            for (val statement : scanningStatements) {
+                try (val explain = statement.prepareExplain(connection, toMySql(statement.sql()))) {
+                    explain.executeQuery().close();
+                }
+            }
+        }
+
+        assertThat(fullScans).isEmpty();
+    }
+
+    // H2 answers min, max and count without a condition from the index or the row count, but still names the scan
+    private static String withoutDirectLookups(String plan) {
+        return plan.replaceAll("(?i)\\.tableScan \\*/\\s*/\\* direct lookup \\*/", "");
+    }
+
+    // The statements are recorded with H2's dialect, only the row limit is written differently on MySQL
+    private static String toMySql(String sql) {
+        return sql.replaceAll("(?i)offset \\? rows fetch (first|next) \\? rows only", "limit ?, ?")
+                .replaceAll("(?i)fetch (first|next) \\? rows only", "limit ?");
+    }
+
+    private List<RecordedStatement> record(Consumer<BeerRepository> finder) {
+        recordingDataSource.statements.clear();
+        finder.accept(beerRepository);
+
+        val statements = List.copyOf(recordingDataSource.statements);
+        recordingDataSource.statements.clear();
+
+        return statements.stream()
+                .filter(statement -> statement.sql().strip().toLowerCase(Locale.ROOT).startsWith("select"))
+                .toList();
+    }
+
+    private String explainOnH2(RecordedStatement statement) {
+        val plan = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (val explain = statement.prepareExplain(connection, statement.sql());
+                 val resultSet = explain.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        });
+        recordingDataSource.statements.clear();
+
+        return plan;
+    }
+
+    // A prepared statement and the setter calls that bound its parameters, replayed on an EXPLAIN of the same SQL
+    record RecordedStatement(String sql, List<Map.Entry<Method, Object[]>> bindings) {
+
+        RecordedStatement(String sql) {
+            this(sql, new CopyOnWriteArrayList<>());
+        }
+
+        PreparedStatement prepareExplain(Connection connection, String sql) throws SQLException {
+            val explain = connection.prepareStatement("explain " + sql);
+            try {
+                for (val binding : bindings) {
+                    binding.getKey().invoke(explain, binding.getValue());
+                }
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                explain.close();
+                throw new SQLException("Could not bind " + sql, e);
+            }
+
+            return explain;
+        }
+    }
+
+    static class RecordingDataSource extends DelegatingDataSource {
+
+        final List<RecordedStatement> statements = new CopyOnWriteArrayList<>();
+
+        RecordingDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return recording(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return recording(super.getConnection(username, password));
+        }
+
+        private Connection recording(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        val result = invoke(connection, method, args);
+
+                        if (method.getName().equals("prepareStatement") && args[0] instanceof String sql) {
+                            val statement = new RecordedStatement(sql);
+                            statements.add(statement);
+                            return recording((PreparedStatement) result, statement);
+                        }
+
+                        return result;
+                    });
+        }
+
+        private static PreparedStatement recording(PreparedStatement preparedStatement, RecordedStatement statement) {
+            return (PreparedStatement) Proxy.newProxyInstance(RecordingDataSource.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        if (method.getDeclaringClass() == PreparedStatement.class && method.getName().startsWith("set")) {
+                            statement.bindings().add(Map.entry(method, args));
+                        }
+
+                        return invoke(preparedStatement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class RecordingConfig {
+
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)
+                            ? new RecordingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+}
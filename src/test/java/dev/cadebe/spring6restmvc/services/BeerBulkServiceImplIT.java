@@ -0,0 +1,119 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.model.BeerBulkResult;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.val;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static dev.cadebe.spring6restmvc.model.BeerBulkResult.Status.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BeerBulkServiceImplIT {
+
+    @Autowired
+    private BeerBulkService beerBulkService;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<BeerBulkResult> created = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        beerRepository.deleteAllById(created.stream()
+                .map(BeerBulkResult::id)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    @Test
+    void shouldCreateValidItemsOfJsonArrayAndReportInvalidOnes() throws Exception {
+        val results = createBeers("""
+                [
+                  {"beerName": "Bulk Lager", "beerStyle": "LAGER", "upc": "1001", "price": 4.99, "quantityOnHand": 12},
+                  {"beerName": "", "beerStyle": "LAGER", "upc": "1002", "price": 4.99},
+                  {"beerName": "Bulk Stout", "beerStyle": "STOUT", "upc": "1003", "price": null}
+                ]
+                """);
+
+        assertThat(results).extracting(BeerBulkResult::index).containsExactly(0, 1, 2);
+        assertThat(results).extracting(BeerBulkResult::status).containsExactly(CREATED, INVALID, INVALID);
+        assertThat(results.get(1).errors()).contains("beerName: must not be blank");
+        assertThat(results.get(2).errors()).containsExactly("price: must not be null");
+
+        val saved = beerRepository.findById(results.getFirst().id()).orElseThrow();
+        assertThat(saved.getBeerName()).isEqualTo("Bulk Lager");
+        assertThat(saved.getVersion()).isZero();
+    }
+
+    @Test
+    void shouldCreateItemsOfNdJsonAndSkipItemsThatCannotBeBound() throws Exception {
+        val results = createBeers("""
+                {"beerName": "Bulk Pils", "beerStyle": "PILSNER", "upc": "2001", "price": 3.50}
+                {"beerName": "Bulk Mystery", "beerStyle": "NOT_A_STYLE", "upc": "2002", "price": 3.50}
+                {"beerName": "Bulk Saison", "beerStyle": "SAISON", "upc": "2003", "price": 6.25}
+                """);
+
+        assertThat(results).extracting(BeerBulkResult::status).containsExactly(CREATED, INVALID, CREATED);
+        assertThat(results.get(1).errors().getFirst()).contains("NOT_A_STYLE");
+    }
+
+    @Test
+    void shouldStopAtMalformedInputAndKeepEarlierItems() throws Exception {
+        val results = createBeers("""
+                {"beerName": "Bulk Porter", "beerStyle": "PORTER", "upc": "3001", "price": 5.00}
+                {"beerName": "Bulk Broken",
+                """);
+
+        assertThat(results).extracting(BeerBulkResult::status).containsExactly(CREATED, FAILED);
+        assertThat(results.get(1).errors().getFirst()).startsWith("Malformed input");
+    }
+
+    @Test
+    void shouldInsertInJdbcBatchesPerChunk() throws Exception {
+        val body = IntStream.range(0, 1200)
+                .mapToObj(i -> """
+                        {"beerName": "Bulk Beer %d", "beerStyle": "ALE", "upc": "%d", "price": 2.00}""".formatted(i, 9000 + i))
+                .collect(Collectors.joining("\n"));
+
+        val statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+
+        try {
+            val results = createBeers(body);
+
+            assertThat(results).hasSize(1200).allMatch(result -> result.status() == CREATED);
+            assertThat(statistics.getTransactionCount()).isEqualTo(3);
+            // One batch of beers and one batch of their outbox events per chunk
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(6);
+            assertThat(statistics.getEntityInsertCount()).isEqualTo(2400);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    private List<BeerBulkResult> createBeers(String body) throws Exception {
+        val results = beerBulkService.createBeers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        created.addAll(results);
+
+        return results;
+    }
+}
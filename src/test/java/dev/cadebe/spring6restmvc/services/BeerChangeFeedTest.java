@@ -0,0 +1,242 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Slf4j
+class BeerChangeFeedTest {
+
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)");
+    private static final Pattern EVENT_NAME = Pattern.compile("event:(\\S+)");
+
+    private final BeerRepository beerRepository = mock(BeerRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BeerServiceProperties properties = new BeerServiceProperties();
+
+    private BeerChangeFeed feed;
+
+    private record Received(String id, String name) {
+    }
+
+    // Records what would have been written to the connection, optionally blocking like a client that stopped reading
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<Received> received = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private volatile CountDownLatch blockedUntil = new CountDownLatch(0);
+        private volatile boolean gone;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (gone) {
+                throw new IOException("Broken pipe");
+            }
+            sending.countDown();
+            try {
+                blockedUntil.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+
+            val text = builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(String.class::isInstance)
+                    .map(String.class::cast)
+                    .collect(Collectors.joining());
+            val id = EVENT_ID.matcher(text);
+            val name = EVENT_NAME.matcher(text);
+            received.add(new Received(id.find() ? id.group(1) : null, name.find() ? name.group(1) : null));
+        }
+
+        List<String> names() {
+            return received.stream().map(Received::name).toList();
+        }
+
+        String lastId() {
+            return received.getLast().id();
+        }
+    }
+
+    private BeerChangeFeed feed(int subscriberBufferSize) {
+        properties.getChanges().setSubscriberBufferSize(subscriberBufferSize);
+        feed = new BeerChangeFeed(beerRepository, properties, meterRegistry);
+        return feed;
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    private static BeerChangedEvent created(BeerStyle beerStyle) {
+        return BeerChangedEvent.created(BeerDto.builder()
+                .id(UUID.randomUUID())
+                .beerName("Feed " + beerStyle)
+                .beerStyle(beerStyle)
+                .build());
+    }
+
+    private RecordingEmitter subscribe(BeerStyle beerStyle, String lastEventId) {
+        val emitter = new RecordingEmitter();
+        feed.subscribe(beerStyle, lastEventId, emitter);
+        return emitter;
+    }
+
+    @Test
+    void shouldPushChangesMatchingStyleFilter() {
+        feed(16);
+        val ipa = subscribe(BeerStyle.IPA, null);
+        val stout = subscribe(BeerStyle.STOUT, null);
+        val all = subscribe(null, null);
+        val stoutId = UUID.randomUUID();
+        when(beerRepository.findBeerStyleById(stoutId)).thenReturn(Optional.of(BeerStyle.STOUT));
+
+        feed.onBeerChanged(created(BeerStyle.IPA));
+        feed.onBeerChanged(BeerChangedEvent.updated(stoutId));
+        feed.onBeerChanged(BeerChangedEvent.patched(UUID.randomUUID(), BeerStyle.IPA));
+        feed.onBeerChanged(BeerChangedEvent.deleted(UUID.randomUUID()));
+
+        awaitTrue(() -> all.received.size() == 4);
+        awaitTrue(() -> ipa.received.size() == 3 && stout.received.size() == 2);
+        assertThat(all.names()).containsExactly("created", "updated", "patched", "deleted");
+        assertThat(ipa.names()).containsExactly("created", "patched", "deleted");
+        assertThat(stout.names()).containsExactly("updated", "deleted");
+        verify(beerRepository, times(1)).findBeerStyleById(any());
+    }
+
+    @Test
+    void shouldNotLookUpStyleWithoutStyleFilteredSubscribers() {
+        feed(16);
+        val all = subscribe(null, null);
+        val ipa = subscribe(BeerStyle.IPA, null);
+        ipa.gone = true;
+        feed.onBeerChanged(created(BeerStyle.IPA));
+        awaitTrue(() -> feed.getSubscriberCount() == 1);
+
+        feed.onBeerChanged(BeerChangedEvent.updated(UUID.randomUUID()));
+
+        awaitTrue(() -> all.received.size() == 2);
+        assertThat(all.names()).containsExactly("created", "updated");
+        verify(beerRepository, never()).findBeerStyleById(any());
+    }
+
+    @Test
+    void shouldResumeAfterLastEventId() {
+        feed(16);
+        val first = subscribe(null, null);
+        feed.onBeerChanged(created(BeerStyle.ALE));
+        awaitTrue(() -> first.received.size() == 1);
+        val lastEventId = first.lastId();
+
+        feed.onBeerChanged(created(BeerStyle.LAGER));
+        feed.onBeerChanged(created(BeerStyle.GOSE));
+        awaitTrue(() -> first.received.size() == 3);
+
+        val resumed = subscribe(null, lastEventId);
+
+        awaitTrue(() -> resumed.received.size() == 2);
+        assertThat(resumed.received).containsExactlyElementsOf(first.received.subList(1, 3));
+    }
+
+    @Test
+    void shouldResyncSubscriberWithUnknownLastEventId() {
+        feed(16);
+
+        val resumed = subscribe(null, "elsewhere-12");
+
+        awaitTrue(() -> resumed.received.size() == 1);
+        assertThat(resumed.names()).containsExactly(BeerChangeFeed.RESYNC);
+    }
+
+    @Test
+    void shouldResyncSlowSubscriberWithoutHoldingUpOthers() {
+        feed(4);
+        val slow = subscribe(null, null);
+        slow.blockedUntil = new CountDownLatch(1);
+        val fast = subscribe(null, null);
+
+        // The slow subscriber gets stuck sending the first change, the fast one takes each change as it comes
+        feed.onBeerChanged(created(BeerStyle.PILSNER));
+        awaitTrue(() -> slow.sending.getCount() == 0 && fast.received.size() == 1);
+        for (int i = 2; i <= 20; i++) {
+            feed.onBeerChanged(created(BeerStyle.PILSNER));
+            val sent = i;
+            awaitTrue(() -> fast.received.size() == sent);
+        }
+        slow.blockedUntil.countDown();
+
+        // The change the slow subscriber was stuck on, then the resync covering everything after it
+        awaitTrue(() -> slow.received.size() == 2);
+        assertThat(slow.names()).containsExactly("created", BeerChangeFeed.RESYNC);
+        assertThat(slow.lastId()).isEqualTo(fast.lastId());
+        assertThat(meterRegistry.get("beer.changes.resyncs").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldHoldTenThousandIdleSubscribersOnVirtualThreads() {
+        feed(16);
+        val threads = ManagementFactory.getThreadMXBean();
+        val platformThreadsBefore = threads.getThreadCount();
+
+        val emitters = new ArrayList<RecordingEmitter>();
+        for (int i = 0; i < 10_000; i++) {
+            emitters.add(subscribe(i % 2 == 0 ? BeerStyle.IPA : null, null));
+        }
+
+        assertThat(feed.getSubscriberCount()).isEqualTo(10_000);
+        assertThat(threads.getThreadCount() - platformThreadsBefore).isLessThan(50);
+
+        val started = System.nanoTime();
+        feed.onBeerChanged(created(BeerStyle.IPA));
+        awaitTrue(() -> emitters.stream().allMatch(emitter -> emitter.received.size() == 1));
+        log.info("One change reached 10,000 subscribers in {} ms, {} platform threads before and {} after",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), platformThreadsBefore,
+                threads.getThreadCount());
+
+        feed.close();
+        assertThat(feed.getSubscriberCount()).isZero();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within 20 s").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
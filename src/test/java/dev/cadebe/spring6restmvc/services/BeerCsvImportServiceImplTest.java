@@ -0,0 +1,108 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.BeerServiceProperties;
+import dev.cadebe.spring6restmvc.mappers.BeerMapperImpl;
+import dev.cadebe.spring6restmvc.model.BeerCsv;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class BeerCsvImportServiceImplTest {
+
+    private static final String CSV = """
+            "row","count.x","abv","ibu","id","beer","style","brewery_id","ounces","style2","count.y","brewery","city","state","label"
+            "1",1,0.05,NA,1436,"Pub Beer","American Pale Lager",408,12,NA,409,"10 Barrel Brewing Company","Bend","OR","Pub Beer"
+            "2",not-a-number,0.066,NA,2265,"Devil's Cup","American Pale Ale (APA)",177,12,NA,178,"18th Street Brewery","Gary","IN","Devil's Cup"
+            "3",3,0.071,NA,2264,"Rise of the Phoenix","American IPA",177,12,NA,178,"18th Street Brewery","Gary","IN","Rise of the Phoenix"
+            "4",4,0.09,NA,2263,"","American Double / Imperial IPA",177,12,NA,178,"18th Street Brewery","Gary","IN","Nameless"
+            "5",5,0.075,NA,2262,"Sophomoric Saison","Saison / Farmhouse Ale",177,12,NA,178,"18th Street Brewery","Gary","IN","Sophomoric Saison"
+            "6",6,0.077,NA,2261,"Regional Ryeot","American Stout",177,12,NA,178,"18th Street Brewery","Gary","IN","Regional Ryeot"
+            """;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    SimpleMeterRegistry meterRegistry;
+
+    BeerCsvImportService beerCsvImportService;
+
+    @BeforeEach
+    void setUp() {
+        val beerServiceProperties = new BeerServiceProperties();
+        beerServiceProperties.getCsvImport().setChunkSize(2);
+        meterRegistry = new SimpleMeterRegistry();
+
+        beerCsvImportService = new BeerCsvImportServiceImpl(beerServiceProperties, new BeerCsvServiceImpl(),
+                new BeerMapperImpl(), entityManager, new TransactionTemplate(transactionManager), eventPublisher,
+                meterRegistry);
+    }
+
+    @Test
+    void shouldImportReadableRowsInChunksAndSkipTheRest() {
+        val result = beerCsvImportService.importCsv(new StringReader(CSV));
+
+        assertThat(result.rowsRead()).isEqualTo(6);
+        assertThat(result.rowsImported()).isEqualTo(4);
+        assertThat(result.rowsSkipped()).isEqualTo(2);
+        assertThat(result.rowsFailed()).isZero();
+        assertThat(result.chunks()).isEqualTo(3);
+        assertThat(result.rowsPerSecond()).isPositive();
+
+        assertThat(beerRepository.findAll())
+                .extracting(beer -> beer.getBeerName() + "|" + beer.getBeerStyle())
+                .containsExactlyInAnyOrder(
+                        "Pub Beer|" + BeerStyle.LAGER,
+                        "Rise of the Phoenix|" + BeerStyle.IPA,
+                        "Sophomoric Saison|" + BeerStyle.SAISON,
+                        "Regional Ryeot|" + BeerStyle.STOUT);
+    }
+
+    @Test
+    void shouldPublishProgressAndThroughputMeters() {
+        beerCsvImportService.importCsv(new StringReader(CSV));
+
+        assertThat(meterRegistry.get("beer.csv.import.rows").tag("outcome", "imported").counter().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("beer.csv.import.rows").tag("outcome", "skipped").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("beer.csv.import.chunk").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("beer.csv.import.progress").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldMapCsvRowToBeerEntity() {
+        val beerCsv = new BeerCsv();
+        beerCsv.setRow("42");
+        beerCsv.setCountX(7);
+        beerCsv.setBeer("A very long beer name that certainly exceeds the fifty character limit");
+        beerCsv.setStyle("Baltic Porter");
+
+        val entity = BeerCsvImportServiceImpl.toBeerEntity(beerCsv);
+
+        assertThat(entity.getBeerName()).hasSize(50).endsWith("...");
+        assertThat(entity.getBeerStyle()).isEqualTo(BeerStyle.PORTER);
+        assertThat(entity.getUpc()).isEqualTo("42");
+        assertThat(entity.getQuantityOnHand()).isEqualTo(7);
+    }
+}
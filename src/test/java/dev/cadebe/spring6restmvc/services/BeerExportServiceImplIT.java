@@ -0,0 +1,81 @@
+package dev.cadebe.spring6restmvc.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static dev.cadebe.spring6restmvc.model.BeerExportFormat.CSV;
+import static dev.cadebe.spring6restmvc.model.BeerExportFormat.NDJSON;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BeerExportServiceImplIT {
+
+    @Autowired
+    private BeerExportService beerExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldExportWholeCatalogAsNdJson() throws Exception {
+        val outputStream = new ByteArrayOutputStream();
+
+        val count = beerExportService.exportBeers(null, null, NDJSON, outputStream);
+
+        val lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertThat(count).isEqualTo(2413);
+        assertThat(lines).hasSize(2413);
+        assertThat(objectMapper.readValue(lines[0], BeerDto.class).getId()).isNotNull();
+    }
+
+    @Test
+    void shouldExportFilteredBeersAsNdJson() throws Exception {
+        val outputStream = new ByteArrayOutputStream();
+
+        val count = beerExportService.exportBeers("american", BeerStyle.ALE, NDJSON, outputStream);
+
+        val lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertThat(count).isEqualTo(26);
+        assertThat(lines).hasSize(26);
+
+        for (val line : lines) {
+            val beer = objectMapper.readValue(line, BeerDto.class);
+            assertThat(beer.getBeerStyle()).isEqualTo(BeerStyle.ALE);
+            assertThat(beer.getBeerName()).containsIgnoringCase("american");
+        }
+    }
+
+    @Test
+    void shouldExportBeersByStyleAsCsvWithHeader() throws Exception {
+        val outputStream = new ByteArrayOutputStream();
+
+        val count = beerExportService.exportBeers(null, BeerStyle.PORTER, CSV, outputStream);
+
+        val lines = outputStream.toString(StandardCharsets.UTF_8).split("\r\n");
+
+        assertThat(count).isEqualTo(74);
+        assertThat(lines).hasSize(75);
+        assertThat(lines[0]).isEqualTo(String.join(",", BeerExportServiceImpl.CSV_HEADER));
+        assertThat(lines[1]).contains(",PORTER,");
+    }
+
+    @Test
+    void shouldExportNothingWhenNoBeersMatch() throws Exception {
+        val outputStream = new ByteArrayOutputStream();
+
+        val count = beerExportService.exportBeers("no such beer", null, NDJSON, outputStream);
+
+        assertThat(count).isZero();
+        assertThat(outputStream.size()).isZero();
+    }
+}
@@ -0,0 +1,262 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.mappers.BeerMapperImpl;
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static dev.cadebe.spring6restmvc.model.BeerStyle.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BeerNameIndexTest {
+
+    private final BeerRepository beerRepository = mock(BeerRepository.class);
+
+    private final ShardedInventory shardedInventory = mock(ShardedInventory.class);
+
+    private BeerNameIndex beerNameIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(beerRepository.findBeerDtos(isNull(), isNull(), eq(true), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(
+                beer("Hop Nosh IPA", IPA),
+                beer("IPA", IPA),
+                beer("Hipster Ale", ALE),
+                beer("Ipanema Pale Ale", PALE_ALE),
+                beer("Lipa Porter", PORTER))));
+
+        when(shardedInventory.loadShardTotals(any())).thenAnswer(returnsFirstArg());
+
+        beerNameIndex = new BeerNameIndex(beerRepository, new BeerMapperImpl(), shardedInventory);
+        beerNameIndex.rebuild();
+    }
+
+    @Test
+    void shouldRankExactThenPrefixThenWordThenInfixMatches() {
+        val result = beerNameIndex.search("ipa", null, Pageable.unpaged());
+
+        assertThat(result.getContent())
+                .extracting(BeerDto::getBeerName)
+                .containsExactly("IPA", "Ipanema Pale Ale", "Hop Nosh IPA", "Lipa Porter");
+    }
+
+    @Test
+    void shouldFilterByBeerStyle() {
+        val result = beerNameIndex.search("ipa", IPA, Pageable.unpaged());
+
+        assertThat(result.getContent())
+                .extracting(BeerDto::getBeerName)
+                .containsExactly("IPA", "Hop Nosh IPA");
+    }
+
+    @Test
+    void shouldPageRankedMatches() {
+        val result = beerNameIndex.search("ipa", null, PageRequest.of(1, 3));
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getTotalPages()).isEqualTo(2);
+        assertThat(result.getContent())
+                .extracting(BeerDto::getBeerName)
+                .containsExactly("Lipa Porter");
+    }
+
+    @Test
+    void shouldRequireContiguousSubstringNotJustSharedGrams() {
+        val result = beerNameIndex.search("hop ale", null, Pageable.unpaged());
+
+        assertThat(result.getContent()).isEmpty();
+    }
+
+    @Test
+    void shouldMatchQueriesShorterThanGramSize() {
+        val result = beerNameIndex.search("ip", null, Pageable.unpaged());
+
+        assertThat(result.getContent()).hasSize(5);
+    }
+
+    @Test
+    void shouldApplyIncrementalUpdates() {
+        val added = beer("Galaxy Cat", PALE_ALE);
+        beerNameIndex.onBeerChanged(BeerChangedEvent.created(added));
+
+        assertThat(beerNameIndex.search("galaxy", null, Pageable.unpaged()).getContent())
+                .extracting(BeerDto::getId)
+                .containsExactly(added.getId());
+
+        added.setBeerName("Nebula Cat");
+        beerNameIndex.onBeerChanged(BeerChangedEvent.patched(added));
+
+        assertThat(beerNameIndex.search("galaxy", null, Pageable.unpaged()).getContent()).isEmpty();
+        assertThat(beerNameIndex.search("nebula", null, Pageable.unpaged()).getContent()).hasSize(1);
+
+        beerNameIndex.onBeerChanged(BeerChangedEvent.deleted(added.getId()));
+
+        assertThat(beerNameIndex.search("nebula", null, Pageable.unpaged()).getContent()).isEmpty();
+    }
+
+    @Test
+    void shouldReloadBeersChangedWithoutReadBackOnRefresh() {
+        val renamed = beerNameIndex.search("lipa", null, Pageable.unpaged()).getContent().getFirst();
+
+        when(beerRepository.findAllById(Set.of(renamed.getId()))).thenReturn(List.of(BeerEntity.builder()
+                .id(renamed.getId())
+                .version(2)
+                .beerName("Shipwreck Porter")
+                .beerStyle(PORTER)
+                .upc("123")
+                .price(BigDecimal.TEN)
+                .build()));
+
+        beerNameIndex.onBeerChanged(BeerChangedEvent.patched(renamed.getId(), null));
+
+        // Searches serve the last known entry and leave the reload to the refresh
+        assertThat(beerNameIndex.search("lipa", null, Pageable.unpaged()).getContent()).hasSize(1);
+        verify(beerRepository, never()).findAllById(any());
+
+        beerNameIndex.refreshStaleBeers();
+
+        assertThat(beerNameIndex.search("lipa", null, Pageable.unpaged()).getContent()).isEmpty();
+        assertThat(beerNameIndex.search("shipwreck", null, Pageable.unpaged()).getContent())
+                .extracting(BeerDto::getVersion)
+                .containsExactly(2);
+    }
+
+    @Test
+    void shouldKeepServingLastKnownEntryWhenRefreshFails() {
+        val renamed = beerNameIndex.search("lipa", null, Pageable.unpaged()).getContent().getFirst();
+
+        when(beerRepository.findAllById(Set.of(renamed.getId())))
+                .thenThrow(new DataAccessResourceFailureException("Database unavailable"))
+                .thenReturn(List.of(BeerEntity.builder()
+                        .id(renamed.getId())
+                        .version(2)
+                        .beerName("Shipwreck Porter")
+                        .beerStyle(PORTER)
+                        .upc("123")
+                        .price(BigDecimal.TEN)
+                        .build()));
+
+        beerNameIndex.onBeerChanged(BeerChangedEvent.patched(renamed.getId(), null));
+        beerNameIndex.refreshStaleBeers();
+
+        assertThat(beerNameIndex.search("lipa", null, Pageable.unpaged()).getContent()).hasSize(1);
+
+        beerNameIndex.refreshStaleBeers();
+
+        assertThat(beerNameIndex.search("lipa", null, Pageable.unpaged()).getContent()).isEmpty();
+        assertThat(beerNameIndex.search("shipwreck", null, Pageable.unpaged()).getContent()).hasSize(1);
+    }
+
+    @Test
+    void shouldNotPutBackBeerDeletedWhileItIsReloaded() {
+        val deleted = beerNameIndex.search("lipa", null, Pageable.unpaged()).getContent().getFirst();
+
+        // The stale row is read before the delete, whose event arrives while the refresh is still reading
+        when(beerRepository.findAllById(Set.of(deleted.getId()))).thenAnswer(invocation -> {
+            beerNameIndex.onBeerChanged(BeerChangedEvent.deleted(deleted.getId()));
+            return List.of(BeerEntity.builder()
+                    .id(deleted.getId())
+                    .version(2)
+                    .beerName("Lipa Porter")
+                    .beerStyle(PORTER)
+                    .upc("123")
+                    .price(BigDecimal.TEN)
+                    .build());
+        });
+
+        beerNameIndex.onBeerChanged(BeerChangedEvent.patched(deleted.getId(), null));
+        beerNameIndex.refreshStaleBeers();
+
+        assertThat(beerNameIndex.search("lipa", null, Pageable.unpaged()).getContent()).isEmpty();
+        assertThat(beerNameIndex.search("porter", null, Pageable.unpaged()).getContent()).isEmpty();
+    }
+
+    @Test
+    void shouldKeepNewerBeerChangedWhileItIsReloaded() {
+        val renamed = beerNameIndex.search("lipa", null, Pageable.unpaged()).getContent().getFirst();
+        val newer = beer("Lighthouse Porter", PORTER);
+        newer.setId(renamed.getId());
+        newer.setVersion(3);
+
+        when(beerRepository.findAllById(Set.of(renamed.getId()))).thenAnswer(invocation -> {
+            beerNameIndex.onBeerChanged(BeerChangedEvent.updated(newer));
+            return List.of(BeerEntity.builder()
+                    .id(renamed.getId())
+                    .version(2)
+                    .beerName("Shipwreck Porter")
+                    .beerStyle(PORTER)
+                    .upc("123")
+                    .price(BigDecimal.TEN)
+                    .build());
+        });
+
+        beerNameIndex.onBeerChanged(BeerChangedEvent.patched(renamed.getId(), null));
+        beerNameIndex.refreshStaleBeers();
+
+        assertThat(beerNameIndex.search("shipwreck", null, Pageable.unpaged()).getContent()).isEmpty();
+        assertThat(beerNameIndex.search("lighthouse", null, Pageable.unpaged()).getContent())
+                .extracting(BeerDto::getVersion)
+                .containsExactly(3);
+    }
+
+    @Test
+    void shouldKeepChangesMadeWhileRebuildReadsBeers() {
+        val deleted = beer("Stale Snapshot Stout", STOUT);
+        val added = beer("Fresh Snapshot Saison", SAISON);
+
+        // The snapshot is read before the delete and the insert, whose events arrive while it is still being read
+        when(beerRepository.findBeerDtos(isNull(), isNull(), eq(true), any(Pageable.class))).thenAnswer(invocation -> {
+            beerNameIndex.onBeerChanged(BeerChangedEvent.deleted(deleted.getId()));
+            beerNameIndex.onBeerChanged(BeerChangedEvent.created(added));
+            return new PageImpl<>(List.of(deleted));
+        });
+
+        beerNameIndex.rebuild();
+
+        assertThat(beerNameIndex.search("snapshot", null, Pageable.unpaged()).getContent())
+                .extracting(BeerDto::getId)
+                .containsExactly(added.getId());
+    }
+
+    @Test
+    void shouldReturnCopiesThatDoNotAffectTheIndex() {
+        val first = beerNameIndex.search("ipa", null, Pageable.unpaged()).getContent().getFirst();
+        first.setQuantityOnHand(null);
+
+        val again = beerNameIndex.search("ipa", null, Pageable.unpaged()).getContent().getFirst();
+
+        assertThat(again.getQuantityOnHand()).isEqualTo(10);
+    }
+
+    private static BeerDto beer(String beerName, BeerStyle beerStyle) {
+        return BeerDto.builder()
+                .id(UUID.randomUUID())
+                .beerName(beerName)
+                .beerStyle(beerStyle)
+                .upc("123")
+                .price(BigDecimal.TEN)
+                .quantityOnHand(10)
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.model.BeerOrderDto;
+import dev.cadebe.spring6restmvc.model.BeerOrderLineDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest
+class BeerOrderServiceJpaIT {
+
+    private static final int INITIAL_STOCK = 100;
+    private static final int ORDERS = 200;
+
+    @Autowired
+    private BeerOrderService beerOrderService;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private BeerEntity hotBeer;
+
+    private UUID customerId;
+
+    @BeforeEach
+    void setUp() {
+        hotBeer = beerRepository.save(BeerEntity.builder()
+                .beerName("Limited Release")
+                .beerStyle(BeerStyle.IPA)
+                .upc("0000000000210")
+                .price(new BigDecimal("14.99"))
+                .quantityOnHand(INITIAL_STOCK)
+                .build());
+        customerId = customerRepository.findAll().getFirst().getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from beer_order_line "
+                + "where beer_order_id in (select id from beer_order where customer_ref like 'STRESS-%')");
+        jdbcTemplate.update("delete from beer_order where customer_ref like 'STRESS-%'");
+        beerRepository.deleteById(hotBeer.getId());
+    }
+
+    @Test
+    void shouldNeverOversellUnderConcurrentOrders() throws Exception {
+        val placed = new AtomicInteger();
+        val outOfStock = new AtomicInteger();
+        val busy = new AtomicInteger();
+        val start = new CountDownLatch(1);
+        val futures = new ArrayList<Future<?>>();
+
+        long elapsed;
+        try (val executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < ORDERS; i++) {
+                val customerRef = "STRESS-" + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        beerOrderService.placeOrder(BeerOrderDto.builder()
+                                .customerId(customerId)
+                                .customerRef(customerRef)
+                                .beerOrderLines(List.of(BeerOrderLineDto.builder()
+                                        .beerId(hotBeer.getId())
+                                        .orderQuantity(1)
+                                        .build()))
+                                .build());
+                        placed.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        outOfStock.incrementAndGet();
+                    } catch (DatabaseBusyException e) {
+                        busy.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            val started = System.nanoTime();
+            start.countDown();
+            for (val future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            elapsed = System.nanoTime() - started;
+        }
+
+        val remaining = beerRepository.findById(hotBeer.getId()).orElseThrow().getQuantityOnHand();
+        val allocated = jdbcTemplate.queryForObject("select coalesce(sum(l.quantity_allocated), 0) "
+                + "from beer_order_line l join beer_order o on o.id = l.beer_order_id "
+                + "where o.customer_ref like 'STRESS-%'", Integer.class);
+
+        log.info("{} orders in {} ms ({} orders/s): {} placed, {} out of stock, {} rejected as busy", ORDERS,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), Math.round(ORDERS / (elapsed / 1e9)), placed, outOfStock,
+                busy);
+
+        assertThat(placed.get() + outOfStock.get() + busy.get()).isEqualTo(ORDERS);
+        assertThat(remaining).isNotNegative();
+        assertThat(placed.get()).isEqualTo(INITIAL_STOCK - remaining).isEqualTo(allocated);
+        if (busy.get() <= ORDERS - INITIAL_STOCK) {
+            assertThat(remaining).isZero();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.data.BeerOrderEntity;
+import dev.cadebe.spring6restmvc.mappers.BeerOrderMapper;
+import dev.cadebe.spring6restmvc.model.BeerOrderDto;
+import dev.cadebe.spring6restmvc.model.BeerOrderLineDto;
+import dev.cadebe.spring6restmvc.repositories.BeerOrderRepository;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BeerOrderServiceJpaTest {
+
+    private final BeerOrderRepository beerOrderRepository = mock(BeerOrderRepository.class);
+    private final BeerRepository beerRepository = mock(BeerRepository.class);
+    private final CustomerRepository customerRepository = mock(CustomerRepository.class);
+    private final BeerOrderMapper beerOrderMapper = mock(BeerOrderMapper.class);
+    private final ShardedInventory shardedInventory = mock(ShardedInventory.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private final BeerOrderService beerOrderService = new BeerOrderServiceJpa(beerOrderRepository, beerRepository,
+            customerRepository, beerOrderMapper, shardedInventory, mock(ApplicationEventPublisher.class),
+            new TransactionTemplate(transactionManager));
+
+    private final UUID beerId = UUID.randomUUID();
+
+    private final BeerOrderDto beerOrder = BeerOrderDto.builder()
+            .customerId(UUID.randomUUID())
+            .customerRef("DEADLOCK-1")
+            .beerOrderLines(List.of(BeerOrderLineDto.builder().beerId(beerId).orderQuantity(2).build()))
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        when(customerRepository.existsById(beerOrder.getCustomerId())).thenReturn(true);
+        when(beerRepository.getReferenceById(beerId)).thenReturn(BeerEntity.builder().id(beerId).build());
+        when(beerOrderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(beerOrderMapper.toModel(any(BeerOrderEntity.class))).thenReturn(beerOrder);
+    }
+
+    @Test
+    void shouldPlaceOrderAgainAfterLosingDeadlock() {
+        when(shardedInventory.allocate(beerId, 2))
+                .thenThrow(new CannotAcquireLockException("Deadlock found when trying to get lock"))
+                .thenReturn(true);
+
+        assertThat(beerOrderService.placeOrder(beerOrder)).isSameAs(beerOrder);
+
+        verify(shardedInventory, times(2)).allocate(beerId, 2);
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void shouldGiveUpAfterRepeatedDeadlocks() {
+        when(shardedInventory.allocate(beerId, 2))
+                .thenThrow(new CannotAcquireLockException("Deadlock found when trying to get lock"));
+
+        assertThatThrownBy(() -> beerOrderService.placeOrder(beerOrder)).isInstanceOf(CannotAcquireLockException.class);
+
+        verify(shardedInventory, times(BeerOrderServiceJpa.MAX_ATTEMPTS)).allocate(beerId, 2);
+    }
+
+    @Test
+    void shouldNotRetryInsufficientStock() {
+        when(shardedInventory.allocate(beerId, 2)).thenReturn(false);
+        when(beerRepository.existsById(beerId)).thenReturn(true);
+
+        assertThatThrownBy(() -> beerOrderService.placeOrder(beerOrder)).isInstanceOf(InsufficientStockException.class);
+
+        verify(shardedInventory).allocate(beerId, 2);
+    }
+
+    @Test
+    void shouldRejectLinesForTheSameBeerThatOverflowTogether() {
+        val overflowingOrder = BeerOrderDto.builder()
+                .customerId(beerOrder.getCustomerId())
+                .customerRef("OVERFLOW-1")
+                .beerOrderLines(List.of(
+                        BeerOrderLineDto.builder().beerId(beerId).orderQuantity(Integer.MAX_VALUE).build(),
+                        BeerOrderLineDto.builder().beerId(beerId).orderQuantity(2).build()))
+                .build();
+
+        assertThatThrownBy(() -> beerOrderService.placeOrder(overflowingOrder))
+                .isInstanceOf(OrderQuantityOverflowException.class);
+
+        verifyNoInteractions(shardedInventory);
+    }
+}
@@ -0,0 +1,104 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Tops the beer table up to -Dloadtest.pagination-beers rows (e.g. 1000000) and prints the median time to fetch pages
+// 1, 100 and 500 of the unfiltered beer list by page number and by cursor. A cursor page is timed from the position
+// the previous page returned, as a client walking the list would fetch it.
+// Run with the loadtest profile: mvn -Ploadtest verify -Dit.test=BeerPaginationLoadIT -Dloadtest.pagination-beers=1000000
+@EnabledIfSystemProperty(named = "loadtest.pagination-beers", matches = "\\d+")
+@SpringBootTest
+class BeerPaginationLoadIT {
+
+    static final int SEED_BATCH_SIZE = 1000;
+    static final int PAGE_SIZE = 25;
+    static final int ROUNDS = 7;
+    static final List<Integer> PAGES = List.of(1, 100, 500);
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Test
+    void shouldPrintOffsetAndCursorPageTimes() {
+        seed(Integer.getInteger("loadtest.pagination-beers"));
+
+        val offsetNanos = new long[PAGES.size()][ROUNDS];
+        val cursorNanos = new long[PAGES.size()][ROUNDS];
+        val lastPage = PAGES.get(PAGES.size() - 1);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < PAGES.size(); i++) {
+                val started = System.nanoTime();
+                val page = beerService.listBeers(null, null, true, PAGES.get(i), PAGE_SIZE);
+                offsetNanos[i][round] = System.nanoTime() - started;
+
+                assertThat(page.getContent()).hasSize(PAGE_SIZE);
+            }
+
+            ScrollPosition position = ScrollPosition.keyset();
+            for (int pageNumber = 1; pageNumber <= lastPage; pageNumber++) {
+                val started = System.nanoTime();
+                Window<BeerDto> window = beerService.listBeersByCursor(null, null, true, position, PAGE_SIZE);
+                val elapsed = System.nanoTime() - started;
+
+                assertThat(window.getContent()).hasSize(PAGE_SIZE);
+                position = window.positionAt(window.size() - 1);
+
+                val index = PAGES.indexOf(pageNumber);
+                if (index >= 0) {
+                    cursorNanos[index][round] = elapsed;
+                }
+            }
+        }
+
+        System.out.printf("%,d beers, %d per page, median of %d rounds%n", beerRepository.count(), PAGE_SIZE, ROUNDS);
+        System.out.printf("%-6s %12s %12s%n", "page", "offset ms", "cursor ms");
+        for (int i = 0; i < PAGES.size(); i++) {
+            System.out.printf("%-6d %12.2f %12.2f%n", PAGES.get(i), medianMillis(offsetNanos[i]),
+                    medianMillis(cursorNanos[i]));
+        }
+    }
+
+    void seed(int beers) {
+        val styles = BeerStyle.values();
+
+        for (int from = (int) beerRepository.count(); from < beers; from += SEED_BATCH_SIZE) {
+            beerRepository.saveAll(IntStream.range(from, Math.min(from + SEED_BATCH_SIZE, beers))
+                    .mapToObj(i -> BeerEntity.builder()
+                            .beerName("Pagination Beer " + i)
+                            .beerStyle(styles[i % styles.length])
+                            .upc(String.valueOf(1_000_000 + i))
+                            .price(new BigDecimal("9.99"))
+                            .quantityOnHand(i % 500)
+                            .build())
+                    .toList());
+        }
+    }
+
+    static double medianMillis(long[] nanos) {
+        val sorted = nanos.clone();
+        Arrays.sort(sorted);
+
+        return sorted[sorted.length / 2] / 1_000_000.0;
+    }
+}
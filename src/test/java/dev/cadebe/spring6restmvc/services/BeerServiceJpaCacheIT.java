@@ -0,0 +1,148 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+class BeerServiceJpaCacheIT {
+
+    @Autowired
+    private BeerService beerService;
+
+    @SpyBean
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<UUID> createdBeers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        createdBeers.forEach(beerService::deleteBeerById);
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        val id = createBeer("Cached Lager");
+
+        val hitsBefore = cacheGets("hit");
+
+        beerService.getBeerbyId(id);
+        beerService.getBeerbyId(id);
+        val third = beerService.getBeerbyId(id);
+
+        assertThat(third).isNotEmpty();
+        assertThat(third.get().getBeerName()).isEqualTo("Cached Lager");
+        verify(beerRepository, times(1)).findById(id);
+        assertThat(cacheGets("hit") - hitsBefore).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRecordDatabaseLoadsOfMissedBeers() {
+        val id = createBeer("Loaded Stout");
+
+        val loadsBefore = cacheLoads("success");
+        val failuresBefore = cacheLoads("failure");
+        val loadTimeBefore = cacheLoadTime();
+
+        beerService.getBeerbyId(id);
+        beerService.getBeerbyId(id);
+        beerService.getBeerbyId(UUID.randomUUID());
+
+        assertThat(cacheLoads("success") - loadsBefore).isEqualTo(1);
+        assertThat(cacheLoads("failure") - failuresBefore).isEqualTo(1);
+        assertThat(cacheLoadTime()).isGreaterThan(loadTimeBefore);
+    }
+
+    @Test
+    void shouldReturnCopiesOfCachedBeers() {
+        val id = createBeer("Immutable Ale");
+
+        beerService.getBeerbyId(id).get().setBeerName("Changed by caller");
+
+        assertThat(beerService.getBeerbyId(id).get().getBeerName()).isEqualTo("Immutable Ale");
+    }
+
+    @Test
+    void shouldInvalidateCachedBeerOnEveryWrite() {
+        val id = createBeer("Original Name");
+        beerService.getBeerbyId(id);
+
+        beerService.patchBeerById(id, BeerDto.builder().beerName("Patched Name").build());
+        assertThat(beerService.getBeerbyId(id).get().getBeerName()).isEqualTo("Patched Name");
+
+        val updated = beerService.getBeerbyId(id).get();
+        updated.setBeerName("Updated Name");
+        beerService.updateBeerById(id, updated);
+        assertThat(beerService.getBeerbyId(id).get().getBeerName()).isEqualTo("Updated Name");
+
+        beerService.deleteBeerById(id);
+        createdBeers.remove(id);
+        assertThat(beerService.getBeerbyId(id)).isEmpty();
+    }
+
+    @Test
+    void shouldNotCacheMissingBeers() {
+        val id = UUID.randomUUID();
+
+        beerService.getBeerbyId(id);
+        beerService.getBeerbyId(id);
+
+        verify(beerRepository, times(2)).findById(id);
+    }
+
+    private UUID createBeer(String beerName) {
+        val saved = beerService.saveNewBeer(BeerDto.builder()
+                .beerName(beerName)
+                .beerStyle(BeerStyle.LAGER)
+                .upc("111")
+                .price(BigDecimal.ONE)
+                .quantityOnHand(5)
+                .build());
+
+        createdBeers.add(saved.getId());
+        return saved.getId();
+    }
+
+    private double cacheLoads(String result) {
+        return meterRegistry.get("cache.load")
+                .tag("cache", "beerById")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+
+    private double cacheLoadTime() {
+        return meterRegistry.get("cache.load.duration")
+                .tag("cache", "beerById")
+                .timeGauge()
+                .value(TimeUnit.NANOSECONDS);
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "beerById")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
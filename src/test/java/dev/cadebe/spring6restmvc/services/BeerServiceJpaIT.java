@@ -13,12 +13,18 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -37,6 +43,9 @@ class BeerServiceJpaIT {
     @Autowired
     private BeerServiceJpa beerService;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     static BeerServiceProperties beerServiceProperties = new BeerServiceProperties();
 
     static Stream<Arguments> getAllBeersByVaryingQueryParameters() {
@@ -72,6 +81,87 @@ class BeerServiceJpaIT {
         assertThat(result.getTotalPages()).isZero();
     }
 
+    @Test
+    void shouldScrollThroughAllBeersByCursorInNameAndIdOrder() {
+        val expected = beerRepository.findAll(Sort.by("beerName", "id")).stream()
+                .map(BeerEntity::getId)
+                .toList();
+
+        val scrolled = new ArrayList<UUID>();
+        ScrollPosition position = ScrollPosition.keyset();
+        var windows = 0;
+
+        while (true) {
+            val window = beerService.listBeersByCursor(null, null, null, position, 500);
+            window.forEach(beer -> scrolled.add(beer.getId()));
+            windows++;
+
+            if (!window.hasNext()) {
+                break;
+            }
+
+            position = window.positionAt(window.size() - 1);
+        }
+
+        assertThat(windows).isEqualTo(5);
+        assertThat(scrolled).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void shouldScrollFilteredBeersByCursorWithoutInventory() {
+        val firstWindow = beerService.listBeersByCursor("IPA", BeerStyle.IPA, false, ScrollPosition.keyset(), 100);
+
+        assertThat(firstWindow.getContent()).hasSize(100);
+        assertThat(firstWindow.hasNext()).isTrue();
+        assertThat(firstWindow.getContent()).allSatisfy(beer -> {
+            assertThat(beer.getBeerStyle()).isEqualTo(BeerStyle.IPA);
+            assertThat(beer.getBeerName()).containsIgnoringCase("IPA");
+            assertThat(beer.getQuantityOnHand()).isNull();
+        });
+        assertThat(firstWindow.getContent())
+                .extracting(BeerDto::getBeerName)
+                .isSortedAccordingTo(Comparator.naturalOrder());
+
+        val secondWindow = beerService.listBeersByCursor("IPA", BeerStyle.IPA, false, firstWindow.positionAt(99), 100);
+
+        assertThat(secondWindow.getContent()).isNotEmpty();
+        assertThat(secondWindow.getContent().getFirst().getBeerName())
+                .isGreaterThanOrEqualTo(firstWindow.getContent().getLast().getBeerName());
+        assertThat(secondWindow.getContent())
+                .extracting(BeerDto::getId)
+                .doesNotContainAnyElementsOf(firstWindow.getContent().stream().map(BeerDto::getId).toList());
+    }
+
+    @Test
+    void shouldSearchBeersByNameFromIndexWithSameMatchesAsDatabase() {
+        val fromDatabase = beerRepository.findBeerDtos("%IPA%", BeerStyle.IPA, true, Pageable.unpaged());
+
+        val firstPage = beerService.searchBeers("IPA", BeerStyle.IPA, false, 1, 50);
+
+        assertThat(firstPage.getTotalElements()).isEqualTo(fromDatabase.getTotalElements());
+        assertThat(firstPage.getContent()).hasSize(50);
+        assertThat(firstPage.getContent().getFirst().getBeerName()).isEqualToIgnoringCase("IPA");
+        assertThat(firstPage.getContent()).allSatisfy(beer -> assertThat(beer.getQuantityOnHand()).isNull());
+    }
+
+    @Test
+    void shouldKeepSearchIndexInSyncWithCommittedWrites() {
+        val saved = beerService.saveNewBeer(BeerDto.builder()
+                .beerName("Zyzzyva Stout")
+                .beerStyle(BeerStyle.STOUT)
+                .upc("999")
+                .price(BigDecimal.ONE)
+                .build());
+
+        assertThat(beerService.searchBeers("zyzzyva", null, null, null, null).getContent())
+                .extracting(BeerDto::getId)
+                .containsExactly(saved.getId());
+
+        beerService.deleteBeerById(saved.getId());
+
+        assertThat(beerService.searchBeers("zyzzyva", null, null, null, null).getContent()).isEmpty();
+    }
+
     @Test
     void shouldFindBeerById() {
         val first = beerRepository.findAll().getFirst();
@@ -118,21 +208,28 @@ class BeerServiceJpaIT {
         // assertThat(savedBeer.getVersion()).isEqualTo(1);
     }
 
+    // A PUT replaces every field, so each case is a complete beer
     static Stream<BeerDto> shouldUpdateExistingBeerById() {
         return Stream.of(
                 BeerDto.builder()
                         .beerName("Beer XZY")
+                        .beerStyle(BeerStyle.PALE_ALE)
+                        .upc("12356")
+                        .price(new BigDecimal("12.99"))
                         .build(),
 
                 BeerDto.builder()
                         .beerName("Beer ABC")
                         .beerStyle(BeerStyle.PORTER)
+                        .upc("12356")
+                        .price(new BigDecimal("12.99"))
                         .build(),
 
                 BeerDto.builder()
                         .beerName("Beer DEF")
                         .beerStyle(BeerStyle.IPA)
                         .upc("qwerty")
+                        .price(new BigDecimal("12.99"))
                         .build(),
 
                 BeerDto.builder()
@@ -217,7 +314,9 @@ class BeerServiceJpaIT {
         assertThat(patchedBeer.get())
                 .usingRecursiveComparison()
                 .ignoringFieldsOfTypes(LocalDateTime.class)
+                .ignoringFields("version")
                 .isEqualTo(beerMapper.toEntity(beerDto));
+        assertThat(patchedBeer.get().getVersion()).isEqualTo(beerDto.getVersion() + 1);
     }
 
     @Test
@@ -260,6 +359,55 @@ class BeerServiceJpaIT {
         assertThat(beerRepository.findById(id)).isEmpty();
     }
 
+    @Test
+    void shouldReturnCommittedVersionAndUpdateTimeFromUpdateAndPatch() {
+        val beerId = beerService.saveNewBeer(BeerDto.builder()
+                .beerName("Committed Version Lager")
+                .beerStyle(BeerStyle.LAGER)
+                .upc("0000000000004")
+                .price(new BigDecimal("8.99"))
+                .quantityOnHand(10)
+                .build()).getId();
+
+        try {
+            val updated = beerService.updateBeerById(beerId, beerService.getBeerbyId(beerId).orElseThrow()).orElseThrow();
+            val afterUpdate = beerRepository.findById(beerId).orElseThrow();
+            assertThat(updated.getVersion()).isEqualTo(afterUpdate.getVersion());
+            assertThat(updated.getUpdatedDate()).isEqualTo(afterUpdate.getUpdatedDate());
+
+            val patched = beerService.patchBeerById(beerId, BeerDto.builder().price(new BigDecimal("9.49")).build())
+                    .orElseThrow();
+            val afterPatch = beerRepository.findById(beerId).orElseThrow();
+            assertThat(patched.getVersion()).isEqualTo(afterPatch.getVersion()).isGreaterThan(updated.getVersion());
+            assertThat(patched.getUpdatedDate()).isEqualTo(afterPatch.getUpdatedDate());
+        } finally {
+            beerService.deleteBeerById(beerId);
+        }
+    }
+
+    @Test
+    void shouldReadVersionFromDatabaseWhenBeerIsCached() {
+        val beerId = beerService.saveNewBeer(BeerDto.builder()
+                .beerName("Cached Version Lager")
+                .beerStyle(BeerStyle.LAGER)
+                .upc("0000000000005")
+                .price(new BigDecimal("8.99"))
+                .quantityOnHand(10)
+                .build()).getId();
+
+        try {
+            val cachedVersion = beerService.getBeerbyId(beerId).orElseThrow().getVersion();
+
+            // Written by another instance, so this instance's cache never hears about it
+            transactionTemplate.executeWithoutResult(status -> beerRepository.allocateStock(beerId, 1));
+
+            assertThat(beerService.getBeerbyId(beerId).orElseThrow().getVersion()).isEqualTo(cachedVersion);
+            assertThat(beerService.getBeerVersion(beerId)).contains(cachedVersion + 1);
+        } finally {
+            beerService.deleteBeerById(beerId);
+        }
+    }
+
     record BeerParameters(String beerName,
                           BeerStyle beerStyle,
                           Boolean showInventory,
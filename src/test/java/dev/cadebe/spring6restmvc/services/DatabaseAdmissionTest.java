@@ -0,0 +1,77 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.DatabaseAdmissionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.val;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DatabaseAdmissionTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    DatabaseAdmission databaseAdmission;
+
+    @BeforeEach
+    void setUp() {
+        val properties = new DatabaseAdmissionProperties();
+        properties.setMaxConcurrent(1);
+        properties.setTimeout(Duration.ofMillis(50));
+
+        databaseAdmission = new DatabaseAdmission(properties, meterRegistry);
+    }
+
+    @Test
+    void shouldShedCallsThatCannotGetAPermitInTime() throws Throwable {
+        val started = new CountDownLatch(1);
+        val release = new CountDownLatch(1);
+        val blockingCall = mock(ProceedingJoinPoint.class);
+        when(blockingCall.proceed()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "first";
+        });
+
+        val firstResult = CompletableFuture.supplyAsync(() -> admit(blockingCall));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> databaseAdmission.admit(mock(ProceedingJoinPoint.class)))
+                .isInstanceOf(DatabaseBusyException.class);
+        assertThat(meterRegistry.get("database.admission.active").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("database.admission.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(firstResult.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(meterRegistry.get("database.admission.active").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldRunNestedCallsUnderTheOuterPermit() throws Throwable {
+        val innerCall = mock(ProceedingJoinPoint.class);
+        when(innerCall.proceed()).thenReturn("inner");
+        val outerCall = mock(ProceedingJoinPoint.class);
+        when(outerCall.proceed()).thenAnswer(invocation -> databaseAdmission.admit(innerCall));
+
+        assertThat(databaseAdmission.admit(outerCall)).isEqualTo("inner");
+        assertThat(meterRegistry.get("database.admission.wait").timer().count()).isEqualTo(1);
+    }
+
+    Object admit(ProceedingJoinPoint joinPoint) {
+        try {
+            return databaseAdmission.admit(joinPoint);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package dev.cadebe.spring6restmvc.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.cadebe.spring6restmvc.config.OutboxProperties;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileOutboxSinkTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private static OutboxEvent event(String payload) {
+        return new OutboxEvent(UUID.randomUUID(), "BEER", UUID.randomUUID(), "UPDATED", payload, LocalDateTime.now());
+    }
+
+    @Test
+    void shouldAppendOneJsonLinePerEventAcrossRestarts() throws Exception {
+        val properties = new OutboxProperties();
+        properties.setFile(directory.resolve("outbox").resolve("events.jsonl"));
+        properties.setSyncWrites(false);
+
+        val first = event("{\"beerName\":\"Galaxy Cat\"}");
+        val second = event(null);
+        try (val sink = new FileOutboxSink(properties, objectMapper)) {
+            sink.publish(List.of(first));
+        }
+        try (val sink = new FileOutboxSink(properties, objectMapper)) {
+            sink.publish(List.of(second));
+        }
+
+        val lines = Files.readAllLines(properties.getFile());
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines.get(0)).get("id").asText()).isEqualTo(first.id().toString());
+        // The payload is embedded as JSON, not as a string
+        assertThat(objectMapper.readTree(lines.get(0)).get("payload").get("beerName").asText()).isEqualTo("Galaxy Cat");
+        assertThat(objectMapper.readTree(lines.get(1)).get("payload").isNull()).isTrue();
+    }
+
+    @Test
+    void shouldRefuseRelativeFile() {
+        val properties = new OutboxProperties();
+        properties.setFile(Path.of("outbox", "events.jsonl"));
+
+        assertThatThrownBy(() -> new FileOutboxSink(properties, objectMapper))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("outbox.file");
+    }
+}
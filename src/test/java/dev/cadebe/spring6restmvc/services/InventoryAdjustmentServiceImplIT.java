@@ -0,0 +1,295 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.InventoryWriteBehindProperties;
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import dev.cadebe.spring6restmvc.repositories.InventoryJournalCheckpointRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class InventoryAdjustmentServiceImplIT {
+
+    @Autowired
+    private InventoryAdjustmentService inventoryAdjustmentService;
+
+    @Autowired
+    private BeerService beerService;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private InventoryJournalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    Path journalDirectory;
+
+    private BeerEntity testBeer;
+
+    @BeforeEach
+    void setUp() {
+        testBeer = beerRepository.save(BeerEntity.builder()
+                .beerName("Write Behind Pale Ale")
+                .beerStyle(BeerStyle.PALE_ALE)
+                .upc("0000000000022")
+                .price(new BigDecimal("7.49"))
+                .quantityOnHand(100)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from parked_inventory_adjustment");
+        beerRepository.deleteById(testBeer.getId());
+    }
+
+    private BeerEntity reloadTestBeer() {
+        return beerRepository.findById(testBeer.getId()).orElseThrow();
+    }
+
+    private int parkedRows() {
+        return jdbcTemplate.queryForObject("select count(*) from parked_inventory_adjustment", Integer.class);
+    }
+
+    // A buffer on its own journal and without the scheduled flush, as a restarted instance would see it
+    private InventoryAdjustmentServiceImpl startBuffer(String journalName, MeterRegistry meterRegistry) {
+        val properties = new InventoryWriteBehindProperties();
+        properties.setJournalDirectory(journalDirectory);
+        properties.setJournalName(journalName);
+
+        return new InventoryAdjustmentServiceImpl(properties, checkpointRepository, jdbcTemplate, transactionTemplate,
+                eventPublisher, meterRegistry);
+    }
+
+    // Releases the journal without flushing, as the instance's process ending would
+    private static void crash(InventoryAdjustmentServiceImpl buffer) throws IOException {
+        ((InventoryJournal) ReflectionTestUtils.getField(buffer, "journal")).close();
+    }
+
+    @Test
+    void shouldCoalesceConcurrentAdjustmentsIntoOneUpdate() throws Exception {
+        val meterRegistry = new SimpleMeterRegistry();
+        val buffer = startBuffer("coalesce-test", meterRegistry);
+        val initialVersion = reloadTestBeer().getVersion();
+        beerService.getBeerbyId(testBeer.getId());
+        val futures = new ArrayList<Future<?>>();
+
+        try (val executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 200; i++) {
+                val delta = i % 4 == 0 ? 1 : -1;
+                futures.add(executor.submit(() -> buffer.adjustQuantityOnHand(testBeer.getId(), delta)));
+            }
+            for (val future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        buffer.flush();
+
+        val beer = reloadTestBeer();
+        assertThat(beer.getQuantityOnHand()).isEqualTo(100 + 50 - 150);
+        assertThat(beer.getVersion()).isEqualTo(initialVersion + 1);
+        assertThat(beerService.getBeerbyId(testBeer.getId()).orElseThrow().getQuantityOnHand()).isZero();
+        assertThat(meterRegistry.get("inventory.adjustments").counter().count()).isEqualTo(200);
+        assertThat(meterRegistry.get("inventory.flush").tag("outcome", "success").timer().count()).isOne();
+        assertThat(meterRegistry.get("inventory.flush.beers").summary().totalAmount()).isOne();
+        assertThat(meterRegistry.get("inventory.pending.beers").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldParkDeltaTheRowCannotTakeAndReplayItOnceTheRowCan() throws IOException {
+        val fullBeer = beerRepository.save(BeerEntity.builder()
+                .beerName("Write Behind Full Stout")
+                .beerStyle(BeerStyle.STOUT)
+                .upc("0000000000023")
+                .price(new BigDecimal("8.49"))
+                .quantityOnHand(Integer.MAX_VALUE - 5)
+                .build());
+        val meterRegistry = new SimpleMeterRegistry();
+        val buffer = startBuffer("park-test", meterRegistry);
+
+        try {
+            buffer.adjustQuantityOnHand(fullBeer.getId(), 10);
+            buffer.adjustQuantityOnHand(testBeer.getId(), -3);
+            buffer.flush();
+
+            buffer.adjustQuantityOnHand(testBeer.getId(), -2);
+            buffer.flush();
+
+            assertThat(reloadTestBeer().getQuantityOnHand()).isEqualTo(95);
+            assertThat(beerRepository.findById(fullBeer.getId()).orElseThrow().getQuantityOnHand())
+                    .isEqualTo(Integer.MAX_VALUE - 5);
+            assertThat(meterRegistry.get("inventory.adjustments.parked").counter().count()).isOne();
+            assertThat(parkedRows()).isOne();
+            assertThat(meterRegistry.get("inventory.flush").tag("outcome", "success").timer().count()).isEqualTo(2);
+            assertThat(meterRegistry.get("inventory.pending.beers").gauge().value()).isZero();
+
+            assertThat(buffer.replayParkedAdjustments()).isZero();
+            assertThat(parkedRows()).isOne();
+
+            jdbcTemplate.update("update beer set quantity_on_hand = 20 where beer_name = ?", fullBeer.getBeerName());
+
+            assertThat(buffer.replayParkedAdjustments()).isOne();
+            assertThat(beerRepository.findById(fullBeer.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(30);
+            assertThat(parkedRows()).isZero();
+            assertThat(meterRegistry.get("inventory.adjustments.replayed").counter().count()).isOne();
+        } finally {
+            buffer.close();
+            beerRepository.deleteById(fullBeer.getId());
+        }
+    }
+
+    @Test
+    void shouldParkNetDeltaOutsideTheIntRange() throws IOException {
+        val meterRegistry = new SimpleMeterRegistry();
+        val buffer = startBuffer("overflow-test", meterRegistry);
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                buffer.adjustQuantityOnHand(testBeer.getId(), Integer.MAX_VALUE);
+            }
+            buffer.flush();
+
+            assertThat(reloadTestBeer().getQuantityOnHand()).isEqualTo(100);
+            assertThat(meterRegistry.get("inventory.adjustments.parked").counter().count()).isOne();
+            // Parked in parts the column can hold
+            assertThat(parkedRows()).isEqualTo(3);
+            assertThat(meterRegistry.get("inventory.pending.beers").gauge().value()).isZero();
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    void shouldFlushAdjustmentsOnSchedule() throws InterruptedException {
+        inventoryAdjustmentService.adjustQuantityOnHand(testBeer.getId(), -4);
+
+        val deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (reloadTestBeer().getQuantityOnHand() != 96 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+
+        assertThat(reloadTestBeer().getQuantityOnHand()).isEqualTo(96);
+    }
+
+    @Test
+    void shouldReplayUnappliedAdjustmentsExactlyOnceAfterCrash() throws IOException {
+        val crashed = startBuffer("crash-test", new SimpleMeterRegistry());
+        crashed.adjustQuantityOnHand(testBeer.getId(), -30);
+        crashed.flush();
+        crashed.adjustQuantityOnHand(testBeer.getId(), -20);
+        crashed.adjustQuantityOnHand(testBeer.getId(), 5);
+        // No flush and no shutdown, the instance is gone with two acknowledged adjustments pending
+        crash(crashed);
+
+        assertThat(reloadTestBeer().getQuantityOnHand()).isEqualTo(70);
+
+        val restarted = startBuffer("crash-test", new SimpleMeterRegistry());
+        restarted.flush();
+        crash(restarted);
+
+        assertThat(reloadTestBeer().getQuantityOnHand()).isEqualTo(55);
+
+        val restartedAgain = startBuffer("crash-test", new SimpleMeterRegistry());
+        restartedAgain.flush();
+
+        assertThat(reloadTestBeer().getQuantityOnHand()).isEqualTo(55);
+        assertThat(checkpointRepository.findById("crash-test")).isPresent();
+    }
+
+    @Test
+    void shouldApplyAbandonedJournalsOnceAndLeaveRunningInstancesAlone() throws IOException {
+        val gone = startBuffer("gone-host", new SimpleMeterRegistry());
+        gone.adjustQuantityOnHand(testBeer.getId(), -10);
+        gone.flush();
+        gone.adjustQuantityOnHand(testBeer.getId(), -5);
+        crash(gone);
+        val running = startBuffer("running-host", new SimpleMeterRegistry());
+        running.adjustQuantityOnHand(testBeer.getId(), -1);
+
+        val renamed = startBuffer("renamed-host", new SimpleMeterRegistry());
+        renamed.adoptAbandonedJournals();
+        renamed.adoptAbandonedJournals();
+
+        assertThat(reloadTestBeer().getQuantityOnHand()).isEqualTo(85);
+        assertThat(checkpointRepository.findById("gone-host").orElseThrow().getGeneration()).isEqualTo(2);
+        assertThat(InventoryJournal.names(journalDirectory)).doesNotContain("gone-host");
+
+        running.close();
+        renamed.close();
+
+        assertThat(reloadTestBeer().getQuantityOnHand()).isEqualTo(84);
+    }
+
+    @Test
+    void shouldRefuseToStartOnJournalOfRunningInstance() throws IOException {
+        val running = startBuffer("shared-name", new SimpleMeterRegistry());
+
+        try {
+            assertThatThrownBy(() -> startBuffer("shared-name", new SimpleMeterRegistry()))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("in use");
+        } finally {
+            running.close();
+        }
+    }
+
+    @Test
+    void shouldNameJournalAfterHostByDefault() throws Exception {
+        assertThat(new InventoryWriteBehindProperties().getJournalName())
+                .isEqualTo("inventory-" + InetAddress.getLocalHost().getHostName());
+    }
+
+    @Test
+    void shouldRefuseToStartWithoutJournalName() {
+        assertThatThrownBy(() -> startBuffer(" ", new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("journal-name");
+    }
+
+    @Test
+    void shouldRefuseToStartWithRelativeJournalDirectory() {
+        val properties = new InventoryWriteBehindProperties();
+        properties.setJournalDirectory(Path.of("inventory-journal"));
+
+        assertThatThrownBy(() -> new InventoryAdjustmentServiceImpl(properties, checkpointRepository, jdbcTemplate,
+                transactionTemplate, eventPublisher, new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("journal-directory");
+    }
+}
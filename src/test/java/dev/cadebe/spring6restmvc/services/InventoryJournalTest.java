@@ -0,0 +1,132 @@
+package dev.cadebe.spring6restmvc.services;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InventoryJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final UUID beer1 = UUID.randomUUID();
+    private final UUID beer2 = UUID.randomUUID();
+
+    @Test
+    void shouldRecoverAdjustmentsOfAllGenerationsAfterCheckpoint() throws Exception {
+        try (val journal = new InventoryJournal(directory, "test", false)) {
+            assertThat(journal.recover(0)).isEmpty();
+            journal.append(beer1, -2);
+            assertThat(journal.rotate()).isEqualTo(1);
+            journal.append(beer1, -3);
+            journal.append(beer2, 12);
+        }
+
+        try (val journal = new InventoryJournal(directory, "test", false)) {
+            assertThat(journal.recover(0)).containsEntry(beer1, -5L).containsEntry(beer2, 12L).hasSize(2);
+        }
+    }
+
+    @Test
+    void shouldSkipAndDeleteGenerationsCoveredByCheckpoint() throws Exception {
+        try (val journal = new InventoryJournal(directory, "test", false)) {
+            journal.recover(0);
+            journal.append(beer1, -2);
+            journal.rotate();
+            journal.append(beer2, 4);
+        }
+
+        try (val journal = new InventoryJournal(directory, "test", false)) {
+            assertThat(journal.recover(1)).containsOnlyKeys(beer2);
+        }
+
+        assertThat(directory.resolve("test-1.journal")).doesNotExist();
+    }
+
+    @Test
+    void shouldContinueAfterLastRecoveredGeneration() throws Exception {
+        try (val journal = new InventoryJournal(directory, "test", false)) {
+            journal.recover(0);
+            journal.append(beer1, 1);
+        }
+
+        try (val journal = new InventoryJournal(directory, "test", false)) {
+            journal.recover(0);
+            assertThat(journal.rotate()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void shouldIgnoreTornLastRecord() throws Exception {
+        try (val journal = new InventoryJournal(directory, "test", false)) {
+            journal.recover(0);
+            journal.append(beer1, 7);
+        }
+        Files.writeString(directory.resolve("test-1.journal"), beer2.toString().substring(0, 10),
+                StandardCharsets.US_ASCII, StandardOpenOption.APPEND);
+
+        try (val journal = new InventoryJournal(directory, "test", false)) {
+            assertThat(journal.recover(0)).containsOnlyKeys(beer1).containsEntry(beer1, 7L);
+        }
+    }
+
+    @Test
+    void shouldDiscardAppliedGenerations() throws Exception {
+        try (val journal = new InventoryJournal(directory, "test", false)) {
+            journal.recover(0);
+            journal.append(beer1, 1);
+            val applied = journal.rotate();
+            journal.append(beer1, 1);
+
+            journal.discardThrough(applied);
+
+            assertThat(directory.resolve("test-1.journal")).doesNotExist();
+            assertThat(directory.resolve("test-2.journal")).exists();
+        }
+    }
+
+    @Test
+    void shouldAdoptJournalLeftByAnotherInstance() throws Exception {
+        try (val journal = new InventoryJournal(directory, "gone-host", false)) {
+            journal.recover(0);
+            journal.append(beer1, -2);
+            journal.rotate();
+            journal.append(beer1, -3);
+        }
+
+        assertThat(InventoryJournal.names(directory)).containsExactly("gone-host");
+
+        try (val journal = new InventoryJournal(directory, "gone-host", false)) {
+            val adopted = journal.adopt(1);
+
+            assertThat(adopted.adjustments()).containsOnlyKeys(beer1).containsEntry(beer1, -3L);
+            assertThat(adopted.lastGeneration()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void shouldNotAdoptJournalInUse() throws Exception {
+        try (val running = new InventoryJournal(directory, "running-host", false)) {
+            running.recover(0);
+            running.append(beer1, 1);
+
+            try (val journal = new InventoryJournal(directory, "running-host", false)) {
+                assertThat(journal.adopt(0)).isNull();
+            }
+            try (val journal = new InventoryJournal(directory, "running-host", false)) {
+                assertThatThrownBy(() -> journal.recover(0))
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessageContaining("in use");
+            }
+        }
+    }
+}
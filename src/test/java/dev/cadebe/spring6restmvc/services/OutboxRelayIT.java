@@ -0,0 +1,192 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.OutboxProperties;
+import dev.cadebe.spring6restmvc.data.OutboxEventEntity;
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.model.CustomerDto;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import dev.cadebe.spring6restmvc.repositories.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class OutboxRelayIT {
+
+    @Autowired
+    private BeerService beerService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<UUID> createdBeers = new ArrayList<>();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAllInBatch();
+    }
+
+    @AfterEach
+    void tearDown() {
+        beerRepository.deleteAllById(createdBeers);
+        outboxEventRepository.deleteAllInBatch();
+    }
+
+    private BeerDto saveNewBeer(String beerName) {
+        val beer = beerService.saveNewBeer(BeerDto.builder()
+                .beerName(beerName)
+                .beerStyle(BeerStyle.GOSE)
+                .upc("0000000000024")
+                .price(new BigDecimal("6.49"))
+                .build());
+        createdBeers.add(beer.getId());
+
+        return beer;
+    }
+
+    private OutboxRelay relay(int batchSize, OutboxSink sink) {
+        val properties = new OutboxProperties();
+        properties.getRelay().setBatchSize(batchSize);
+
+        return new OutboxRelay(properties, outboxEventRepository, sink, transactionTemplate, meterRegistry);
+    }
+
+    private void appendEvents(int count) {
+        outboxEventRepository.saveAll(IntStream.range(0, count)
+                .mapToObj(i -> OutboxEventEntity.builder()
+                        .aggregateType(OutboxEventWriter.BEER)
+                        .aggregateId(UUID.randomUUID())
+                        .eventType("UPDATED")
+                        .build())
+                .toList());
+    }
+
+    @Test
+    void shouldAppendEventsInTransactionOfChange() {
+        val beer = saveNewBeer("Outbox Gose");
+        val customer = customerService.saveNewCustomer(CustomerDto.builder()
+                .name("Outbox Customer")
+                .email("outbox@example.com")
+                .build());
+        customerService.deleteCustomerById(customer.getId());
+
+        assertThat(outboxEventRepository.findAll())
+                .extracting(OutboxEventEntity::getAggregateType, OutboxEventEntity::getAggregateId,
+                        OutboxEventEntity::getEventType)
+                .containsExactlyInAnyOrder(
+                        tuple(OutboxEventWriter.BEER, beer.getId(), "CREATED"),
+                        tuple(OutboxEventWriter.CUSTOMER, customer.getId(), "CREATED"),
+                        tuple(OutboxEventWriter.CUSTOMER, customer.getId(), "DELETED"));
+        assertThat(outboxEventRepository.findAll())
+                .filteredOn(event -> event.getAggregateId().equals(beer.getId()))
+                .singleElement()
+                .satisfies(event -> assertThat(event.getPayload()).contains("\"beerName\":\"Outbox Gose\""));
+    }
+
+    @Test
+    void shouldNotAppendEventsOfRolledBackChange() {
+        transactionTemplate.executeWithoutResult(status -> {
+            saveNewBeer("Rolled Back Gose");
+            status.setRollbackOnly();
+        });
+
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+
+    @Test
+    void shouldRelayBacklogInBatchesInOrder() {
+        appendEvents(5);
+        val expected = outboxEventRepository.findAll().stream().map(OutboxEventEntity::getId).sorted().toList();
+        val sink = new InMemoryOutboxSink(new OutboxProperties());
+
+        assertThat(relay(2, sink).relay()).isEqualTo(5);
+
+        assertThat(sink.getEvents()).extracting(OutboxEvent::id).containsExactlyElementsOf(expected);
+        assertThat(outboxEventRepository.count()).isZero();
+        assertThat(meterRegistry.get("outbox.relayed").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("outbox.relay").tag("outcome", "success").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldSkipEventsLockedByAnotherRelay() throws Exception {
+        appendEvents(5);
+        val sink = new InMemoryOutboxSink(new OutboxProperties());
+        val locked = new CountDownLatch(1);
+        val relayed = new CountDownLatch(1);
+
+        // Another instance's relay holds the first two events while this one runs. H2 locks every row its skip locked
+        // query matches before applying the limit, so the rows are locked by id here.
+        val firstTwo = jdbcTemplate.queryForList("select id from outbox_event order by id limit 2", byte[].class);
+        try (val executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            val other = executor.submit(() -> transactionTemplate.execute(status -> {
+                val batch = jdbcTemplate.queryForList("select id from outbox_event where id in (?, ?) for update",
+                        byte[].class, firstTwo.get(0), firstTwo.get(1));
+                locked.countDown();
+                await(relayed);
+                return batch.size();
+            }));
+            await(locked);
+
+            assertThat(relay(10, sink).relay()).isEqualTo(3);
+            relayed.countDown();
+            assertThat(other.get(30, TimeUnit.SECONDS)).isEqualTo(2);
+        }
+
+        assertThat(relay(10, sink).relay()).isEqualTo(2);
+        assertThat(sink.getEvents()).extracting(OutboxEvent::id).doesNotHaveDuplicates().hasSize(5);
+    }
+
+    @Test
+    void shouldKeepEventsWhenSinkFails() {
+        appendEvents(3);
+
+        val relayed = relay(10, events -> {
+            throw new IllegalStateException("sink unavailable");
+        }).relay();
+
+        assertThat(relayed).isZero();
+        assertThat(outboxEventRepository.count()).isEqualTo(3);
+        assertThat(meterRegistry.get("outbox.relay").tag("outcome", "failure").timer().count()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.config.InventoryShardingProperties;
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.model.BeerDto;
+import dev.cadebe.spring6restmvc.model.BeerOrderDto;
+import dev.cadebe.spring6restmvc.model.BeerOrderLineDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerInventoryShardRepository;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest
+class ShardedInventoryIT {
+
+    @Autowired
+    private ShardedInventory shardedInventory;
+
+    @Autowired
+    private BeerService beerService;
+
+    @Autowired
+    private BeerOrderService beerOrderService;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private BeerInventoryShardRepository shardRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<UUID> createdBeers = new ArrayList<>();
+
+    private UUID customerId;
+
+    @BeforeEach
+    void setUp() {
+        customerId = customerRepository.findAll().getFirst().getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from beer_order_line "
+                + "where beer_order_id in (select id from beer_order where customer_ref like 'SHARD-%')");
+        jdbcTemplate.update("delete from beer_order where customer_ref like 'SHARD-%'");
+        createdBeers.forEach(beerId -> {
+            shardedInventory.demote(beerId);
+            beerRepository.deleteById(beerId);
+        });
+    }
+
+    private UUID createBeer(String beerName, int quantityOnHand) {
+        val beerId = beerRepository.save(BeerEntity.builder()
+                .beerName(beerName)
+                .beerStyle(BeerStyle.IPA)
+                .upc("0000000000023")
+                .price(new BigDecimal("11.99"))
+                .quantityOnHand(quantityOnHand)
+                .build()).getId();
+        createdBeers.add(beerId);
+
+        return beerId;
+    }
+
+    @Test
+    void shouldReadTheSumOfRowAndShards() {
+        val beerId = createBeer("Sharded Launch IPA", 1003);
+
+        assertThat(shardedInventory.promote(beerId)).isTrue();
+
+        assertThat(shardRepository.countByBeerId(beerId)).isEqualTo(8);
+        assertThat(beerRepository.findById(beerId).orElseThrow())
+                .returns(true, BeerEntity::isSharded)
+                .returns(0, BeerEntity::getQuantityOnHand)
+                .returns(0, BeerEntity::getTotalQuantityOnHand);
+        assertThat(loadBeer(beerId).getTotalQuantityOnHand()).isEqualTo(1003);
+        assertThat(beerService.getBeerbyId(beerId).orElseThrow().getQuantityOnHand()).isEqualTo(1003);
+        assertThat(beerService.listBeers("Sharded Launch", null, true, 1, 25).getContent())
+                .extracting(BeerDto::getQuantityOnHand)
+                .containsExactly(1003);
+    }
+
+    @Test
+    void shouldLoadShardedBeersOnceReady() {
+        val beerId = createBeer("Restarted Sharded Lager", 400);
+        shardedInventory.promote(beerId);
+        val restarted = new ShardedInventory(new InventoryShardingProperties(), beerRepository, shardRepository,
+                entityManager, transactionTemplate, new SimpleMeterRegistry());
+
+        assertThat(restarted.isSharded(beerId)).isFalse();
+
+        restarted.loadShardedBeers();
+
+        assertThat(restarted.isSharded(beerId)).isTrue();
+    }
+
+    @Test
+    void shouldNotPromoteStockTooThinToSplit() {
+        val beerId = createBeer("Thin Stock Lager", 20);
+
+        assertThat(shardedInventory.promote(beerId)).isFalse();
+        assertThat(shardRepository.countByBeerId(beerId)).isZero();
+    }
+
+    @Test
+    void shouldCollapseShardsIntoRowOnDemotion() {
+        val beerId = createBeer("Demoted Stout", 400);
+        shardedInventory.promote(beerId);
+        beerService.getBeerbyId(beerId);
+
+        assertThat(shardedInventory.demote(beerId)).isEqualTo(400);
+
+        assertThat(shardRepository.countByBeerId(beerId)).isZero();
+        assertThat(beerRepository.findById(beerId).orElseThrow())
+                .returns(false, BeerEntity::isSharded)
+                .returns(400, BeerEntity::getQuantityOnHand);
+        assertThat(shardedInventory.isSharded(beerId)).isFalse();
+    }
+
+    @Test
+    void shouldReplaceShardedStockWithAbsoluteQuantity() {
+        val beerId = createBeer("Restocked Porter", 800);
+        shardedInventory.promote(beerId);
+        val beer = beerService.getBeerbyId(beerId).orElseThrow();
+        beer.setQuantityOnHand(50);
+
+        beerService.updateBeerById(beerId, beer);
+
+        assertThat(shardRepository.countByBeerId(beerId)).isZero();
+        assertThat(beerService.getBeerbyId(beerId).orElseThrow().getQuantityOnHand()).isEqualTo(50);
+    }
+
+    @Test
+    void shouldDiscardShardsOnlyForConditionalWriteThatApplies() {
+        val beerId = createBeer("Conditional Porter", 800);
+        shardedInventory.promote(beerId);
+        val version = beerRepository.findVersionById(beerId).orElseThrow();
+        val patch = BeerDto.builder().quantityOnHand(50).build();
+
+        assertThat(beerService.patchBeerByIdIfMatch(beerId, version - 1, patch))
+                .isEqualTo(ConditionalWriteResult.VERSION_MISMATCH);
+        assertThat(shardRepository.countByBeerId(beerId)).isEqualTo(8);
+
+        assertThat(beerService.patchBeerByIdIfMatch(beerId, version, patch)).isEqualTo(ConditionalWriteResult.APPLIED);
+        assertThat(shardRepository.countByBeerId(beerId)).isZero();
+        assertThat(loadBeer(beerId).getTotalQuantityOnHand()).isEqualTo(50);
+    }
+
+    @Test
+    void shouldCountShardAllocationsInVersion() {
+        val beerId = createBeer("Versioned Sharded Pils", 800);
+        shardedInventory.promote(beerId);
+        val staleBeer = beerService.getBeerbyId(beerId).orElseThrow();
+
+        placeOrder(beerId, "SHARD-VERSION", 5);
+
+        val version = beerService.getBeerVersion(beerId).orElseThrow();
+        assertThat(version).isGreaterThan(staleBeer.getVersion());
+        assertThat(beerService.getBeerbyId(beerId).orElseThrow().getVersion()).isEqualTo(version);
+        assertThat(beerService.listBeers("Versioned Sharded", null, true, 1, 25).getContent())
+                .extracting(BeerDto::getVersion)
+                .containsExactly(version);
+
+        // A write based on the stock before the allocation must not put the allocated units back
+        assertThat(beerService.updateBeerByIdIfMatch(beerId, staleBeer.getVersion(), staleBeer))
+                .isEqualTo(ConditionalWriteResult.VERSION_MISMATCH);
+        assertThat(loadBeer(beerId).getTotalQuantityOnHand()).isEqualTo(795);
+
+        assertThat(beerService.patchBeerByIdIfMatch(beerId, version, BeerDto.builder().quantityOnHand(50).build()))
+                .isEqualTo(ConditionalWriteResult.APPLIED);
+        assertThat(shardRepository.countByBeerId(beerId)).isZero();
+        assertThat(beerRepository.findVersionById(beerId)).contains(version + 1);
+    }
+
+    @Test
+    void shouldKeepVersionWhenShardsAreDiscardedOrCollapsed() {
+        val demotedBeerId = createBeer("Collapsed Versioned Stout", 800);
+        shardedInventory.promote(demotedBeerId);
+        placeOrder(demotedBeerId, "SHARD-DEMOTED", 3);
+        val demotedVersion = beerRepository.findVersionById(demotedBeerId).orElseThrow();
+
+        shardedInventory.demote(demotedBeerId);
+
+        assertThat(beerRepository.findVersionById(demotedBeerId)).contains(demotedVersion);
+
+        val updatedBeerId = createBeer("Restocked Versioned Porter", 800);
+        shardedInventory.promote(updatedBeerId);
+        placeOrder(updatedBeerId, "SHARD-UPDATED", 3);
+        val updatedVersion = beerRepository.findVersionById(updatedBeerId).orElseThrow();
+        val beer = beerService.getBeerbyId(updatedBeerId).orElseThrow();
+        beer.setQuantityOnHand(50);
+
+        beerService.updateBeerById(updatedBeerId, beer);
+
+        assertThat(beerRepository.findVersionById(updatedBeerId)).contains(updatedVersion + 1);
+    }
+
+    @Test
+    void shouldAllocateEveryUnitExactlyOnceAcrossShards() throws Exception {
+        val rowBeerId = createBeer("Single Row Pils", 200);
+        val shardedBeerId = createBeer("Sharded Pils", 200);
+        shardedInventory.promote(shardedBeerId);
+
+        val row = placeConcurrentOrders(rowBeerId, 300);
+        val sharded = placeConcurrentOrders(shardedBeerId, 300);
+
+        log.info("300 concurrent orders for 200 units: single row {} orders/s, {} shards {} orders/s",
+                row.ordersPerSecond(), 8, sharded.ordersPerSecond());
+
+        assertThat(row.placed()).isEqualTo(200);
+        assertThat(sharded.placed()).isEqualTo(200);
+        assertThat(loadBeer(shardedBeerId).getTotalQuantityOnHand()).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from beer_inventory_shard where quantity < 0",
+                Integer.class)).isZero();
+    }
+
+    @Test
+    void shouldPromoteContendedBeerAndDemoteItOnceQuiet() throws Exception {
+        val properties = new InventoryShardingProperties();
+        properties.setEnabled(true);
+        properties.setPromoteAtContendedAllocations(1);
+        val inventory = new ShardedInventory(properties, beerRepository, shardRepository, entityManager,
+                transactionTemplate, new SimpleMeterRegistry());
+        val beerId = createBeer("Contended Red Ale", 500);
+
+        // The first allocation keeps its transaction open while the second one queues behind its row lock
+        val firstAllocated = new CountDownLatch(1);
+        val secondStarted = new CountDownLatch(1);
+        try (val executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            val first = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                inventory.allocate(beerId, 1);
+                firstAllocated.countDown();
+                await(secondStarted);
+                sleep();
+            }));
+            await(firstAllocated);
+            val second = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                secondStarted.countDown();
+                inventory.allocate(beerId, 1);
+            }));
+            first.get(30, TimeUnit.SECONDS);
+            second.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(inventory.hasAllocationsInFlight(beerId)).isFalse();
+
+        inventory.rebalance();
+
+        assertThat(inventory.isSharded(beerId)).isTrue();
+        assertThat(loadBeer(beerId).getTotalQuantityOnHand()).isEqualTo(498);
+
+        inventory.rebalance();
+
+        assertThat(inventory.isSharded(beerId)).isFalse();
+        assertThat(loadBeer(beerId))
+                .returns(498, BeerEntity::getQuantityOnHand)
+                .returns(498, BeerEntity::getTotalQuantityOnHand);
+    }
+
+    private BeerEntity loadBeer(UUID beerId) {
+        return shardedInventory.loadShardTotals(beerRepository.findById(beerId).orElseThrow());
+    }
+
+    private void placeOrder(UUID beerId, String customerRef, int quantity) {
+        beerOrderService.placeOrder(BeerOrderDto.builder()
+                .customerId(customerId)
+                .customerRef(customerRef)
+                .beerOrderLines(List.of(BeerOrderLineDto.builder()
+                        .beerId(beerId)
+                        .orderQuantity(quantity)
+                        .build()))
+                .build());
+    }
+
+    private record OrderRun(int placed, long ordersPerSecond) {
+    }
+
+    private OrderRun placeConcurrentOrders(UUID beerId, int orders) throws Exception {
+        val placed = new AtomicInteger();
+        val start = new CountDownLatch(1);
+        val futures = new ArrayList<Future<?>>();
+
+        long elapsed;
+        try (val executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < orders; i++) {
+                val customerRef = "SHARD-" + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        beerOrderService.placeOrder(BeerOrderDto.builder()
+                                .customerId(customerId)
+                                .customerRef(customerRef)
+                                .beerOrderLines(List.of(BeerOrderLineDto.builder()
+                                        .beerId(beerId)
+                                        .orderQuantity(1)
+                                        .build()))
+                                .build());
+                        placed.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        // Expected once the stock runs out
+                    }
+                    return null;
+                }));
+            }
+
+            val started = System.nanoTime();
+            start.countDown();
+            for (val future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            elapsed = System.nanoTime() - started;
+        }
+
+        return new OrderRun(placed.get(), Math.round(orders / (elapsed / 1e9)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Long enough for the second allocation to reach the row lock
+    private static void sleep() {
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
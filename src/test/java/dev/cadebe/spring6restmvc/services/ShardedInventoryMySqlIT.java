@@ -0,0 +1,139 @@
+package dev.cadebe.spring6restmvc.services;
+
+import dev.cadebe.spring6restmvc.data.BeerEntity;
+import dev.cadebe.spring6restmvc.model.BeerOrderDto;
+import dev.cadebe.spring6restmvc.model.BeerOrderLineDto;
+import dev.cadebe.spring6restmvc.model.BeerStyle;
+import dev.cadebe.spring6restmvc.repositories.BeerRepository;
+import dev.cadebe.spring6restmvc.repositories.CustomerRepository;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Places -Dsharding.orders single unit orders (default 2000) for one beer from -Dsharding.concurrency threads (default
+// 32) on MySQL 8, once against the beer row and once against its shards, and prints orders per second for both. H2
+// serialises writers on its own, so only InnoDB row locks show whether shards pay for their extra statements.
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=40",
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "logging.level.org.hibernate.orm.jdbc.bind=info",
+        "database.admission.enabled=false"})
+@ActiveProfiles("localmysql")
+class ShardedInventoryMySqlIT {
+
+    static final int ORDERS = Integer.getInteger("sharding.orders", 2000);
+    static final int CONCURRENCY = Integer.getInteger("sharding.concurrency", 32);
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0")
+            .withDatabaseName("restdb");
+
+    @DynamicPropertySource
+    static void mysqlProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    @Autowired
+    private ShardedInventory shardedInventory;
+
+    @Autowired
+    private BeerOrderService beerOrderService;
+
+    @Autowired
+    private BeerRepository beerRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    void shouldPrintSingleRowAndShardedAllocationThroughput() throws Exception {
+        val customerId = customerRepository.findAll().getFirst().getId();
+        val rowBeerId = createBeer("MySQL Single Row Pils");
+        val shardedBeerId = createBeer("MySQL Sharded Pils");
+        assertThat(shardedInventory.promote(shardedBeerId)).isTrue();
+
+        // Warms up the statement caches and JIT for both paths before either is timed
+        placeConcurrentOrders(customerId, rowBeerId, ORDERS / 10);
+        placeConcurrentOrders(customerId, shardedBeerId, ORDERS / 10);
+
+        val rowOrdersPerSecond = placeConcurrentOrders(customerId, rowBeerId, ORDERS);
+        val shardedOrdersPerSecond = placeConcurrentOrders(customerId, shardedBeerId, ORDERS);
+
+        System.out.printf("%,d orders from %d threads on MySQL: single row %,d orders/s, sharded %,d orders/s%n",
+                ORDERS, CONCURRENCY, rowOrdersPerSecond, shardedOrdersPerSecond);
+
+        val placed = ORDERS + ORDERS / 10;
+        assertThat(beerRepository.findById(rowBeerId).orElseThrow().getQuantityOnHand()).isEqualTo(stock() - placed);
+        assertThat(shardedInventory.loadShardTotals(beerRepository.findById(shardedBeerId).orElseThrow())
+                .getTotalQuantityOnHand()).isEqualTo(stock() - placed);
+    }
+
+    // Enough that no order runs out of stock, so both runs place every order
+    private static int stock() {
+        return 2 * (ORDERS + ORDERS / 10);
+    }
+
+    private UUID createBeer(String beerName) {
+        return beerRepository.save(BeerEntity.builder()
+                .beerName(beerName)
+                .beerStyle(BeerStyle.PILSNER)
+                .upc("0000000000024")
+                .price(new BigDecimal("4.99"))
+                .quantityOnHand(stock())
+                .build()).getId();
+    }
+
+    private long placeConcurrentOrders(UUID customerId, UUID beerId, int orders) throws Exception {
+        val start = new CountDownLatch(1);
+        val futures = new ArrayList<Future<?>>();
+
+        long elapsed;
+        try (val executor = Executors.newFixedThreadPool(CONCURRENCY)) {
+            for (int i = 0; i < orders; i++) {
+                val customerRef = "MYSQL-SHARD-" + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    beerOrderService.placeOrder(BeerOrderDto.builder()
+                            .customerId(customerId)
+                            .customerRef(customerRef)
+                            .beerOrderLines(List.of(BeerOrderLineDto.builder()
+                                    .beerId(beerId)
+                                    .orderQuantity(1)
+                                    .build()))
+                            .build());
+                    return null;
+                }));
+            }
+
+            val started = System.nanoTime();
+            start.countDown();
+            for (val future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+            elapsed = System.nanoTime() - started;
+        }
+
+        return Math.round(orders / (elapsed / 1e9));
+    }
+}